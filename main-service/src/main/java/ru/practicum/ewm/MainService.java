@@ -2,9 +2,11 @@ package ru.practicum.ewm;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 
 @SpringBootApplication(scanBasePackages = {"ru.practicum.*", "stats-client"})
+@EnableScheduling
 
 public class MainService {
     public static void main(String[] args) {
@@ -0,0 +1,26 @@
+package ru.practicum.ewm.configurations;
+
+import org.hibernate.boot.MetadataBuilder;
+import org.hibernate.boot.spi.MetadataBuilderContributor;
+import org.hibernate.dialect.function.SQLFunctionTemplate;
+import org.hibernate.type.StandardBasicTypes;
+
+/**
+ * Функции полнотекстового поиска PostgreSQL для запросов JPQL и QueryDSL:
+ * fts_match(annotation, description, query) - соответствие события запросу tsquery,
+ * fts_rank(annotation, description, query) - релевантность события запросу.
+ * Выражение документа совпадает с выражением GIN-индекса events_search_idx в schema.sql,
+ * поэтому поиск выполняется по индексу
+ */
+public class FullTextSearchFunctions implements MetadataBuilderContributor {
+    private static final String DOCUMENT = "to_tsvector('simple', coalesce(?1, '') || ' ' || coalesce(?2, ''))";
+    private static final String QUERY = "to_tsquery('simple', ?3)";
+
+    @Override
+    public void contribute(MetadataBuilder metadataBuilder) {
+        metadataBuilder.applySqlFunction("fts_match",
+                new SQLFunctionTemplate(StandardBasicTypes.BOOLEAN, "(" + DOCUMENT + " @@ " + QUERY + ")"));
+        metadataBuilder.applySqlFunction("fts_rank",
+                new SQLFunctionTemplate(StandardBasicTypes.DOUBLE, "ts_rank(" + DOCUMENT + ", " + QUERY + ")"));
+    }
+}
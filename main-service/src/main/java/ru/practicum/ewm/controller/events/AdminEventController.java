@@ -3,10 +3,12 @@ package ru.practicum.ewm.controller.events;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.ewm.dto.event.EventFullDto;
 import ru.practicum.ewm.dto.event.UpdateEventAdminRequest;
 import ru.practicum.ewm.enums.EventState;
+import ru.practicum.ewm.service.event.EventCursor;
 import ru.practicum.ewm.service.event.EventService;
 
 import javax.validation.Valid;
@@ -33,19 +35,28 @@ public class AdminEventController {
      * @param rangeEnd   - дата и время не позже которых должно произойти событие
      * @param from       - количество событий, которые нужно пропустить для формирования текущего набора
      * @param size       - количество событий в наборе
-     * @return - List<EventFullDto>
+     * @param cursor     - курсор из заголовка X-Next-Cursor предыдущей страницы, при наличии from не используется
+     * @return - List<EventFullDto>, курсор следующей страницы в заголовке X-Next-Cursor
      */
     @GetMapping
-    public List<EventFullDto> getEvents_2(
+    public ResponseEntity<List<EventFullDto>> getEvents_2(
             @RequestParam(required = false) List<Long> users,
             @RequestParam(required = false) List<EventState> states,
             @RequestParam(required = false) List<Long> categories,
             @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime rangeStart,
             @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime rangeEnd,
             @RequestParam(required = false, defaultValue = "0") @PositiveOrZero int from,
-            @RequestParam(required = false, defaultValue = "10") @Positive int size
+            @RequestParam(required = false, defaultValue = "10") @Positive int size,
+            @RequestParam(required = false) String cursor
     ) {
-        return eventService.getEvents_2(users, states, categories, rangeStart, rangeEnd, from, size);
+        List<EventFullDto> events = eventService.getEvents_2(users, states, categories, rangeStart, rangeEnd, from,
+                size, cursor);
+        String next = EventCursor.next(events, size, EventFullDto::getId, EventFullDto::getEventDate, false);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (next != null) {
+            response.header(EventCursor.HEADER, next);
+        }
+        return response.body(events);
     }
 
     /**
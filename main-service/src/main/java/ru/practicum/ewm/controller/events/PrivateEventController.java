@@ -3,6 +3,7 @@ package ru.practicum.ewm.controller.events;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.ewm.dto.event.EventFullDto;
 import ru.practicum.ewm.dto.event.EventShortDto;
@@ -11,6 +12,7 @@ import ru.practicum.ewm.dto.event.UpdateEventUserRequest;
 import ru.practicum.ewm.dto.request.EventRequestStatusUpdateRequest;
 import ru.practicum.ewm.dto.request.EventRequestStatusUpdateResult;
 import ru.practicum.ewm.dto.request.ParticipationRequestDto;
+import ru.practicum.ewm.service.event.EventCursor;
 import ru.practicum.ewm.service.event.EventService;
 
 import javax.validation.Valid;
@@ -31,13 +33,21 @@ public class PrivateEventController {
      * @param userId - id текущего пользователя
      * @param from   - количество элементов, которые нужно пропустить для формирования текущего набора
      * @param size   - количество элементов в наборе
+     * @param cursor - курсор из заголовка X-Next-Cursor предыдущей страницы, при наличии from не используется
      * @return
      */
     @GetMapping
-    public List<EventShortDto> getListOfCurrentUserEvents(@PathVariable long userId,
-                                                          @RequestParam(required = false, defaultValue = "0") @PositiveOrZero Integer from,
-                                                          @RequestParam(required = false, defaultValue = "10") @Positive Integer size) {
-        return eventService.getListOfCurrentUserEvents(userId, from, size);
+    public ResponseEntity<List<EventShortDto>> getListOfCurrentUserEvents(@PathVariable long userId,
+                                                                          @RequestParam(required = false, defaultValue = "0") @PositiveOrZero Integer from,
+                                                                          @RequestParam(required = false, defaultValue = "10") @Positive Integer size,
+                                                                          @RequestParam(required = false) String cursor) {
+        List<EventShortDto> events = eventService.getListOfCurrentUserEvents(userId, from, size, cursor);
+        String next = EventCursor.next(events, size, EventShortDto::getId, EventShortDto::getEventDate, false);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (next != null) {
+            response.header(EventCursor.HEADER, next);
+        }
+        return response.body(events);
     }
 
     /**
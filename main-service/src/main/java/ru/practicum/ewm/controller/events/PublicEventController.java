@@ -3,9 +3,11 @@ package ru.practicum.ewm.controller.events;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.ewm.dto.event.EventFullDto;
 import ru.practicum.ewm.dto.event.EventShortDto;
+import ru.practicum.ewm.service.event.EventCursor;
 import ru.practicum.ewm.service.event.EventService;
 
 import javax.servlet.http.HttpServletRequest;
@@ -30,14 +32,16 @@ public class PublicEventController {
      * @param rangeStart         - дата и время не раньше которых должно произойти событие
      * @param rangeEnd           - дата и время не позже которых должно произойти событие
      * @param onlyAvailable      - только события у которых не исчерпан лимит запросов на участие
-     * @param sort               - Вариант сортировки: по дате события или по количеству просмотров
+     * @param sort               - Вариант сортировки: по дате события, по количеству просмотров
+     *                           или по релевантности тексту поиска (EVENT_DATE, VIEWS, RELEVANCE)
      * @param from               - количество событий, которые нужно пропустить для формирования текущего набора
      * @param size               - количество событий в наборе
+     * @param cursor             - курсор из заголовка X-Next-Cursor предыдущей страницы, при наличии from не используется
      * @param httpServletRequest - информацию о том, что по этому эндпоинту был осуществлен и обработан запрос, нужно сохранить в сервисе статистики
-     * @return список событий в формате EventShortDto
+     * @return список событий в формате EventShortDto, курсор следующей страницы в заголовке X-Next-Cursor
      */
     @GetMapping
-    public List<EventShortDto> getEvents_1(
+    public ResponseEntity<List<EventShortDto>> getEvents_1(
             @RequestParam(required = false) String text,
             @RequestParam(required = false) List<Long> categories,
             @RequestParam(required = false) Boolean paid,
@@ -47,9 +51,18 @@ public class PublicEventController {
             @RequestParam(required = false) String sort,
             @RequestParam(required = false, defaultValue = "0") @PositiveOrZero int from,
             @RequestParam(required = false, defaultValue = "10") @Positive int size,
+            @RequestParam(required = false) String cursor,
             HttpServletRequest httpServletRequest) {
-        return eventService.getEvents_1(text, categories, paid, rangeStart, rangeEnd, onlyAvailable,
-                sort, from, size, httpServletRequest);
+        List<EventShortDto> events = eventService.getEvents_1(text, categories, paid, rangeStart, rangeEnd,
+                onlyAvailable, sort, from, size, cursor, httpServletRequest);
+        boolean byEventDate = sort != null && sort.equals("EVENT_DATE");
+        String next = sort != null && (sort.equals("RELEVANCE") || sort.equals("VIEWS")) ? null
+                : EventCursor.next(events, size, EventShortDto::getId, EventShortDto::getEventDate, byEventDate);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (next != null) {
+            response.header(EventCursor.HEADER, next);
+        }
+        return response.body(events);
     }
 
     /**
@@ -4,6 +4,7 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.BatchSize;
 import ru.practicum.ewm.model.event.Event;
 
 import javax.persistence.*;
@@ -21,6 +22,8 @@ public class Compilation {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     @Column(name = "id")
     private Long id;
+    //события подборок загружаются пачками, а не отдельным запросом на каждую подборку
+    @BatchSize(size = 100)
     @ManyToMany(cascade = CascadeType.ALL)
     @JoinTable(name = "compilation_event",
             joinColumns = @JoinColumn(name = "compilation_id"),
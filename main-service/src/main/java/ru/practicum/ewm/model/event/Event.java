@@ -54,6 +54,10 @@ public class Event {
     @Column(name = "title")
     private String title;
 
-    @Transient
+    //изменяется только атомарными запросами EventRepository, поэтому не записывается при сохранении события
+    @Column(name = "confirmed_requests", insertable = false, updatable = false)
     private int confirmedRequest;
+    //синхронизируется с сервисом статистики EventViewsSynchronizer, используется для сортировки по просмотрам
+    @Column(name = "views", insertable = false, updatable = false)
+    private long views;
 }
@@ -1,6 +1,6 @@
 package ru.practicum.ewm.repository.compilations;
 
-import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import ru.practicum.ewm.model.compilations.Compilation;
 
@@ -10,5 +10,5 @@ import java.util.List;
  * контракт для реализации JpaRepository
  */
 public interface CompilationsRepository extends JpaRepository<Compilation, Long> {
-    List<Compilation> findAllByPinned(Boolean pinned, PageRequest of);
+    List<Compilation> findAllByPinned(Boolean pinned, Pageable pageable);
 }
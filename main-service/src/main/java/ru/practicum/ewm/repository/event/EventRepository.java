@@ -1,21 +1,67 @@
 package ru.practicum.ewm.repository.event;
 
-import org.springframework.data.domain.PageRequest;
+import com.querydsl.core.types.Predicate;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.querydsl.QuerydslPredicateExecutor;
+import org.springframework.data.repository.query.Param;
 import ru.practicum.ewm.model.event.Event;
-import ru.practicum.ewm.model.user.User;
 
 import java.util.List;
+import java.util.Optional;
 
 /**
  * контракт для реализации JpaRepository
  */
 public interface EventRepository extends JpaRepository<Event, Long>, QuerydslPredicateExecutor<Event> {
-    List<Event> findByIdIn(List<Long> id);
+    //события загружаются вместе с категорией, инициатором и локацией одним запросом с join,
+    //без отдельного запроса на каждую связанную сущность
+    @Override
+    @EntityGraph(attributePaths = {"category", "initiator", "location"})
+    Optional<Event> findById(Long id);
+
+    @Override
+    @EntityGraph(attributePaths = {"category", "initiator", "location"})
+    Page<Event> findAll(Pageable pageable);
 
-    List<Event> findAllByInitiatorOrderById(User initiator, PageRequest of);
+    @Override
+    @EntityGraph(attributePaths = {"category", "initiator", "location"})
+    Page<Event> findAll(Predicate predicate, Pageable pageable);
+
+    @EntityGraph(attributePaths = {"category", "initiator", "location"})
+    List<Event> findByIdIn(List<Long> id);
 
     List<Event> findAllByCategory_Id(long catId);
 
+    /**
+     * метод атомарного увеличения счетчика подтвержденных заявок в пределах лимита участников
+     *
+     * @return - 1, если счетчик увеличен, 0 - лимит участников был бы превышен
+     */
+    @Modifying
+    @Query(value = "UPDATE events SET confirmed_requests = confirmed_requests + :count WHERE id = :eventId " +
+            "AND (participant_limit = 0 OR confirmed_requests + :count <= participant_limit)", nativeQuery = true)
+    int addConfirmedRequests(@Param("eventId") long eventId, @Param("count") int count);
+
+    @Modifying
+    @Query(value = "UPDATE events SET confirmed_requests = GREATEST(confirmed_requests - 1, 0) WHERE id = :eventId",
+            nativeQuery = true)
+    void removeConfirmedRequest(@Param("eventId") long eventId);
+
+    /**
+     * метод пересчета счетчиков подтвержденных заявок по таблице requests
+     *
+     * @return - количество исправленных событий
+     */
+    @Modifying
+    @Query(value = "UPDATE events e SET confirmed_requests = c.confirmed FROM (" +
+            "SELECT ev.id, COUNT(r.id) AS confirmed FROM events ev " +
+            "LEFT JOIN requests r ON r.event_id = ev.id AND r.status = 'CONFIRMED' GROUP BY ev.id) c " +
+            "WHERE e.id = c.id AND e.confirmed_requests <> c.confirmed", nativeQuery = true)
+    int reconcileConfirmedRequests();
+
 }
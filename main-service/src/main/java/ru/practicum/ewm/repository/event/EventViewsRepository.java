@@ -0,0 +1,54 @@
+package ru.practicum.ewm.repository.event;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.practicum.ewm.enums.EventState;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Репозиторий столбца events.views - количества просмотров, синхронизируемого с сервисом статистики
+ */
+@Repository
+@RequiredArgsConstructor
+public class EventViewsRepository {
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * метод получения опубликованных событий по возрастанию id
+     *
+     * @param afterId - id, после которого начинается выборка
+     * @param limit   - количество событий
+     * @return - даты публикации событий по id
+     */
+    public Map<Long, LocalDateTime> findPublished(long afterId, int limit) {
+        Map<Long, LocalDateTime> published = new LinkedHashMap<>();
+        jdbcTemplate.query("SELECT id, published_on FROM events WHERE state = ? AND id > ? " +
+                        "AND published_on IS NOT NULL ORDER BY id LIMIT ?",
+                rs -> {
+                    published.put(rs.getLong("id"), rs.getTimestamp("published_on").toLocalDateTime());
+                },
+                EventState.PUBLISHED.name(), afterId, limit);
+        return published;
+    }
+
+    /**
+     * метод сохранения просмотров; количество уникальных просмотров не убывает, поэтому значение
+     * только увеличивается и не может быть занижено неполным ответом сервиса статистики
+     *
+     * @param views - просмотры по id события
+     */
+    public void updateViews(Map<Long, Long> views) {
+        if (views.isEmpty()) {
+            return;
+        }
+        List<Object[]> batch = new ArrayList<>();
+        views.forEach((id, count) -> batch.add(new Object[]{count, id, count}));
+        jdbcTemplate.batchUpdate("UPDATE events SET views = ? WHERE id = ? AND views < ?", batch);
+    }
+}
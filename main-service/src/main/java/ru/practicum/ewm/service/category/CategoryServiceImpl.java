@@ -3,7 +3,6 @@ package ru.practicum.ewm.service.category;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.dao.DataIntegrityViolationException;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import ru.practicum.ewm.dto.category.CategoryDto;
 import ru.practicum.ewm.dto.category.NewCategoryDto;
@@ -12,6 +11,7 @@ import ru.practicum.ewm.exception.NotFoundException;
 import ru.practicum.ewm.exception.ValidationException;
 import ru.practicum.ewm.mapper.category.CategoryMapper;
 import ru.practicum.ewm.model.category.Category;
+import ru.practicum.ewm.repository.OffsetPageRequest;
 import ru.practicum.ewm.repository.category.CategoryRepository;
 import ru.practicum.ewm.repository.event.EventRepository;
 
@@ -96,7 +96,7 @@ public class CategoryServiceImpl implements CategoryService {
      */
     @Override
     public List<CategoryDto> getCategories(Integer from, Integer size) {
-        List<Category> categories = categoryRepository.findAll(PageRequest.of(from / size, size)).toList();
+        List<Category> categories = categoryRepository.findAll(OffsetPageRequest.of(from, size)).toList();
         log.info("Категории найдены {}", categories);
         return categories.stream().map(CategoryMapper::toDto).collect(Collectors.toList());
     }
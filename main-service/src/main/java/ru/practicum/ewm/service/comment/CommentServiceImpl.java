@@ -3,7 +3,6 @@ package ru.practicum.ewm.service.comment;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.dao.DataIntegrityViolationException;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import ru.practicum.ewm.dto.comment.CommentDto;
@@ -14,6 +13,7 @@ import ru.practicum.ewm.exception.NotFoundException;
 import ru.practicum.ewm.exception.ValidationException;
 import ru.practicum.ewm.mapper.comment.CommentMapper;
 import ru.practicum.ewm.model.comment.Comment;
+import ru.practicum.ewm.repository.OffsetPageRequest;
 import ru.practicum.ewm.model.event.Event;
 import ru.practicum.ewm.model.user.User;
 import ru.practicum.ewm.repository.comment.CommentRepository;
@@ -156,7 +156,7 @@ public class CommentServiceImpl implements CommentService {
      */
     @Override
     public List<CommentDto> getCommentsList(String rangeStart, String rangeEnd, int from, int size) {
-        Pageable pageable = PageRequest.of(from / size, size);
+        Pageable pageable = OffsetPageRequest.of(from, size);
         LocalDateTime start = LocalDateTime.parse(rangeStart, dateFormatter);
         LocalDateTime end = LocalDateTime.parse(rangeEnd, dateFormatter);
         if (start != null && end != null) {
@@ -3,7 +3,6 @@ package ru.practicum.ewm.service.compilations;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.dao.DataIntegrityViolationException;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import ru.practicum.ewm.dto.category.CategoryDto;
 import ru.practicum.ewm.dto.compilations.CompilationDto;
@@ -19,9 +18,9 @@ import ru.practicum.ewm.mapper.event.EventMapper;
 import ru.practicum.ewm.mapper.user.UserMapper;
 import ru.practicum.ewm.model.compilations.Compilation;
 import ru.practicum.ewm.model.event.Event;
+import ru.practicum.ewm.repository.OffsetPageRequest;
 import ru.practicum.ewm.repository.compilations.CompilationsRepository;
 import ru.practicum.ewm.repository.event.EventRepository;
-import ru.practicum.ewm.repository.request.RequestRepository;
 import ru.practicum.ewm.service.view.ViewService;
 
 import java.util.ArrayList;
@@ -40,7 +39,6 @@ public class CompilationServiceImpl implements CompilationService {
     private final EventRepository eventRepository;
     private final CompilationsRepository compilationsRepository;
     private final ViewService viewService;
-    private final RequestRepository requestRepository;
 
 
     /**
@@ -120,9 +118,9 @@ public class CompilationServiceImpl implements CompilationService {
     public List<CompilationDto> getCompilations(Boolean pinned, Integer from, Integer size) {
         List<Compilation> compilation = new ArrayList<>();
         if (pinned != null) {
-            compilation = compilationsRepository.findAllByPinned(pinned, PageRequest.of(from / size, size));
+            compilation = compilationsRepository.findAllByPinned(pinned, OffsetPageRequest.of(from, size));
         } else {
-            compilation = compilationsRepository.findAll(PageRequest.of(from / size, size)).getContent();
+            compilation = compilationsRepository.findAll(OffsetPageRequest.of(from, size)).getContent();
         }
         log.info("Найдены подборки событий {}", compilation);
         return compilation.stream().map(this::returnToCompilationDto).collect(Collectors.toList());
@@ -153,7 +151,7 @@ public class CompilationServiceImpl implements CompilationService {
         Map<Long, Integer> viewsMap = viewService.getViews(compilation.getEvents());
 
         for (Event event : compilation.getEvents()) {
-            Integer confirmedRequest = requestRepository.findAllByEvent(event).size();
+            Integer confirmedRequest = event.getConfirmedRequest();
             CategoryDto categoryDto = CategoryMapper.toDto(event.getCategory());
             UserShortDto userShortDto = UserMapper.toUserShortDto(event.getInitiator());
             EventShortDto eventShortDto = EventMapper.toEventShortDto(event, confirmedRequest, categoryDto,
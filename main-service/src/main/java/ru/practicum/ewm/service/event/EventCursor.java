@@ -0,0 +1,81 @@
+package ru.practicum.ewm.service.event;
+
+import com.querydsl.core.types.dsl.BooleanExpression;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import ru.practicum.ewm.exception.ValidationException;
+import ru.practicum.ewm.model.event.QEvent;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Курсор постраничного вывода событий: ключ сортировки последнего события страницы и его id.
+ * Следующая страница выбирается условием по ключу (index seek) вместо OFFSET.
+ * Поддерживаются порядки по возрастанию id и по убыванию даты события, затем id
+ */
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class EventCursor {
+    //заголовок ответа с курсором следующей страницы
+    public static final String HEADER = "X-Next-Cursor";
+
+    //дата последнего события при сортировке по дате, иначе null
+    private final LocalDateTime eventDate;
+    private final long id;
+
+    /**
+     * метод разбора курсора из запроса
+     *
+     * @param token       - курсор, полученный в заголовке X-Next-Cursor
+     * @param byEventDate - сортировка по дате события
+     * @return - курсор или null, если token не задан
+     */
+    public static EventCursor decode(String token, boolean byEventDate) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split(",", -1);
+            if (parts.length != (byEventDate ? 2 : 1)) {
+                throw new ValidationException("Курсор не соответствует сортировке");
+            }
+            return new EventCursor(byEventDate ? LocalDateTime.parse(parts[1]) : null, Long.parseLong(parts[0]));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new ValidationException("Некорректный курсор");
+        }
+    }
+
+    /**
+     * метод получения курсора следующей страницы
+     *
+     * @param page        - текущая страница
+     * @param size        - размер страницы
+     * @param id          - id элемента страницы
+     * @param eventDate   - дата события элемента страницы
+     * @param byEventDate - сортировка по дате события
+     * @return - курсор или null, если страница последняя
+     */
+    public static <T> String next(List<T> page, int size, Function<T, Long> id, Function<T, LocalDateTime> eventDate,
+                                  boolean byEventDate) {
+        if (page.size() < size) {
+            return null;
+        }
+        T last = page.get(page.size() - 1);
+        String value = byEventDate ? id.apply(last) + "," + eventDate.apply(last) : String.valueOf(id.apply(last));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * условие выбора событий после курсора
+     */
+    public BooleanExpression after(QEvent event) {
+        if (eventDate == null) {
+            return event.id.gt(id);
+        }
+        return event.eventDate.lt(eventDate).or(event.eventDate.eq(eventDate).and(event.id.lt(id)));
+    }
+}
@@ -0,0 +1,96 @@
+package ru.practicum.ewm.service.event;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.AllArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.ewm.dto.event.EventShortDto;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Кэш результатов публичного поиска событий по набору фильтров. Любое изменение событий увеличивает версию,
+ * и результаты, полученные до изменения, перестают использоваться. Просмотры в результатах обновляются
+ * по истечении search.cache.ttl-ms
+ */
+@Component
+public class EventSearchCache {
+    private final AtomicLong version = new AtomicLong();
+    private final Cache<List<Object>, Entry> cache;
+
+    public EventSearchCache(MeterRegistry meterRegistry,
+                            @Value("${search.cache.ttl-ms:5000}") long ttlMs,
+                            @Value("${search.cache.max-size:1000}") long maxSize) {
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMillis(ttlMs))
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "event-search");
+    }
+
+    /**
+     * метод получения текущей версии, вызывается до выполнения поиска
+     */
+    public long version() {
+        return version.get();
+    }
+
+    /**
+     * метод получения результата поиска
+     *
+     * @param key - нормализованный набор фильтров
+     * @return - результат или null, если его нет или события изменились после его получения
+     */
+    public List<EventShortDto> get(List<Object> key) {
+        Entry entry = cache.getIfPresent(key);
+        if (entry == null || entry.version != version.get()) {
+            return null;
+        }
+        return entry.events;
+    }
+
+    /**
+     * метод сохранения результата поиска
+     *
+     * @param key     - нормализованный набор фильтров
+     * @param version - версия, полученная до выполнения поиска
+     * @param events  - результат поиска
+     */
+    public void put(List<Object> key, long version, List<EventShortDto> events) {
+        if (version == this.version.get()) {
+            cache.put(key, new Entry(version, List.copyOf(events)));
+        }
+    }
+
+    /**
+     * метод сброса результатов, вызывается при публикации, изменении и отмене событий, а также при изменении
+     * количества подтвержденных заявок, по которому фильтрует onlyAvailable. Внутри транзакции версия
+     * увеличивается после ее фиксации, иначе поиск, выполненный до фиксации, попал бы в кэш с новой версией
+     */
+    public void invalidate() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            version.incrementAndGet();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                version.incrementAndGet();
+            }
+        });
+    }
+
+    @AllArgsConstructor
+    private static class Entry {
+        private final long version;
+        private final List<EventShortDto> events;
+    }
+}
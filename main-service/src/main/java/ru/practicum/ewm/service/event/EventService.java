@@ -25,10 +25,12 @@ public interface EventService {
      * @param rangeEnd   - дата и время не позже которых должно произойти событие
      * @param from       - количество событий, которые нужно пропустить для формирования текущего набора
      * @param size       -количество событий в наборе
+     * @param cursor     - курсор следующей страницы, при наличии from не используется
      * @return - List<EventFullDto>
      */
     List<EventFullDto> getEvents_2(List<Long> users, List<EventState> states, List<Long> categories,
-                                   LocalDateTime rangeStart, LocalDateTime rangeEnd, int from, int size);
+                                   LocalDateTime rangeStart, LocalDateTime rangeEnd, int from, int size,
+                                   String cursor);
 
     /**
      * метод редактирование данных любого события администратором
@@ -51,12 +53,13 @@ public interface EventService {
      * @param sort               - Вариант сортировки: по дате события или по количеству просмотров
      * @param from               - количество событий, которые нужно пропустить для формирования текущего набора
      * @param size               - количество событий в наборе
+     * @param cursor             - курсор следующей страницы, при наличии from не используется
      * @param httpServletRequest - информацию о том, что по этому эндпоинту был осуществлен и обработан запрос, нужно сохранить в сервисе статистики
      * @return список событий в формате EventShortDto
      */
     List<EventShortDto> getEvents_1(String text, List<Long> categories, Boolean paid, LocalDateTime rangeStart,
                                     LocalDateTime rangeEnd, Boolean onlyAvailable, String sort, int from, int size,
-                                    HttpServletRequest httpServletRequest);
+                                    String cursor, HttpServletRequest httpServletRequest);
 
     /**
      * метод получения подробной информации об опубликованном событии по его идентификатору
@@ -73,9 +76,10 @@ public interface EventService {
      * @param userId - id текущего пользователя
      * @param from   - количество элементов, которые нужно пропустить для формирования текущего набора
      * @param size   - количество элементов в наборе
+     * @param cursor - курсор следующей страницы, при наличии from не используется
      * @return
      */
-    List<EventShortDto> getListOfCurrentUserEvents(long userId, Integer from, Integer size);
+    List<EventShortDto> getListOfCurrentUserEvents(long userId, Integer from, Integer size, String cursor);
 
     /**
      * Добавление нового события
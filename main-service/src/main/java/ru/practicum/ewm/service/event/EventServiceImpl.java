@@ -1,12 +1,14 @@
 package ru.practicum.ewm.service.event;
 
 import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.Expressions;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.querydsl.QSort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.client.stats.StatsClient;
 import ru.practicum.dto.stats.EndpointHit;
 import ru.practicum.ewm.configurations.AppName;
@@ -35,6 +37,7 @@ import ru.practicum.ewm.model.event.QEvent;
 import ru.practicum.ewm.model.location.Location;
 import ru.practicum.ewm.model.request.ParticipationRequest;
 import ru.practicum.ewm.model.user.User;
+import ru.practicum.ewm.repository.OffsetPageRequest;
 import ru.practicum.ewm.repository.category.CategoryRepository;
 import ru.practicum.ewm.repository.event.EventRepository;
 import ru.practicum.ewm.repository.location.LocationRepository;
@@ -46,7 +49,7 @@ import javax.servlet.http.HttpServletRequest;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -66,6 +69,7 @@ public class EventServiceImpl implements EventService {
     private final LocationRepository locationRepository;
     private final StatsClient statsClient;
     private final AppName name;
+    private final EventSearchCache searchCache;
 
     private static final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
@@ -80,18 +84,23 @@ public class EventServiceImpl implements EventService {
      * @param rangeEnd   - дата и время не позже которых должно произойти событие
      * @param from       - количество событий, которые нужно пропустить для формирования текущего набора
      * @param size       -количество событий в наборе
+     * @param cursor     - курсор следующей страницы, при наличии from не используется
      * @return - List<EventFullDto>
      */
     @Override
     public List<EventFullDto> getEvents_2(List<Long> users, List<EventState> states, List<Long> categories,
-                                          LocalDateTime rangeStart, LocalDateTime rangeEnd, int from, int size) {
+                                          LocalDateTime rangeStart, LocalDateTime rangeEnd, int from, int size,
+                                          String cursor) {
         List<BooleanExpression> conditions = new ArrayList<>();
         List<Event> eventListResult;
-        Pageable pageable = PageRequest.of(from / size, size);
+        EventCursor after = EventCursor.decode(cursor, false);
+        Pageable pageable = OffsetPageRequest.of(after == null ? from : 0, size, Sort.by("id"));
         QEvent event = QEvent.event;
+        if (after != null) {
+            conditions.add(after.after(event));
+        }
         if (users != null) {
-            List<User> userList = users.stream().map(user -> userRepository.findById(user).orElseThrow()).collect(Collectors.toList());
-            conditions.add(event.initiator.in(userList));
+            conditions.add(event.initiator.id.in(users));
         }
         if (states != null) {
             conditions.add(event.state.in(states));
@@ -109,7 +118,7 @@ public class EventServiceImpl implements EventService {
             conditions.add(event.eventDate.loe(rangeEnd));
         }
         if (conditions.isEmpty()) {
-            eventListResult = eventRepository.findAll(PageRequest.of(from / size, size)).getContent();
+            eventListResult = eventRepository.findAll(pageable).getContent();
         } else {
             BooleanExpression booleanExpression = conditions.get(0);
             for (int i = 1; i < conditions.size(); i++) {
@@ -118,7 +127,6 @@ public class EventServiceImpl implements EventService {
             eventListResult = eventRepository.findAll(booleanExpression, pageable).getContent();
         }
         Map<Long, Integer> viewsMap = viewService.getViews(eventListResult);
-        addRequestConfirmed(eventListResult);
         List<EventFullDto> listEventFullDto = eventListResult.stream()
                 .map(e -> toEventFullDto(e, e.getConfirmedRequest(), viewsMap.getOrDefault(e.getId(), 0)))
                 .collect(Collectors.toList());
@@ -188,9 +196,9 @@ public class EventServiceImpl implements EventService {
             event.setTitle(adminRequest.getTitle());
         }
         Map<Long, Integer> views = viewService.getViews(List.of(event));
-        Integer confirmedRequest = requestRepository.findAllByEventAndStatusOrderByCreated(event,
-                ParticipationState.CONFIRMED).size();
+        Integer confirmedRequest = event.getConfirmedRequest();
         Event updateEvent = eventRepository.save(event);
+        searchCache.invalidate();
         EventFullDto eventFullDto = toEventFullDto(updateEvent, confirmedRequest, views.get(eventId));
         log.info("Событие отредактировано {}", eventFullDto);
         return eventFullDto;
@@ -205,9 +213,11 @@ public class EventServiceImpl implements EventService {
      * @param rangeStart         - дата и время не раньше которых должно произойти событие
      * @param rangeEnd           - дата и время не позже которых должно произойти событие
      * @param onlyAvailable      - только события у которых не исчерпан лимит запросов на участие
-     * @param sort               - Вариант сортировки: по дате события или по количеству просмотров
+     * @param sort               - Вариант сортировки: по дате события, по количеству просмотров
+     *                           или по релевантности тексту поиска
      * @param from               - количество событий, которые нужно пропустить для формирования текущего набора
      * @param size               - количество событий в наборе
+     * @param cursor             - курсор следующей страницы, при наличии from не используется
      * @param httpServletRequest - информацию о том, что по этому эндпоинту был осуществлен и обработан запрос, нужно сохранить в сервисе статистики
      * @return список событий в формате EventShortDto
      */
@@ -216,14 +226,48 @@ public class EventServiceImpl implements EventService {
     @Override
     public List<EventShortDto> getEvents_1(String text, List<Long> categories, Boolean paid, LocalDateTime rangeStart,
                                            LocalDateTime rangeEnd, Boolean onlyAvailable, String sort, int from,
-                                           int size, HttpServletRequest httpServletRequest) {
+                                           int size, String cursor, HttpServletRequest httpServletRequest) {
         LocalDateTime dateTime = LocalDateTime.now();
+        List<Object> key = Arrays.asList(text == null ? null : text.trim().toLowerCase(),
+                categories == null ? null : categories.stream().sorted().collect(Collectors.toList()),
+                paid, rangeStart, rangeEnd, onlyAvailable, sort, from, size, cursor);
+        List<EventShortDto> eventShortDtos = searchCache.get(key);
+        if (eventShortDtos == null) {
+            long version = searchCache.version();
+            eventShortDtos = searchEvents(text, categories, paid, rangeStart, rangeEnd, onlyAvailable, sort, from,
+                    size, cursor, dateTime);
+            searchCache.put(key, version, eventShortDtos);
+        }
+        statsClient.hit(new EndpointHit(name.getAppName(), httpServletRequest.getRequestURI(), httpServletRequest.getRemoteAddr(), dateTime.format(formatter)));
+        return eventShortDtos;
+    }
+
+    /**
+     * вспомогательный метод поиска событий в б/д, параметры совпадают с getEvents_1
+     *
+     * @param dateTime - время запроса
+     */
+    private List<EventShortDto> searchEvents(String text, List<Long> categories, Boolean paid,
+                                             LocalDateTime rangeStart, LocalDateTime rangeEnd, Boolean onlyAvailable,
+                                             String sort, int from, int size, String cursor, LocalDateTime dateTime) {
         List<BooleanExpression> conditions = new ArrayList<>();
         QEvent event = QEvent.event;
         List<Event> resultEventList;
-        Pageable page = PageRequest.of(from / size, size);
-        if (sort != null && sort.equals("EVENT_DATE")) {
-            page = PageRequest.of(from / size, size, Sort.by(Sort.Direction.DESC, "eventDate"));
+        boolean byEventDate = sort != null && sort.equals("EVENT_DATE");
+        boolean byViews = sort != null && sort.equals("VIEWS");
+        EventCursor after = EventCursor.decode(cursor, byEventDate);
+        if (after != null && byViews) {
+            throw new ValidationException("Курсор не поддерживается при сортировке по просмотрам");
+        }
+        long offset = after == null ? from : 0;
+        Pageable page = OffsetPageRequest.of(offset, size, Sort.by("id"));
+        if (byEventDate) {
+            page = OffsetPageRequest.of(offset, size, Sort.by(Sort.Direction.DESC, "eventDate", "id"));
+        } else if (byViews) {
+            page = OffsetPageRequest.of(offset, size, Sort.by(Sort.Direction.DESC, "views").and(Sort.by("id")));
+        }
+        if (after != null) {
+            conditions.add(after.after(event));
         }
         if (rangeStart == null && rangeEnd == null) {
             rangeStart = dateTime;
@@ -232,8 +276,19 @@ public class EventServiceImpl implements EventService {
         if (rangeStart.isAfter(rangeEnd)) {
             throw new ValidationException("запрос составлен некорректно");
         }
-        if (text != null) {
-            conditions.add(event.annotation.containsIgnoreCase(text).or(event.description.containsIgnoreCase(text)));
+        String tsQuery = toTsQuery(text);
+        if (tsQuery != null) {
+            conditions.add(Expressions.booleanTemplate("fts_match({0}, {1}, {2}) = true",
+                    event.annotation, event.description, tsQuery));
+            if (sort != null && sort.equals("RELEVANCE")) {
+                if (after != null) {
+                    throw new ValidationException("Курсор не поддерживается при сортировке по релевантности");
+                }
+                page = OffsetPageRequest.of(from, size, new QSort(
+                        Expressions.numberTemplate(Double.class, "fts_rank({0}, {1}, {2})",
+                                event.annotation, event.description, tsQuery).desc(),
+                        event.id.asc()));
+            }
         }
         if (categories != null) {
             List<Category> categoryList = categoryRepository.findByIdIn(categories);
@@ -250,6 +305,9 @@ public class EventServiceImpl implements EventService {
         if (rangeEnd != null) {
             conditions.add(event.eventDate.loe(rangeEnd));
         }
+        if (onlyAvailable != null && onlyAvailable) {
+            conditions.add(event.participantLimit.eq(0).or(event.confirmedRequest.lt(event.participantLimit)));
+        }
 
         BooleanExpression request = event.state.eq(EventState.PUBLISHED);
         if (!conditions.isEmpty()) {
@@ -258,22 +316,12 @@ public class EventServiceImpl implements EventService {
             }
         }
         resultEventList = eventRepository.findAll(request, page).getContent();
-        statsClient.hit(new EndpointHit(name.getAppName(), httpServletRequest.getRequestURI(), httpServletRequest.getRemoteAddr(), dateTime.format(formatter)));
         Map<Long, Integer> views = viewService.getViews(resultEventList);
-        if (onlyAvailable != null && onlyAvailable) {
-            addRequestConfirmed(resultEventList);
-            resultEventList.stream().filter(e -> e.getConfirmedRequest() < e.getParticipantLimit()).collect(Collectors.toList());
-        }
         List<EventShortDto> eventShortDtos = resultEventList.stream()
                 .map(e -> EventMapper.toEventShortDto(e, e.getConfirmedRequest(),
                         CategoryMapper.toDto(e.getCategory()),
                         UserMapper.toUserShortDto(e.getInitiator()), views))
                 .collect(Collectors.toList());
-        if (sort != null && sort.equals("VIEWS")) {
-            eventShortDtos.stream()
-                    .sorted(Comparator.comparing(EventShortDto::getViews).reversed())
-                    .collect(Collectors.toList());
-        }
         log.info("События найдены {}", eventShortDtos);
         return eventShortDtos;
     }
@@ -296,8 +344,7 @@ public class EventServiceImpl implements EventService {
         statsClient.hit(new EndpointHit(name.getAppName(), httpServletRequest.getRequestURI(),
                 httpServletRequest.getRemoteAddr(), dateTime.format(formatter)));
         Map<Long, Integer> views = viewService.getViews(List.of(event));
-        Integer confirmedRequest = requestRepository.findAllByEventAndStatusOrderByCreated(event,
-                ParticipationState.CONFIRMED).size();
+        Integer confirmedRequest = event.getConfirmedRequest();
         EventFullDto eventFullDto = toEventFullDto(event, confirmedRequest, views.get(event.getId()));
         log.info("Событие найдено {}", eventFullDto);
         return eventFullDto;
@@ -309,15 +356,21 @@ public class EventServiceImpl implements EventService {
      * @param userId - id текущего пользователя
      * @param from   - количество элементов, которые нужно пропустить для формирования текущего набора
      * @param size   - количество элементов в наборе
+     * @param cursor - курсор следующей страницы, при наличии from не используется
      * @return
      */
     @Override
-    public List<EventShortDto> getListOfCurrentUserEvents(long userId, Integer from, Integer size) {
+    public List<EventShortDto> getListOfCurrentUserEvents(long userId, Integer from, Integer size, String cursor) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new NotFoundException("Пользователь не найден или недоступн"));
-        List<Event> eventList = eventRepository.findAllByInitiatorOrderById(user, PageRequest.of(from / size, size));
+        EventCursor after = EventCursor.decode(cursor, false);
+        BooleanExpression condition = QEvent.event.initiator.eq(user);
+        if (after != null) {
+            condition = condition.and(after.after(QEvent.event));
+        }
+        List<Event> eventList = eventRepository.findAll(condition,
+                OffsetPageRequest.of(after == null ? from : 0, size, Sort.by("id"))).getContent();
         Map<Long, Integer> views = viewService.getViews(eventList);
-        addRequestConfirmed(eventList);
         List<EventShortDto> resultList = eventList.stream().map(e -> EventMapper.toEventShortDto(e, e.getConfirmedRequest(),
                 CategoryMapper.toDto(e.getCategory()),
                 UserMapper.toUserShortDto(e.getInitiator()),
@@ -345,8 +398,7 @@ public class EventServiceImpl implements EventService {
                 .orElseThrow(() -> new NotFoundException("Категория не найдена или недоступна"));
         Event event = eventRepository.save(EventMapper.toEvent(newEventDto, category, LocalDateTime.now(), user, location));
         Map<Long, Integer> views = viewService.getViews(List.of(event));
-        Integer confirmedRequest = requestRepository.findAllByEventAndStatusOrderByCreated(event,
-                ParticipationState.CONFIRMED).size();
+        Integer confirmedRequest = event.getConfirmedRequest();
         EventFullDto eventFullDto = toEventFullDto(event, confirmedRequest, views.get(event.getId()));
         log.info("Событие добавлено {}", event);
         return eventFullDto;
@@ -367,8 +419,7 @@ public class EventServiceImpl implements EventService {
             throw new ValidationException("Запрос составлен некорректно");
         }
         Map<Long, Integer> views = viewService.getViews(List.of(event));
-        Integer confirmedRequest = requestRepository.findAllByEventAndStatusOrderByCreated(event,
-                ParticipationState.CONFIRMED).size();
+        Integer confirmedRequest = event.getConfirmedRequest();
         EventFullDto eventFullDto = toEventFullDto(event, confirmedRequest, views.get(event.getId()));
         log.info("Событие найдено {}", eventFullDto);
         return eventFullDto;
@@ -432,8 +483,9 @@ public class EventServiceImpl implements EventService {
             event.setTitle(updateEventUserRequest.getTitle());
         }
         Map<Long, Integer> views = viewService.getViews(List.of(event));
-        Integer confirmedRequest = requestRepository.findAllByEventAndStatusOrderByCreated(event, ParticipationState.CONFIRMED).size();
+        Integer confirmedRequest = event.getConfirmedRequest();
         Event updateEvent = eventRepository.save(event);
+        searchCache.invalidate();
         EventFullDto eventFullDtoUpdate = toEventFullDto(updateEvent, confirmedRequest, views.get(updateEvent.getId()));
         log.info("Изменение события добавленного текущим пользователем {}", userId);
         log.info("Событие обновлено {}", eventFullDtoUpdate);
@@ -470,6 +522,7 @@ public class EventServiceImpl implements EventService {
      * @return - Измененный статус (подтверждена, отменена) заявки на участие
      */
     @Override
+    @Transactional
     public EventRequestStatusUpdateResult changeRequestStatus(long userId, long eventId,
                                                               EventRequestStatusUpdateRequest eventRequest) {
         if (eventRequest == null) {
@@ -483,8 +536,7 @@ public class EventServiceImpl implements EventService {
         if (!event.getRequestModeration() || event.getParticipantLimit() == 0) {
             throw new ValidationException("Запрос составлен некорректно");
         }
-        int pending = requestRepository.findAllByEventAndStatusOrderByCreated(event,
-                ParticipationState.CONFIRMED).size();
+        int pending = event.getConfirmedRequest();
         if (event.getParticipantLimit() <= pending) {
             throw new ConflictException("Достигнут лимит одобренных заявок");
         }
@@ -499,6 +551,7 @@ public class EventServiceImpl implements EventService {
                 if (event.getParticipantLimit() > pending) {
                     participation.setStatus(ParticipationState.CONFIRMED);
                     requestConfirm.add(participation);
+                    pending++;
                 } else {
                     participation.setStatus(ParticipationState.REJECTED);
                     requestRejected.add(participation);
@@ -510,6 +563,12 @@ public class EventServiceImpl implements EventService {
                 requestRejected.add(participation);
             }
         }
+        if (!requestConfirm.isEmpty() && eventRepository.addConfirmedRequests(eventId, requestConfirm.size()) == 0) {
+            throw new ConflictException("Достигнут лимит одобренных заявок");
+        }
+        if (!requestConfirm.isEmpty()) {
+            searchCache.invalidate();
+        }
         requestRepository.saveAll(requestConfirm);
         List<ParticipationRequestDto> participationRequestDtosConfirm = requestConfirm.stream()
                 .map(RequestMapper::toParticipationRequestDto).collect(Collectors.toList());
@@ -522,14 +581,22 @@ public class EventServiceImpl implements EventService {
     }
 
 
-    private void addRequestConfirmed(List<Event> eventListResult) {
-        List<ParticipationRequest> participationRequestList = requestRepository.findAllByEventIn(eventListResult);
-        for (ParticipationRequest pR : participationRequestList) {
-            if (pR.getStatus().equals(ParticipationState.CONFIRMED)) {
-                Event event = pR.getEvent();
-                event.setConfirmedRequest(event.getConfirmedRequest() + 1);
-            }
-        }
+    /**
+     * вспомогательный метод преобразования текста поиска в запрос tsquery: событие должно содержать
+     * все слова текста, слова ищутся по префиксу
+     *
+     * @param text - текст поиска
+     * @return - запрос tsquery или null, если в тексте нет слов
+     */
+    static String toTsQuery(String text) {
+        if (text == null) {
+            return null;
+        }
+        String query = Arrays.stream(text.split("[^\\p{L}\\p{N}]+"))
+                .filter(word -> !word.isEmpty())
+                .map(word -> word + ":*")
+                .collect(Collectors.joining(" & "));
+        return query.isEmpty() ? null : query;
     }
 
     private EventFullDto toEventFullDto(Event event, Integer confirmedRequests, Integer views) {
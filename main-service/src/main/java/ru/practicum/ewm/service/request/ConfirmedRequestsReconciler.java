@@ -0,0 +1,31 @@
+package ru.practicum.ewm.service.request;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.ewm.repository.event.EventRepository;
+import ru.practicum.ewm.service.event.EventSearchCache;
+
+/**
+ * Сверка счетчиков подтвержденных заявок events.confirmed_requests с таблицей requests: исправляет
+ * расхождения, если заявки изменялись в обход RequestServiceImpl и EventServiceImpl
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ConfirmedRequestsReconciler {
+    private final EventRepository eventRepository;
+    private final EventSearchCache searchCache;
+
+    @Transactional
+    @Scheduled(cron = "${events.confirmed-requests.reconcile-cron:0 */10 * * * *}")
+    public void reconcile() {
+        int fixed = eventRepository.reconcileConfirmedRequests();
+        if (fixed > 0) {
+            log.warn("Исправлены счетчики подтвержденных заявок у {} событий", fixed);
+            searchCache.invalidate();
+        }
+    }
+}
@@ -3,6 +3,7 @@ package ru.practicum.ewm.service.request;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.ewm.dto.request.ParticipationRequestDto;
 import ru.practicum.ewm.enums.EventState;
 import ru.practicum.ewm.enums.ParticipationState;
@@ -15,6 +16,7 @@ import ru.practicum.ewm.model.user.User;
 import ru.practicum.ewm.repository.event.EventRepository;
 import ru.practicum.ewm.repository.request.RequestRepository;
 import ru.practicum.ewm.repository.user.UserRepository;
+import ru.practicum.ewm.service.event.EventSearchCache;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -30,6 +32,7 @@ public class RequestServiceImpl implements RequestService {
     private final UserRepository userRepository;
     private final RequestRepository requestRepository;
     private final EventRepository eventRepository;
+    private final EventSearchCache searchCache;
 
     /**
      * Получение информации о заявках текущего пользователя на участие в чужих событиях
@@ -56,6 +59,7 @@ public class RequestServiceImpl implements RequestService {
      * @return - Добавленный запрос в формате ParticipationRequestDto
      */
     @Override
+    @Transactional
     public ParticipationRequestDto addParticipationRequest(long userId, long eventId) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new NotFoundException("Пользователь не найден"));
@@ -70,8 +74,7 @@ public class RequestServiceImpl implements RequestService {
             log.info("Событие не опубликовано");
             throw new ConflictException("Нарушение целостности данных");
         }
-        Integer confirmedRequests = requestRepository.findAllByEvent(event).size();
-        if (confirmedRequests >= event.getParticipantLimit() && event.getParticipantLimit() > 0) {
+        if (event.getConfirmedRequest() >= event.getParticipantLimit() && event.getParticipantLimit() > 0) {
             log.info("Достигнут лимит участников");
             throw new ConflictException("Нарушение целостности данных");
         }
@@ -81,6 +84,13 @@ public class RequestServiceImpl implements RequestService {
         } else {
             participationState = ParticipationState.PENDING;
         }
+        if (participationState == ParticipationState.CONFIRMED && eventRepository.addConfirmedRequests(eventId, 1) == 0) {
+            log.info("Достигнут лимит участников");
+            throw new ConflictException("Нарушение целостности данных");
+        }
+        if (participationState == ParticipationState.CONFIRMED) {
+            searchCache.invalidate();
+        }
         ParticipationRequest participationRequest = RequestMapper.toParticipationRequest(user,
                 LocalDateTime.now(), event, participationState);
         log.info("Заявка создана {}", participationRequest);
@@ -95,9 +105,14 @@ public class RequestServiceImpl implements RequestService {
      * @return - запрос в формате ParticipationRequestDto с измененным статусом на ParticipationState.CANCELED
      */
     @Override
+    @Transactional
     public ParticipationRequestDto cancelRequest(long userId, long requestId) {
         ParticipationRequest request = requestRepository.findById(requestId)
                 .orElseThrow(() -> new NotFoundException("Запрос не найден или недоступен"));
+        if (request.getStatus() == ParticipationState.CONFIRMED) {
+            eventRepository.removeConfirmedRequest(request.getEvent().getId());
+            searchCache.invalidate();
+        }
         request.setStatus(ParticipationState.CANCELED);
         log.info("Заявка отменена {}", request);
         return RequestMapper.toParticipationRequestDto(requestRepository.save(request));
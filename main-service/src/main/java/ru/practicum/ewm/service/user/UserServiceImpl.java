@@ -3,7 +3,6 @@ package ru.practicum.ewm.service.user;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.dao.DataIntegrityViolationException;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import ru.practicum.ewm.dto.user.NewUserRequest;
 import ru.practicum.ewm.dto.user.UserDto;
@@ -11,6 +10,7 @@ import ru.practicum.ewm.exception.ConflictException;
 import ru.practicum.ewm.exception.NotFoundException;
 import ru.practicum.ewm.mapper.user.UserMapper;
 import ru.practicum.ewm.model.user.User;
+import ru.practicum.ewm.repository.OffsetPageRequest;
 import ru.practicum.ewm.repository.user.UserRepository;
 
 import java.util.List;
@@ -29,7 +29,7 @@ public class UserServiceImpl implements UserService {
     public List<UserDto> getUsers(List<Long> ids, Integer from, Integer size) {
         List<User> users;
         if (ids == null) {
-            users = userRepository.findAll(PageRequest.of(from / size, size)).toList();
+            users = userRepository.findAll(OffsetPageRequest.of(from, size)).toList();
         } else {
             users = userRepository.findAllById(ids);
             log.info("Пользователи найдены {}", users);
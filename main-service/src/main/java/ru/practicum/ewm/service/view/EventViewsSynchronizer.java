@@ -0,0 +1,65 @@
+package ru.practicum.ewm.service.view;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.practicum.client.stats.StatsClient;
+import ru.practicum.dto.stats.ViewStats;
+import ru.practicum.ewm.repository.event.EventViewsRepository;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Синхронизация столбца events.views с сервисом статистики для сортировки поиска событий по просмотрам в б/д:
+ * опубликованные события обходятся пачками, просмотры каждой пачки запрашиваются одним запросом.
+ * Запрос идет в сервис статистики напрямую, минуя кэш ViewService, чтобы обход всех событий не вытеснял из
+ * кэша популярные. Если сервис статистики недоступен, синхронизация прерывается и столбец не меняется
+ */
+@Slf4j
+@Component
+public class EventViewsSynchronizer {
+    private final EventViewsRepository eventViewsRepository;
+    private final StatsClient statsClient;
+    private final int batchSize;
+
+    public EventViewsSynchronizer(EventViewsRepository eventViewsRepository,
+                                  StatsClient statsClient,
+                                  @Value("${events.views.sync-batch-size:1000}") int batchSize) {
+        this.eventViewsRepository = eventViewsRepository;
+        this.statsClient = statsClient;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${events.views.sync-interval-ms:60000}")
+    public void sync() {
+        long afterId = 0;
+        int total = 0;
+        Map<Long, LocalDateTime> published = eventViewsRepository.findPublished(afterId, batchSize);
+        while (!published.isEmpty()) {
+            LocalDateTime start = published.values().stream()
+                    .min(LocalDateTime::compareTo)
+                    .get();
+            Optional<List<ViewStats>> stats = statsClient.findStats(start.minusMinutes(1), LocalDateTime.now(),
+                    ViewService.toUris(published.keySet()), true);
+            if (stats.isEmpty()) {
+                log.warn("Сервис статистики недоступен, синхронизация просмотров прервана после {} событий", total);
+                return;
+            }
+            //события без просмотров в ответе отсутствуют, их значение в б/д не меняется
+            Map<Long, Long> update = new HashMap<>();
+            ViewService.toViews(stats.get()).forEach((eventId, views) -> update.put(eventId, views.longValue()));
+            for (Long eventId : published.keySet()) {
+                afterId = Math.max(afterId, eventId);
+            }
+            eventViewsRepository.updateViews(update);
+            total += published.size();
+            published = eventViewsRepository.findPublished(afterId, batchSize);
+        }
+        log.debug("Просмотры синхронизированы для {} событий", total);
+    }
+}
@@ -0,0 +1,47 @@
+package ru.practicum.ewm.service.view;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Фоновое обновление просмотров популярных событий: раз в views.hot.interval-ms просмотры size самых
+ * запрашиваемых событий загружаются одним запросом к сервису статистики и записываются в кэш, поэтому
+ * при интервале меньше views.cache.ttl-ms чтение популярных событий не ждет сервис статистики
+ */
+@Slf4j
+@Component
+public class HotEventRefresher {
+    private final HotEventTracker tracker;
+    private final ViewService viewService;
+    private final boolean enabled;
+    private final int size;
+
+    public HotEventRefresher(HotEventTracker tracker,
+                             ViewService viewService,
+                             @Value("${views.hot.enabled:true}") boolean enabled,
+                             @Value("${views.hot.size:1000}") int size) {
+        this.tracker = tracker;
+        this.viewService = viewService;
+        this.enabled = enabled;
+        this.size = size;
+    }
+
+    @Scheduled(fixedDelayString = "${views.hot.interval-ms:2000}")
+    public void refresh() {
+        if (!enabled) {
+            return;
+        }
+        Map<Long, LocalDateTime> hottest = tracker.hottest(size);
+        tracker.decay();
+        if (hottest.isEmpty()) {
+            return;
+        }
+        viewService.refresh(hottest);
+        log.debug("Обновлены просмотры {} популярных событий", hottest.size());
+    }
+}
@@ -0,0 +1,86 @@
+package ru.practicum.ewm.service.view;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.ewm.model.event.Event;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Частота запросов просмотров опубликованных событий с экспоненциальным затуханием: при каждом затухании
+ * счетчики умножаются на decay, поэтому популярность определяется недавними запросами. Отслеживается
+ * не больше max-tracked событий, при переполнении отбрасываются наименее популярные
+ */
+@Component
+public class HotEventTracker {
+    //счетчик, ниже которого событие перестает отслеживаться
+    private static final double MIN_SCORE = 0.01;
+
+    private final Map<Long, Score> scores = new ConcurrentHashMap<>();
+    private final double decay;
+    private final int maxTracked;
+
+    public HotEventTracker(@Value("${views.hot.decay:0.5}") double decay,
+                           @Value("${views.hot.max-tracked:10000}") int maxTracked) {
+        this.decay = decay;
+        this.maxTracked = maxTracked;
+    }
+
+    /**
+     * метод учета запроса просмотров события
+     */
+    public void record(Event event) {
+        if (event.getPublishedOn() == null) {
+            return;
+        }
+        scores.compute(event.getId(), (id, score) -> score == null
+                ? new Score(1, event.getPublishedOn())
+                : new Score(score.getValue() + 1, score.getPublishedOn()));
+    }
+
+    /**
+     * метод затухания счетчиков, вызывается с постоянным интервалом
+     */
+    public void decay() {
+        scores.replaceAll((id, score) -> new Score(score.getValue() * decay, score.getPublishedOn()));
+        scores.values().removeIf(score -> score.getValue() < MIN_SCORE);
+        int excess = scores.size() - maxTracked;
+        if (excess > 0) {
+            List<Long> coldest = scores.entrySet().stream()
+                    .sorted(Comparator.comparingDouble(e -> e.getValue().getValue()))
+                    .limit(excess)
+                    .map(Map.Entry::getKey)
+                    .collect(Collectors.toList());
+            coldest.forEach(scores::remove);
+        }
+    }
+
+    /**
+     * метод получения самых популярных событий
+     *
+     * @param n - количество событий
+     * @return - даты публикации событий по id, по убыванию популярности
+     */
+    public Map<Long, LocalDateTime> hottest(int n) {
+        return scores.entrySet().stream()
+                .sorted(Comparator.comparingDouble((Map.Entry<Long, Score> e) -> e.getValue().getValue()).reversed())
+                .limit(n)
+                .collect(Collectors.toMap(Map.Entry::getKey, e -> e.getValue().getPublishedOn(),
+                        (a, b) -> a, LinkedHashMap::new));
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class Score {
+        private final double value;
+        private final LocalDateTime publishedOn;
+    }
+}
@@ -1,54 +1,138 @@
 package ru.practicum.ewm.service.view;
 
 
-import lombok.AllArgsConstructor;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import ru.practicum.client.stats.StatsClient;
 import ru.practicum.dto.stats.ViewStats;
 import ru.practicum.ewm.model.event.Event;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
 
+/**
+ * Сервис просмотров событий. Просмотры кэшируются по id события на views.cache.ttl-ms,
+ * события, которых нет в кэше, запрашиваются у сервиса статистики одним запросом
+ */
 @Service
-@AllArgsConstructor
 public class ViewService {
 
-    private StatsClient statsClient;
+    private final StatsClient statsClient;
+    private final HotEventTracker hotEvents;
+    private final Cache<Long, Integer> cache;
+
+    public ViewService(StatsClient statsClient,
+                       HotEventTracker hotEvents,
+                       MeterRegistry meterRegistry,
+                       @Value("${views.cache.ttl-ms:5000}") long ttlMs,
+                       @Value("${views.cache.max-size:100000}") long maxSize) {
+        this.statsClient = statsClient;
+        this.hotEvents = hotEvents;
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMillis(ttlMs))
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "event-views");
+    }
 
     /**
      * метод получения просмотров
      *
-     * @param result - список событий
+     * @param result - список событий, в том числе неопубликованных
      */
     public Map<Long, Integer> getViews(List<Event> result) {
-        if (result.isEmpty() || result.get(0).getPublishedOn() == null) {
+        //у неопубликованных событий просмотров нет, сервис статистики для них не запрашивается
+        List<Event> published = result.stream()
+                .filter(e -> e.getPublishedOn() != null)
+                .collect(Collectors.toList());
+        if (published.isEmpty()) {
             return Collections.emptyMap();
         }
-        LocalDateTime start;
-        if (result.size() > 1) {
-            start = result.stream()
-                    .map(Event::getPublishedOn)
-                    .min(LocalDateTime::compareTo)
-                    .get();
-        } else {
-            start = result.get(0).getPublishedOn();
+        published.forEach(hotEvents::record);
+        Map<Long, Integer> cached = cache.getAllPresent(
+                published.stream().map(Event::getId).collect(Collectors.toList()));
+        List<Event> misses = published.stream()
+                .filter(e -> !cached.containsKey(e.getId()))
+                .collect(Collectors.toList());
+        //события без просмотров, как и в ответе сервиса статистики, в результат не попадают
+        Map<Long, Integer> viewsMap = new HashMap<>();
+        cached.forEach((id, views) -> {
+            if (views > 0) {
+                viewsMap.put(id, views);
+            }
+        });
+        if (misses.isEmpty()) {
+            return viewsMap;
         }
-        String[] uris = result.stream()
-                .map(e -> e.getId())
+        Map<Long, LocalDateTime> publishedOn = new HashMap<>();
+        misses.forEach(e -> publishedOn.put(e.getId(), e.getPublishedOn()));
+        viewsMap.putAll(load(publishedOn));
+        return viewsMap;
+    }
+
+    /**
+     * метод обновления просмотров событий в кэше
+     *
+     * @param publishedOn - даты публикации событий по id
+     * @return - просмотры событий, у которых они есть
+     */
+    public Map<Long, Integer> refresh(Map<Long, LocalDateTime> publishedOn) {
+        return load(publishedOn);
+    }
+
+    /**
+     * вспомогательный метод загрузки просмотров одним запросом к сервису статистики с записью в кэш
+     *
+     * @param publishedOn - даты публикации событий по id
+     * @return - просмотры событий, у которых они есть
+     */
+    private Map<Long, Integer> load(Map<Long, LocalDateTime> publishedOn) {
+        LocalDateTime start = publishedOn.values().stream()
+                .min(LocalDateTime::compareTo)
+                .get();
+        Optional<List<ViewStats>> viewStatsList =
+                statsClient.findStats(start.minusMinutes(1),
+                        LocalDateTime.now(), toUris(publishedOn.keySet()), true);
+        if (viewStatsList.isEmpty()) {
+            //при недоступном сервисе статистики кэш не меняется: ранее загруженные значения
+            //остаются в нем до истечения срока, нули вместо них не записываются
+            return Collections.emptyMap();
+        }
+        Map<Long, Integer> loaded = toViews(viewStatsList.get());
+        //события без просмотров кэшируются с нулем, чтобы не запрашивать их повторно
+        for (Long eventId : publishedOn.keySet()) {
+            cache.put(eventId, loaded.getOrDefault(eventId, 0));
+        }
+        return loaded;
+    }
+
+    static String[] toUris(Collection<Long> eventIds) {
+        return eventIds.stream()
                 .map(e -> String.format("/events/%d", e))
                 .toArray(String[]::new);
-        List<ViewStats> viewStatsList =
-                statsClient.getStats(start.minusMinutes(1),
-                        LocalDateTime.now(), uris, true);
-        Map<Long, Integer> viewsMap = new HashMap<>();
+    }
+
+    /**
+     * @return - просмотры по id события из ответа сервиса статистики
+     */
+    static Map<Long, Integer> toViews(List<ViewStats> viewStatsList) {
+        Map<Long, Integer> views = new HashMap<>();
         for (ViewStats viewStats : viewStatsList) {
             String index = viewStats.getUri().substring(8);
-            viewsMap.put(Long.parseLong(index), Math.toIntExact(viewStats.getHits()));
+            views.put(Long.parseLong(index), Math.toIntExact(viewStats.getHits()));
         }
-        return viewsMap;
+        return views;
     }
 }
@@ -45,12 +45,24 @@ CREATE TABLE IF NOT EXISTS events(
     request_moderation boolean,
     state VARCHAR(9),
     title VARCHAR(120) NOT NULL,
+    confirmed_requests INT NOT NULL DEFAULT 0,
+    views BIGINT NOT NULL DEFAULT 0,
     CONSTRAINT pk_event PRIMARY KEY (id),
     CONSTRAINT fk_cat_id_to_category FOREIGN KEY (category_id) REFERENCES category (id),
     CONSTRAINT fk_initiator_id_to_user FOREIGN KEY (initiator_id) REFERENCES users (id),
     CONSTRAINT location_id_to_location FOREIGN KEY (location_id) REFERENCES location (id)
 );
 
+--полнотекстовый поиск по аннотации и описанию, выражение совпадает с FullTextSearchFunctions
+CREATE INDEX IF NOT EXISTS events_search_idx ON events
+    USING GIN (to_tsvector('simple', coalesce(annotation, '') || ' ' || coalesce(description, '')));
+
+--постраничный вывод по курсору: /events с сортировкой по дате и /users/{userId}/events
+CREATE INDEX IF NOT EXISTS events_event_date_id_idx ON events (event_date, id);
+CREATE INDEX IF NOT EXISTS events_initiator_id_idx ON events (initiator_id, id);
+--поиск событий с сортировкой по просмотрам
+CREATE INDEX IF NOT EXISTS events_views_id_idx ON events (views DESC, id);
+
 CREATE TABLE IF NOT EXISTS requests(
     id BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
     requester_id BIGINT NOT NULL,
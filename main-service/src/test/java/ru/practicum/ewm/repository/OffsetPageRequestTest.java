@@ -0,0 +1,41 @@
+package ru.practicum.ewm.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OffsetPageRequestTest {
+
+    @Test
+    void offsetIsKeptWhenNotMultipleOfSize() {
+        Pageable page = OffsetPageRequest.of(15, 10, Sort.by("id"));
+
+        assertEquals(15, page.getOffset());
+        assertEquals(10, page.getPageSize());
+        assertEquals(Sort.by("id"), page.getSort());
+    }
+
+    @Test
+    void navigationMovesBySize() {
+        Pageable page = OffsetPageRequest.of(15, 10);
+
+        assertEquals(25, page.next().getOffset());
+        assertEquals(5, page.previousOrFirst().getOffset());
+        assertEquals(0, OffsetPageRequest.of(5, 10).previousOrFirst().getOffset());
+        assertEquals(0, page.first().getOffset());
+        assertEquals(30, page.withPage(3).getOffset());
+        assertTrue(page.hasPrevious());
+        assertFalse(page.first().hasPrevious());
+    }
+
+    @Test
+    void invalidArgumentsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> OffsetPageRequest.of(-1, 10));
+        assertThrows(IllegalArgumentException.class, () -> OffsetPageRequest.of(0, 0));
+    }
+}
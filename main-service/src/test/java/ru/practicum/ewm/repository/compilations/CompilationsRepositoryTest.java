@@ -0,0 +1,90 @@
+package ru.practicum.ewm.repository.compilations;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import ru.practicum.ewm.enums.EventState;
+import ru.practicum.ewm.model.category.Category;
+import ru.practicum.ewm.model.compilations.Compilation;
+import ru.practicum.ewm.model.event.Event;
+import ru.practicum.ewm.model.location.Location;
+import ru.practicum.ewm.model.user.User;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest(properties = {
+        "spring.sql.init.schema-locations=classpath:schema-h2.sql",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class CompilationsRepositoryTest {
+    private static final int COMPILATIONS = 3;
+
+    @Autowired
+    private CompilationsRepository compilationsRepository;
+    @Autowired
+    private TestEntityManager em;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = em.getEntityManager().getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        //связанные сущности общие у всех событий, поэтому их загрузка не зависит от числа подборок
+        Category category = em.persist(Category.builder().name("category").build());
+        User initiator = em.persist(User.builder().name("user").email("user@mail.ru").build());
+        Location location = em.persist(Location.builder().lat(55.75f).lon(37.62f).build());
+        for (int i = 0; i < COMPILATIONS; i++) {
+            List<Event> events = new ArrayList<>();
+            for (int j = 0; j < 2; j++) {
+                events.add(em.persist(Event.builder()
+                        .annotation("annotation")
+                        .description("description")
+                        .title("title " + i + j)
+                        .category(category)
+                        .initiator(initiator)
+                        .location(location)
+                        .createdOn(LocalDateTime.now())
+                        .eventDate(LocalDateTime.now().plusDays(1))
+                        .paid(false)
+                        .participantLimit(0)
+                        .requestModeration(true)
+                        .state(EventState.PUBLISHED)
+                        .build()));
+            }
+            em.persist(Compilation.builder().title("compilation " + i).pinned(true).events(events).build());
+        }
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    void compilationEventsAreLoadedInBatch() {
+        long single = statementsToLoad(1);
+        long all = statementsToLoad(COMPILATIONS);
+
+        //события всех подборок страницы загружаются одним запросом, а не запросом на каждую подборку
+        assertEquals(single, all);
+    }
+
+    private long statementsToLoad(int size) {
+        em.clear();
+        statistics.clear();
+        List<Compilation> compilations = compilationsRepository.findAllByPinned(true,
+                PageRequest.of(0, size, Sort.by("id")));
+        assertEquals(size, compilations.size());
+        for (Compilation compilation : compilations) {
+            assertEquals(2, compilation.getEvents().size());
+        }
+        return statistics.getPrepareStatementCount();
+    }
+}
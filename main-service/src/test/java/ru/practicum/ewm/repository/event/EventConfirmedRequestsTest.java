@@ -0,0 +1,131 @@
+package ru.practicum.ewm.repository.event;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import ru.practicum.ewm.enums.EventState;
+import ru.practicum.ewm.model.category.Category;
+import ru.practicum.ewm.model.event.Event;
+import ru.practicum.ewm.model.location.Location;
+import ru.practicum.ewm.model.user.User;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest(properties = {
+        "spring.sql.init.schema-locations=classpath:schema-h2.sql",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+class EventConfirmedRequestsTest {
+    @Autowired
+    private EventRepository eventRepository;
+    @Autowired
+    private TestEntityManager em;
+    private int events;
+
+    @Test
+    void addStopsAtParticipantLimit() {
+        long eventId = event(3);
+
+        assertEquals(1, eventRepository.addConfirmedRequests(eventId, 2));
+        //пакет, превышающий лимит, не подтверждается даже частично
+        assertEquals(0, eventRepository.addConfirmedRequests(eventId, 2));
+        assertEquals(1, eventRepository.addConfirmedRequests(eventId, 1));
+        assertEquals(0, eventRepository.addConfirmedRequests(eventId, 1));
+
+        assertEquals(3, confirmed(eventId));
+    }
+
+    @Test
+    void addIsUnlimitedWithoutParticipantLimit() {
+        long eventId = event(0);
+
+        assertEquals(1, eventRepository.addConfirmedRequests(eventId, 100));
+        assertEquals(1, eventRepository.addConfirmedRequests(eventId, 1));
+
+        assertEquals(101, confirmed(eventId));
+    }
+
+    @Test
+    void removeFreesPlaceAndStopsAtZero() {
+        long eventId = event(1);
+        eventRepository.addConfirmedRequests(eventId, 1);
+
+        eventRepository.removeConfirmedRequest(eventId);
+        eventRepository.removeConfirmedRequest(eventId);
+
+        assertEquals(0, confirmed(eventId));
+        assertEquals(1, eventRepository.addConfirmedRequests(eventId, 1));
+    }
+
+    @Test
+    void savingEventKeepsCounter() {
+        long eventId = event(0);
+        eventRepository.addConfirmedRequests(eventId, 2);
+        em.clear();
+        Event event = eventRepository.findById(eventId).orElseThrow();
+        em.clear();
+
+        //у загруженной раньше копии события счетчик устарел, но при сохранении он не записывается
+        event.setConfirmedRequest(0);
+        event.setTitle("new title");
+        eventRepository.saveAndFlush(event);
+
+        assertEquals(2, confirmed(eventId));
+    }
+
+    @Test
+    void pageReadsCountersWithEvents() {
+        long first = event(0);
+        long second = event(0);
+        long third = event(0);
+        eventRepository.addConfirmedRequests(first, 2);
+        eventRepository.addConfirmedRequests(third, 1);
+        em.flush();
+        em.clear();
+
+        //счетчики читаются из строк событий, без запросов к заявкам по каждому событию
+        Page<Event> page = eventRepository.findAll(PageRequest.of(0, 10, Sort.by("id")));
+
+        assertEquals(List.of(first, second, third), page.getContent().stream()
+                .map(Event::getId)
+                .collect(Collectors.toList()));
+        assertEquals(List.of(2, 0, 1), page.getContent().stream()
+                .map(Event::getConfirmedRequest)
+                .collect(Collectors.toList()));
+    }
+
+    private int confirmed(long eventId) {
+        em.flush();
+        em.clear();
+        return eventRepository.findById(eventId).orElseThrow().getConfirmedRequest();
+    }
+
+    private long event(int participantLimit) {
+        Event event = Event.builder()
+                .annotation("annotation")
+                .description("description")
+                .title("title")
+                .category(em.persist(Category.builder().name("category " + events).build()))
+                .initiator(em.persist(User.builder().name("user").email("user" + events + "@mail.ru").build()))
+                .location(em.persist(Location.builder().lat(55.75f).lon(37.62f).build()))
+                .createdOn(LocalDateTime.now())
+                .eventDate(LocalDateTime.now().plusDays(1))
+                .paid(false)
+                .participantLimit(participantLimit)
+                .requestModeration(true)
+                .state(EventState.PUBLISHED)
+                .build();
+        long id = em.persist(event).getId();
+        em.flush();
+        events++;
+        return id;
+    }
+}
@@ -0,0 +1,126 @@
+package ru.practicum.ewm.repository.event;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Sort;
+import ru.practicum.ewm.enums.EventState;
+import ru.practicum.ewm.model.category.Category;
+import ru.practicum.ewm.model.event.Event;
+import ru.practicum.ewm.model.event.QEvent;
+import ru.practicum.ewm.model.location.Location;
+import ru.practicum.ewm.model.user.User;
+import ru.practicum.ewm.repository.OffsetPageRequest;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest(properties = {
+        "spring.sql.init.schema-locations=classpath:schema-h2.sql",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class EventRepositoryTest {
+    private static final int EVENTS = 5;
+
+    @Autowired
+    private EventRepository eventRepository;
+    @Autowired
+    private TestEntityManager em;
+    private Statistics statistics;
+    private final List<Long> ids = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        statistics = em.getEntityManager().getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        //у каждого события своя категория, инициатор и локация: без join каждая из них загружалась бы отдельно
+        for (int i = 0; i < EVENTS; i++) {
+            Event event = Event.builder()
+                    .annotation("annotation " + i)
+                    .description("description " + i)
+                    .title("title " + i)
+                    .category(em.persist(Category.builder().name("category " + i).build()))
+                    .initiator(em.persist(User.builder().name("user " + i).email("user" + i + "@mail.ru").build()))
+                    .location(em.persist(Location.builder().lat(55.75f).lon(37.62f).build()))
+                    .createdOn(LocalDateTime.now())
+                    .eventDate(LocalDateTime.now().plusDays(1))
+                    .paid(i % 2 == 0)
+                    .participantLimit(0)
+                    .requestModeration(true)
+                    .state(EventState.PUBLISHED)
+                    .build();
+            ids.add(em.persist(event).getId());
+        }
+        em.flush();
+        em.clear();
+        statistics.clear();
+    }
+
+    @Test
+    void findAllLoadsAssociationsInOneStatement() {
+        Page<Event> page = eventRepository.findAll(OffsetPageRequest.of(0, 10, Sort.by("id")));
+
+        assertEquals(EVENTS, page.getContent().size());
+        touchAssociations(page.getContent());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void findAllByPredicateLoadsAssociationsInOneStatement() {
+        Page<Event> page = eventRepository.findAll(QEvent.event.paid.isTrue(), OffsetPageRequest.of(0, 10,
+                Sort.by("id")));
+
+        assertEquals(3, page.getContent().size());
+        touchAssociations(page.getContent());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void findByIdInLoadsAssociationsInOneStatement() {
+        List<Event> events = eventRepository.findByIdIn(ids);
+
+        assertEquals(EVENTS, events.size());
+        touchAssociations(events);
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void findByIdLoadsAssociationsInOneStatement() {
+        Event event = eventRepository.findById(ids.get(0)).orElseThrow();
+
+        touchAssociations(List.of(event));
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void findAllReadsConfirmedRequestsWithoutQueryingRequests() {
+        eventRepository.addConfirmedRequests(ids.get(0), 2);
+        eventRepository.addConfirmedRequests(ids.get(2), 1);
+        em.clear();
+        statistics.clear();
+
+        Page<Event> page = eventRepository.findAll(OffsetPageRequest.of(0, 10, Sort.by("id")));
+
+        assertEquals(List.of(2, 0, 1, 0, 0), page.getContent().stream()
+                .map(Event::getConfirmedRequest)
+                .collect(Collectors.toList()));
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    private static void touchAssociations(List<Event> events) {
+        for (Event event : events) {
+            event.getCategory().getName();
+            event.getInitiator().getName();
+            event.getLocation().getLat();
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package ru.practicum.ewm.repository.event;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Sort;
+import ru.practicum.ewm.enums.EventState;
+import ru.practicum.ewm.model.category.Category;
+import ru.practicum.ewm.model.event.Event;
+import ru.practicum.ewm.model.event.QEvent;
+import ru.practicum.ewm.model.location.Location;
+import ru.practicum.ewm.model.user.User;
+import ru.practicum.ewm.repository.OffsetPageRequest;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest(properties = {
+        "spring.sql.init.schema-locations=classpath:schema-h2.sql",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+@Import(EventViewsRepository.class)
+class EventViewsRepositoryTest {
+    private static final LocalDateTime PUBLISHED = LocalDateTime.of(2022, 9, 6, 11, 0);
+
+    @Autowired
+    private EventViewsRepository eventViewsRepository;
+    @Autowired
+    private EventRepository eventRepository;
+    @Autowired
+    private TestEntityManager em;
+    private Category category;
+    private User initiator;
+    private Location location;
+    private final List<Long> ids = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        category = em.persist(Category.builder().name("category").build());
+        initiator = em.persist(User.builder().name("user").email("user@mail.ru").build());
+        location = em.persist(Location.builder().lat(55.75f).lon(37.62f).build());
+        ids.add(event(EventState.PUBLISHED, 0));
+        ids.add(event(EventState.PENDING, 0));
+        ids.add(event(EventState.PUBLISHED, 2));
+        ids.add(event(EventState.PUBLISHED, 0));
+        em.flush();
+    }
+
+    @Test
+    void publishedEventsArePagedById() {
+        assertEquals(Map.of(ids.get(0), PUBLISHED, ids.get(2), PUBLISHED),
+                eventViewsRepository.findPublished(0, 2));
+        assertEquals(List.of(ids.get(3)), List.copyOf(eventViewsRepository.findPublished(ids.get(2), 2).keySet()));
+        assertEquals(Map.of(), eventViewsRepository.findPublished(ids.get(3), 2));
+    }
+
+    @Test
+    void viewsOnlyIncrease() {
+        eventViewsRepository.updateViews(Map.of(ids.get(0), 5L, ids.get(2), 3L));
+        //неполный ответ сервиса статистики не занижает сохраненное значение
+        eventViewsRepository.updateViews(Map.of(ids.get(0), 4L, ids.get(2), 7L));
+        em.clear();
+
+        assertEquals(5, eventRepository.findById(ids.get(0)).orElseThrow().getViews());
+        assertEquals(7, eventRepository.findById(ids.get(2)).orElseThrow().getViews());
+        assertEquals(0, eventRepository.findById(ids.get(3)).orElseThrow().getViews());
+    }
+
+    @Test
+    void eventsAreSortedByViewsInDatabase() {
+        eventViewsRepository.updateViews(Map.of(ids.get(2), 3L, ids.get(3), 9L));
+        em.clear();
+
+        List<Event> events = eventRepository.findAll(QEvent.event.state.eq(EventState.PUBLISHED),
+                OffsetPageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "views").and(Sort.by("id"))))
+                .getContent();
+
+        assertEquals(List.of(ids.get(3), ids.get(2), ids.get(0)), events.stream()
+                .map(Event::getId)
+                .collect(Collectors.toList()));
+    }
+
+    @Test
+    void onlyAvailableEventsAreFilteredInDatabase() {
+        eventRepository.addConfirmedRequests(ids.get(2), 2);
+        em.clear();
+        QEvent event = QEvent.event;
+
+        List<Event> events = eventRepository.findAll(event.state.eq(EventState.PUBLISHED)
+                        .and(event.participantLimit.eq(0).or(event.confirmedRequest.lt(event.participantLimit))),
+                OffsetPageRequest.of(0, 10, Sort.by("id"))).getContent();
+
+        assertEquals(List.of(ids.get(0), ids.get(3)), events.stream()
+                .map(Event::getId)
+                .collect(Collectors.toList()));
+    }
+
+    private long event(EventState state, int participantLimit) {
+        return em.persist(Event.builder()
+                .annotation("annotation")
+                .description("description")
+                .title("title")
+                .category(category)
+                .initiator(initiator)
+                .location(location)
+                .createdOn(LocalDateTime.now())
+                .eventDate(LocalDateTime.now().plusDays(1))
+                .paid(false)
+                .participantLimit(participantLimit)
+                .requestModeration(true)
+                .state(state)
+                .publishedOn(state == EventState.PUBLISHED ? PUBLISHED : null)
+                .build()).getId();
+    }
+}
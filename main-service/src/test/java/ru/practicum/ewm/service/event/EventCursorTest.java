@@ -0,0 +1,75 @@
+package ru.practicum.ewm.service.event;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.ewm.exception.ValidationException;
+import ru.practicum.ewm.model.event.Event;
+import ru.practicum.ewm.model.event.QEvent;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class EventCursorTest {
+    private static final LocalDateTime DATE = LocalDateTime.of(2022, 9, 6, 11, 0, 23);
+    private static final QEvent EVENT = QEvent.event;
+
+    @Test
+    void idCursorRoundTrip() {
+        String token = EventCursor.next(List.of(event(3), event(5)), 2, Event::getId, Event::getEventDate, false);
+
+        EventCursor cursor = EventCursor.decode(token, false);
+
+        assertEquals(EVENT.id.gt(5L), cursor.after(EVENT));
+    }
+
+    @Test
+    void eventDateCursorRoundTrip() {
+        String token = EventCursor.next(List.of(event(3), event(7)), 2, Event::getId, Event::getEventDate, true);
+
+        EventCursor cursor = EventCursor.decode(token, true);
+
+        assertEquals(EVENT.eventDate.lt(DATE).or(EVENT.eventDate.eq(DATE).and(EVENT.id.lt(7L))),
+                cursor.after(EVENT));
+    }
+
+    @Test
+    void lastPageHasNoCursor() {
+        assertNull(EventCursor.next(List.of(event(3)), 2, Event::getId, Event::getEventDate, false));
+        assertNull(EventCursor.next(List.<Event>of(), 2, Event::getId, Event::getEventDate, false));
+    }
+
+    @Test
+    void missingTokenGivesNoCursor() {
+        assertNull(EventCursor.decode(null, false));
+        assertNull(EventCursor.decode(" ", true));
+    }
+
+    @Test
+    void cursorOfOtherSortIsRejected() {
+        String byId = EventCursor.next(List.of(event(3)), 1, Event::getId, Event::getEventDate, false);
+        String byDate = EventCursor.next(List.of(event(3)), 1, Event::getId, Event::getEventDate, true);
+
+        assertThrows(ValidationException.class, () -> EventCursor.decode(byId, true));
+        assertThrows(ValidationException.class, () -> EventCursor.decode(byDate, false));
+    }
+
+    @Test
+    void malformedCursorIsRejected() {
+        assertThrows(ValidationException.class, () -> EventCursor.decode("не base64", false));
+        assertThrows(ValidationException.class, () -> EventCursor.decode(encode("abc"), false));
+        assertThrows(ValidationException.class, () -> EventCursor.decode(encode("5,вчера"), true));
+    }
+
+    private static String encode(String value) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Event event(long id) {
+        return Event.builder().id(id).eventDate(DATE).build();
+    }
+}
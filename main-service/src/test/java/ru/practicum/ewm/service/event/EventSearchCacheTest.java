@@ -0,0 +1,89 @@
+package ru.practicum.ewm.service.event;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.ewm.dto.event.EventShortDto;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class EventSearchCacheTest {
+    private static final List<Object> KEY = List.of("концерт", 0, 10);
+    private static final List<EventShortDto> EVENTS = List.of(EventShortDto.builder().id(1L).build());
+
+    private final EventSearchCache cache = new EventSearchCache(new SimpleMeterRegistry(), 60_000, 100);
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void resultIsCachedForCurrentVersion() {
+        cache.put(KEY, cache.version(), EVENTS);
+
+        assertEquals(EVENTS, cache.get(KEY));
+        assertNull(cache.get(List.of("театр", 0, 10)));
+    }
+
+    @Test
+    void invalidateHidesEarlierResults() {
+        cache.put(KEY, cache.version(), EVENTS);
+
+        cache.invalidate();
+
+        assertNull(cache.get(KEY));
+    }
+
+    @Test
+    void resultOfSearchStartedBeforeChangeIsNotCached() {
+        long version = cache.version();
+        cache.invalidate();
+
+        cache.put(KEY, version, EVENTS);
+
+        assertNull(cache.get(KEY));
+    }
+
+    @Test
+    void invalidateInTransactionWaitsForCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        long version = cache.version();
+
+        cache.invalidate();
+        //до фиксации поиск видит старые данные, поэтому его результат еще сохраняется с текущей версией
+        assertEquals(version, cache.version());
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertEquals(version + 1, cache.version());
+    }
+
+    @Test
+    void rolledBackTransactionKeepsVersion() {
+        TransactionSynchronizationManager.initSynchronization();
+        long version = cache.version();
+
+        cache.invalidate();
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        assertEquals(version, cache.version());
+    }
+
+    @Test
+    void resultsExpire() throws InterruptedException {
+        EventSearchCache shortLived = new EventSearchCache(new SimpleMeterRegistry(), 50, 100);
+        shortLived.put(KEY, shortLived.version(), EVENTS);
+
+        Thread.sleep(100);
+
+        assertNull(shortLived.get(KEY));
+    }
+}
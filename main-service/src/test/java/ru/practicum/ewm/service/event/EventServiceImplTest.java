@@ -0,0 +1,27 @@
+package ru.practicum.ewm.service.event;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class EventServiceImplTest {
+
+    @Test
+    void everyWordIsMatchedByPrefix() {
+        assertEquals("концерт:* & jazz:*", EventServiceImpl.toTsQuery("концерт jazz"));
+    }
+
+    @Test
+    void punctuationAndOperatorsAreDropped() {
+        //символы синтаксиса tsquery не должны попадать в запрос
+        assertEquals("Rock:* & n:* & Roll:* & 2022:*", EventServiceImpl.toTsQuery(" Rock'n'Roll & (2022)! "));
+    }
+
+    @Test
+    void textWithoutWordsGivesNoQuery() {
+        assertNull(EventServiceImpl.toTsQuery(null));
+        assertNull(EventServiceImpl.toTsQuery(""));
+        assertNull(EventServiceImpl.toTsQuery(" !&|:* "));
+    }
+}
@@ -0,0 +1,35 @@
+package ru.practicum.ewm.service.request;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.ewm.repository.event.EventRepository;
+import ru.practicum.ewm.service.event.EventSearchCache;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ConfirmedRequestsReconcilerTest {
+    private final EventRepository eventRepository = mock(EventRepository.class);
+    private final EventSearchCache searchCache = mock(EventSearchCache.class);
+    private final ConfirmedRequestsReconciler reconciler = new ConfirmedRequestsReconciler(eventRepository,
+            searchCache);
+
+    @Test
+    void fixedCountersInvalidateSearchCache() {
+        when(eventRepository.reconcileConfirmedRequests()).thenReturn(2);
+
+        reconciler.reconcile();
+
+        verify(searchCache).invalidate();
+    }
+
+    @Test
+    void consistentCountersKeepSearchCache() {
+        when(eventRepository.reconcileConfirmedRequests()).thenReturn(0);
+
+        reconciler.reconcile();
+
+        verify(searchCache, never()).invalidate();
+    }
+}
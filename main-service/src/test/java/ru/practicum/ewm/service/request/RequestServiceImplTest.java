@@ -0,0 +1,118 @@
+package ru.practicum.ewm.service.request;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.practicum.ewm.enums.EventState;
+import ru.practicum.ewm.enums.ParticipationState;
+import ru.practicum.ewm.exception.ConflictException;
+import ru.practicum.ewm.model.event.Event;
+import ru.practicum.ewm.model.request.ParticipationRequest;
+import ru.practicum.ewm.model.user.User;
+import ru.practicum.ewm.repository.event.EventRepository;
+import ru.practicum.ewm.repository.request.RequestRepository;
+import ru.practicum.ewm.repository.user.UserRepository;
+import ru.practicum.ewm.service.event.EventSearchCache;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RequestServiceImplTest {
+    private static final long USER_ID = 1;
+    private static final long EVENT_ID = 10;
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final RequestRepository requestRepository = mock(RequestRepository.class);
+    private final EventRepository eventRepository = mock(EventRepository.class);
+    private final EventSearchCache searchCache = mock(EventSearchCache.class);
+    private final RequestServiceImpl requestService = new RequestServiceImpl(userRepository, requestRepository,
+            eventRepository, searchCache);
+    private final User requester = User.builder().id(USER_ID).name("user").email("user@mail.ru").build();
+
+    @BeforeEach
+    void setUp() {
+        when(userRepository.findById(USER_ID)).thenReturn(Optional.of(requester));
+        when(requestRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @Test
+    void autoConfirmedRequestInvalidatesSearchCache() {
+        event(false, 0);
+        when(eventRepository.addConfirmedRequests(EVENT_ID, 1)).thenReturn(1);
+
+        assertEquals("CONFIRMED", requestService.addParticipationRequest(USER_ID, EVENT_ID).getStatus());
+        verify(searchCache).invalidate();
+    }
+
+    @Test
+    void pendingRequestKeepsSearchCache() {
+        event(true, 5);
+
+        assertEquals("PENDING", requestService.addParticipationRequest(USER_ID, EVENT_ID).getStatus());
+        verify(eventRepository, never()).addConfirmedRequests(anyLong(), anyInt());
+        verify(searchCache, never()).invalidate();
+    }
+
+    @Test
+    void requestOverLimitIsRejected() {
+        //счетчик в загруженном событии устарел, лимит проверяет атомарное обновление в б/д
+        event(false, 5);
+        when(eventRepository.addConfirmedRequests(EVENT_ID, 1)).thenReturn(0);
+
+        assertThrows(ConflictException.class, () -> requestService.addParticipationRequest(USER_ID, EVENT_ID));
+        verify(requestRepository, never()).save(any());
+        verify(searchCache, never()).invalidate();
+    }
+
+    @Test
+    void cancelingConfirmedRequestFreesPlace() {
+        ParticipationRequest request = request(ParticipationState.CONFIRMED);
+
+        assertEquals("CANCELED", requestService.cancelRequest(USER_ID, request.getId()).getStatus());
+        verify(eventRepository).removeConfirmedRequest(EVENT_ID);
+        verify(searchCache).invalidate();
+    }
+
+    @Test
+    void cancelingPendingRequestKeepsCounter() {
+        ParticipationRequest request = request(ParticipationState.PENDING);
+
+        requestService.cancelRequest(USER_ID, request.getId());
+
+        verify(eventRepository, never()).removeConfirmedRequest(anyLong());
+        verify(searchCache, never()).invalidate();
+    }
+
+    private Event event(boolean requestModeration, int participantLimit) {
+        Event event = Event.builder()
+                .id(EVENT_ID)
+                .initiator(User.builder().id(2L).build())
+                .state(EventState.PUBLISHED)
+                .requestModeration(requestModeration)
+                .participantLimit(participantLimit)
+                .build();
+        when(eventRepository.findById(EVENT_ID)).thenReturn(Optional.of(event));
+        return event;
+    }
+
+    private ParticipationRequest request(ParticipationState status) {
+        ParticipationRequest request = ParticipationRequest.builder()
+                .id(100)
+                .requester(requester)
+                .created(LocalDateTime.now())
+                .event(Event.builder().id(EVENT_ID).build())
+                .status(status)
+                .build();
+        when(requestRepository.findById(request.getId())).thenReturn(Optional.of(request));
+        return request;
+    }
+}
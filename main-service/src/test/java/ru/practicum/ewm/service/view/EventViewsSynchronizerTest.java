@@ -0,0 +1,88 @@
+package ru.practicum.ewm.service.view;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import ru.practicum.client.stats.StatsClient;
+import ru.practicum.dto.stats.ViewStats;
+import ru.practicum.ewm.repository.event.EventViewsRepository;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class EventViewsSynchronizerTest {
+    private static final LocalDateTime PUBLISHED = LocalDateTime.of(2022, 9, 6, 11, 0);
+
+    private final EventViewsRepository eventViewsRepository = mock(EventViewsRepository.class);
+    private final StatsClient statsClient = mock(StatsClient.class);
+    private final EventViewsSynchronizer synchronizer = new EventViewsSynchronizer(eventViewsRepository,
+            statsClient, 2);
+
+    @Test
+    void eventsAreSyncedInBatches() {
+        when(eventViewsRepository.findPublished(0, 2)).thenReturn(published(1, 2));
+        when(eventViewsRepository.findPublished(2, 2)).thenReturn(published(3));
+        when(eventViewsRepository.findPublished(3, 2)).thenReturn(Map.of());
+        when(statsClient.findStats(any(), any(), any(), anyBoolean()))
+                .thenReturn(Optional.of(List.of(view(1, 5))))
+                .thenReturn(Optional.of(List.of(view(3, 2))));
+
+        synchronizer.sync();
+
+        ArgumentCaptor<String[]> uris = ArgumentCaptor.forClass(String[].class);
+        verify(statsClient, times(2)).findStats(eq(PUBLISHED.minusMinutes(1)), any(),
+                uris.capture(), eq(true));
+        assertArrayEquals(new String[]{"/events/1", "/events/2"}, uris.getAllValues().get(0));
+        assertArrayEquals(new String[]{"/events/3"}, uris.getAllValues().get(1));
+        //события без просмотров в ответе не обновляются
+        verify(eventViewsRepository).updateViews(Map.of(1L, 5L));
+        verify(eventViewsRepository).updateViews(Map.of(3L, 2L));
+    }
+
+    @Test
+    void syncStopsWhenStatsAreUnavailable() {
+        when(eventViewsRepository.findPublished(0, 2)).thenReturn(published(1, 2));
+        when(statsClient.findStats(any(), any(), any(), anyBoolean())).thenReturn(Optional.empty());
+
+        synchronizer.sync();
+
+        verify(eventViewsRepository, never()).updateViews(any());
+        verify(eventViewsRepository, never()).findPublished(eq(2L), anyInt());
+    }
+
+    @Test
+    void nothingIsRequestedWithoutPublishedEvents() {
+        when(eventViewsRepository.findPublished(anyLong(), anyInt())).thenReturn(Map.of());
+
+        synchronizer.sync();
+
+        verify(statsClient, never()).findStats(any(), any(), any(), anyBoolean());
+        verify(eventViewsRepository, never()).updateViews(any());
+    }
+
+    private static Map<Long, LocalDateTime> published(long... ids) {
+        Map<Long, LocalDateTime> published = new LinkedHashMap<>();
+        for (long id : ids) {
+            published.put(id, PUBLISHED);
+        }
+        return published;
+    }
+
+    private static ViewStats view(long id, long hits) {
+        return new ViewStats("ewm-main-service", "/events/" + id, hits);
+    }
+}
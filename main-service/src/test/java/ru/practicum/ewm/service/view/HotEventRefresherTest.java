@@ -0,0 +1,70 @@
+package ru.practicum.ewm.service.view;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.ewm.model.event.Event;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class HotEventRefresherTest {
+    private static final LocalDateTime PUBLISHED = LocalDateTime.of(2022, 9, 6, 11, 0);
+
+    private final ViewService viewService = mock(ViewService.class);
+
+    @Test
+    void hottestEventsAreRefreshed() {
+        HotEventTracker tracker = new HotEventTracker(0.5, 100);
+        record(tracker, 1, 1);
+        record(tracker, 2, 3);
+        record(tracker, 3, 2);
+
+        new HotEventRefresher(tracker, viewService, true, 2).refresh();
+
+        verify(viewService).refresh(Map.of(2L, PUBLISHED, 3L, PUBLISHED));
+    }
+
+    @Test
+    void refreshDecaysScores() {
+        HotEventTracker tracker = new HotEventTracker(0.5, 100);
+        record(tracker, 1, 4);
+        HotEventRefresher refresher = new HotEventRefresher(tracker, viewService, true, 10);
+        refresher.refresh();
+        refresher.refresh();
+        record(tracker, 2, 2);
+
+        //после двух затуханий 4 * 0.25 = 1 меньше двух недавних запросов
+        assertEquals(List.of(2L, 1L), List.copyOf(tracker.hottest(10).keySet()));
+    }
+
+    @Test
+    void nothingIsRefreshedWithoutRequests() {
+        new HotEventRefresher(new HotEventTracker(0.5, 100), viewService, true, 10).refresh();
+
+        verify(viewService, never()).refresh(any());
+    }
+
+    @Test
+    void disabledRefresherDoesNothing() {
+        HotEventTracker tracker = new HotEventTracker(0.5, 100);
+        record(tracker, 1, 1);
+
+        new HotEventRefresher(tracker, viewService, false, 10).refresh();
+
+        verify(viewService, never()).refresh(any());
+        assertEquals(List.of(1L), List.copyOf(tracker.hottest(10).keySet()));
+    }
+
+    private static void record(HotEventTracker tracker, long id, int times) {
+        Event event = Event.builder().id(id).publishedOn(PUBLISHED).build();
+        for (int i = 0; i < times; i++) {
+            tracker.record(event);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package ru.practicum.ewm.service.view;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.ewm.model.event.Event;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HotEventTrackerTest {
+    private static final LocalDateTime PUBLISHED = LocalDateTime.of(2022, 9, 6, 11, 0);
+
+    @Test
+    void hottestAreOrderedByRequests() {
+        HotEventTracker tracker = new HotEventTracker(0.5, 100);
+        record(tracker, 1, 1);
+        record(tracker, 2, 3);
+        record(tracker, 3, 2);
+
+        Map<Long, LocalDateTime> hottest = tracker.hottest(2);
+
+        assertEquals(List.of(2L, 3L), List.copyOf(hottest.keySet()));
+        assertEquals(PUBLISHED, hottest.get(2L));
+    }
+
+    @Test
+    void unpublishedEventsAreNotTracked() {
+        HotEventTracker tracker = new HotEventTracker(0.5, 100);
+        tracker.record(Event.builder().id(1L).build());
+
+        assertTrue(tracker.hottest(10).isEmpty());
+    }
+
+    @Test
+    void recentRequestsOutweighOldOnes() {
+        HotEventTracker tracker = new HotEventTracker(0.5, 100);
+        record(tracker, 1, 4);
+        tracker.decay();
+        tracker.decay();
+        tracker.decay();
+        record(tracker, 2, 1);
+
+        //4 * 0.5^3 = 0.5 меньше одного недавнего запроса
+        assertEquals(List.of(2L, 1L), List.copyOf(tracker.hottest(10).keySet()));
+    }
+
+    @Test
+    void decayedEventsAreForgotten() {
+        HotEventTracker tracker = new HotEventTracker(0.5, 100);
+        record(tracker, 1, 1);
+        for (int i = 0; i < 7; i++) {
+            tracker.decay();
+        }
+
+        assertTrue(tracker.hottest(10).isEmpty());
+    }
+
+    @Test
+    void coldestEventsAreEvictedOverLimit() {
+        HotEventTracker tracker = new HotEventTracker(1, 2);
+        record(tracker, 1, 3);
+        record(tracker, 2, 1);
+        record(tracker, 3, 2);
+
+        tracker.decay();
+
+        assertEquals(List.of(1L, 3L), List.copyOf(tracker.hottest(10).keySet()));
+    }
+
+    private static void record(HotEventTracker tracker, long id, int times) {
+        Event event = Event.builder().id(id).publishedOn(PUBLISHED).build();
+        for (int i = 0; i < times; i++) {
+            tracker.record(event);
+        }
+    }
+}
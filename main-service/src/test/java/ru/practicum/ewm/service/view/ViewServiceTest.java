@@ -0,0 +1,158 @@
+package ru.practicum.ewm.service.view;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import ru.practicum.client.stats.StatsClient;
+import ru.practicum.dto.stats.ViewStats;
+import ru.practicum.ewm.model.event.Event;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ViewServiceTest {
+    private static final LocalDateTime PUBLISHED = LocalDateTime.of(2022, 9, 6, 11, 0);
+
+    private StatsClient statsClient;
+    private ViewService viewService;
+
+    @BeforeEach
+    void setUp() {
+        statsClient = mock(StatsClient.class);
+        viewService = viewService(60_000);
+    }
+
+    @Test
+    void viewsAreLoadedWithOneRequestAndCached() {
+        stats(Optional.of(List.of(view(1, 5))));
+
+        assertEquals(Map.of(1L, 5), viewService.getViews(List.of(event(1), event(2))));
+        assertEquals(Map.of(1L, 5), viewService.getViews(List.of(event(1), event(2))));
+
+        ArgumentCaptor<String[]> uris = ArgumentCaptor.forClass(String[].class);
+        verify(statsClient, times(1)).findStats(any(), any(), uris.capture(), anyBoolean());
+        assertArrayEquals(new String[]{"/events/1", "/events/2"}, sorted(uris.getValue()));
+    }
+
+    @Test
+    void onlyMissingEventsAreRequested() {
+        stats(Optional.of(List.of(view(1, 5))));
+        viewService.getViews(List.of(event(1)));
+        stats(Optional.of(List.of(view(2, 3))));
+
+        assertEquals(Map.of(1L, 5, 2L, 3), viewService.getViews(List.of(event(1), event(2))));
+
+        ArgumentCaptor<String[]> uris = ArgumentCaptor.forClass(String[].class);
+        verify(statsClient, times(2)).findStats(any(), any(), uris.capture(), anyBoolean());
+        assertArrayEquals(new String[]{"/events/2"}, uris.getAllValues().get(1));
+    }
+
+    @Test
+    void eventsWithoutViewsAreCachedAsZero() {
+        stats(Optional.of(List.of()));
+
+        assertEquals(Map.of(), viewService.getViews(List.of(event(1))));
+        assertEquals(Map.of(), viewService.getViews(List.of(event(1))));
+        verify(statsClient, times(1)).findStats(any(), any(), any(), anyBoolean());
+    }
+
+    @Test
+    void failedRequestIsNotCached() {
+        stats(Optional.empty());
+        assertEquals(Map.of(), viewService.getViews(List.of(event(1))));
+        stats(Optional.of(List.of(view(1, 5))));
+
+        assertEquals(Map.of(1L, 5), viewService.getViews(List.of(event(1))));
+        verify(statsClient, times(2)).findStats(any(), any(), any(), anyBoolean());
+    }
+
+    @Test
+    void cachedViewsSurviveStatsOutage() {
+        ViewService service = viewService(50);
+        stats(Optional.of(List.of(view(1, 5))));
+        service.getViews(List.of(event(1)));
+        stats(Optional.empty());
+
+        //обновление при недоступном сервисе статистики не затирает значение в кэше
+        assertEquals(Map.of(), service.refresh(Map.of(1L, PUBLISHED)));
+        assertEquals(Map.of(1L, 5), service.getViews(List.of(event(1))));
+    }
+
+    @Test
+    void cachedViewsExpire() throws InterruptedException {
+        ViewService service = viewService(50);
+        stats(Optional.of(List.of(view(1, 5))));
+        service.getViews(List.of(event(1)));
+        stats(Optional.of(List.of(view(1, 6))));
+        Thread.sleep(100);
+
+        assertEquals(Map.of(1L, 6), service.getViews(List.of(event(1))));
+    }
+
+    @Test
+    void refreshUpdatesCache() {
+        stats(Optional.of(List.of(view(1, 5))));
+        viewService.getViews(List.of(event(1)));
+        stats(Optional.of(List.of(view(1, 7))));
+
+        viewService.refresh(Map.of(1L, PUBLISHED));
+
+        assertEquals(Map.of(1L, 7), viewService.getViews(List.of(event(1))));
+        verify(statsClient, times(2)).findStats(any(), any(), any(), anyBoolean());
+    }
+
+    @Test
+    void unpublishedEventsAreNotRequested() {
+        Event pending = Event.builder().id(2L).build();
+
+        assertEquals(Map.of(), viewService.getViews(List.of(pending)));
+        verify(statsClient, never()).findStats(any(), any(), any(), anyBoolean());
+    }
+
+    @Test
+    void onlyPublishedEventsAreRequested() {
+        stats(Optional.of(List.of(view(1, 5))));
+
+        assertEquals(Map.of(1L, 5), viewService.getViews(List.of(event(1), Event.builder().id(2L).build())));
+
+        ArgumentCaptor<String[]> uris = ArgumentCaptor.forClass(String[].class);
+        verify(statsClient).findStats(any(), any(), uris.capture(), anyBoolean());
+        assertArrayEquals(new String[]{"/events/1"}, uris.getValue());
+    }
+
+    private void stats(Optional<List<ViewStats>> response) {
+        when(statsClient.findStats(any(), any(), any(), anyBoolean())).thenReturn(response);
+    }
+
+    private ViewService viewService(long ttlMs) {
+        return new ViewService(statsClient, new HotEventTracker(0.5, 100), new SimpleMeterRegistry(), ttlMs, 1000);
+    }
+
+    static Event event(long id) {
+        return Event.builder().id(id).publishedOn(PUBLISHED).build();
+    }
+
+    static ViewStats view(long id, long hits) {
+        return new ViewStats("ewm-main-service", "/events/" + id, hits);
+    }
+
+    private static String[] sorted(String[] values) {
+        String[] copy = values.clone();
+        Arrays.sort(copy);
+        return copy;
+    }
+}
@@ -0,0 +1,51 @@
+package ru.practicum.client.stats;
+
+/**
+ * Предохранитель вызовов сервиса статистики: после failure-threshold неудач подряд вызовы не выполняются
+ * open-ms миллисекунд, затем пропускается один пробный вызов, успех которого снова разрешает вызовы
+ */
+class CircuitBreaker {
+    private final int failureThreshold;
+    private final long openMs;
+    private int failures;
+    //момент, до которого вызовы запрещены, 0 - вызовы разрешены
+    private long openUntil;
+    private boolean trial;
+
+    CircuitBreaker(int failureThreshold, long openMs) {
+        this.failureThreshold = failureThreshold;
+        this.openMs = openMs;
+    }
+
+    /**
+     * @return - true, если вызов можно выполнить
+     */
+    synchronized boolean allowRequest() {
+        if (openUntil == 0) {
+            return true;
+        }
+        if (System.currentTimeMillis() < openUntil || trial) {
+            return false;
+        }
+        trial = true;
+        return true;
+    }
+
+    synchronized void recordSuccess() {
+        failures = 0;
+        openUntil = 0;
+        trial = false;
+    }
+
+    synchronized void recordFailure() {
+        failures++;
+        if (trial || failures >= failureThreshold) {
+            openUntil = System.currentTimeMillis() + openMs;
+            trial = false;
+        }
+    }
+
+    synchronized boolean isOpen() {
+        return openUntil != 0;
+    }
+}
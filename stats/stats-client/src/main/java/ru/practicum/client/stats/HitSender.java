@@ -0,0 +1,114 @@
+package ru.practicum.client.stats;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import ru.practicum.dto.stats.EndpointHit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Фоновая отправка статистики: запросы помещаются в ограниченную очередь без ожидания,
+ * фоновый поток отправляет их пакетами по batch-size штук или по истечении flush-interval-ms
+ * с момента первого запроса пакета. При переполненной очереди запрос отбрасывается.
+ */
+@Slf4j
+class HitSender {
+    private final Consumer<List<EndpointHit>> sender;
+    private final BlockingQueue<EndpointHit> queue;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final Counter droppedCounter;
+    private final Counter failedCounter;
+    private volatile boolean running = true;
+    private final Thread worker;
+
+    HitSender(Consumer<List<EndpointHit>> sender, MeterRegistry meterRegistry, int capacity, int batchSize,
+              long flushIntervalMs) {
+        this.sender = sender;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.flushIntervalMs = flushIntervalMs;
+        Gauge.builder("stats.client.queue.depth", queue, BlockingQueue::size)
+                .description("Количество запросов, ожидающих отправки в сервис статистики")
+                .register(meterRegistry);
+        this.droppedCounter = meterRegistry.counter("stats.client.hits", "result", "dropped");
+        this.failedCounter = meterRegistry.counter("stats.client.hits", "result", "failed");
+        this.worker = new Thread(this::run, "stats-client-sender");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * метод постановки запроса в очередь, не блокирует вызывающий поток
+     */
+    void offer(EndpointHit endpointHit) {
+        if (!queue.offer(endpointHit)) {
+            droppedCounter.increment();
+        }
+    }
+
+    /**
+     * метод остановки: фоновый поток завершается, оставшиеся запросы отправляются
+     */
+    void stop() {
+        //без прерывания, чтобы не потерять собираемый пакет: поток завершится после очередного ожидания
+        running = false;
+        try {
+            worker.join(flushIntervalMs * 10);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<EndpointHit> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        for (int from = 0; from < rest.size(); from += batchSize) {
+            send(rest.subList(from, Math.min(rest.size(), from + batchSize)));
+        }
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                EndpointHit first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                List<EndpointHit> batch = new ArrayList<>(batchSize);
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long wait = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || wait <= 0) {
+                        break;
+                    }
+                    EndpointHit next = queue.poll(wait, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                send(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void send(List<EndpointHit> batch) {
+        try {
+            //результат отправки (sent, rejected, spooled, failed) учитывает отправляющая сторона
+            sender.accept(batch);
+        } catch (RuntimeException e) {
+            failedCounter.increment(batch.size());
+            log.warn("Не удалось отправить {} записей статистики: {}", batch.size(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package ru.practicum.client.stats;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import ru.practicum.dto.stats.EndpointHit;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Файловый накопитель запросов, которые не удалось отправить в сервис статистики.
+ * <p>
+ * Запросы дописываются в файл spool.ndjson строками вида "время помещения в мс TAB EndpointHit в JSON".
+ * При повторной отправке файл переименовывается в replay.ndjson, новые запросы пишутся в новый spool.ndjson,
+ * количество уже отправленных байт replay.ndjson хранится в replay.offset.
+ * Запросы старше max-age-ms при повторной отправке отбрасываются, при размере файлов больше max-bytes
+ * новые запросы отбрасываются.
+ */
+@Slf4j
+class HitSpool {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Path spoolFile;
+    private final Path replayFile;
+    private final Path offsetFile;
+    private final long maxBytes;
+    private final long maxAgeMs;
+    private final Counter spooledCounter;
+    private final Counter replayedCounter;
+    private final Counter rejectedCounter;
+    private final Counter droppedCounter;
+    private final Counter expiredCounter;
+    private BufferedWriter writer;
+
+    HitSpool(Path dir, long maxBytes, long maxAgeMs, MeterRegistry meterRegistry) {
+        try {
+            Files.createDirectories(dir);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось создать каталог накопителя статистики " + dir, e);
+        }
+        this.spoolFile = dir.resolve("spool.ndjson");
+        this.replayFile = dir.resolve("replay.ndjson");
+        this.offsetFile = dir.resolve("replay.offset");
+        this.maxBytes = maxBytes;
+        this.maxAgeMs = maxAgeMs;
+        Gauge.builder("stats.client.spool.bytes", this, HitSpool::size)
+                .description("Размер файлов накопителя статистики")
+                .register(meterRegistry);
+        this.spooledCounter = meterRegistry.counter("stats.client.spool", "result", "spooled");
+        this.replayedCounter = meterRegistry.counter("stats.client.spool", "result", "replayed");
+        this.rejectedCounter = meterRegistry.counter("stats.client.spool", "result", "rejected");
+        this.droppedCounter = meterRegistry.counter("stats.client.spool", "result", "dropped");
+        this.expiredCounter = meterRegistry.counter("stats.client.spool", "result", "expired");
+    }
+
+    /**
+     * метод сохранения запросов в накопитель
+     *
+     * @return - true, если запросы сохранены, false - отброшены
+     */
+    synchronized boolean append(List<EndpointHit> endpointHits) {
+        if (size() >= maxBytes) {
+            droppedCounter.increment(endpointHits.size());
+            return false;
+        }
+        try {
+            if (writer == null) {
+                writer = Files.newBufferedWriter(spoolFile, StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            }
+            long now = System.currentTimeMillis();
+            for (EndpointHit endpointHit : endpointHits) {
+                writer.write(now + "\t" + objectMapper.writeValueAsString(endpointHit));
+                writer.write('\n');
+            }
+            writer.flush();
+            spooledCounter.increment(endpointHits.size());
+            return true;
+        } catch (IOException e) {
+            droppedCounter.increment(endpointHits.size());
+            log.error("Не удалось сохранить {} записей статистики в накопитель", endpointHits.size(), e);
+            return false;
+        }
+    }
+
+    boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * метод повторной отправки накопленных запросов пакетами; файл читается построчно, граница пакета
+     * сохраняется в replay.offset только после ответа сервиса на пакет, поэтому при первой неудаче отправка
+     * прекращается, а следующая продолжается с первого пакета без ответа
+     *
+     * @param sender    - отправка пакета: true - пакет сохранен, false - отклонен сервисом и отбрасывается,
+     *                  исключение означает неудачу
+     * @param batchSize - размер пакета
+     */
+    void replay(Predicate<List<EndpointHit>> sender, int batchSize) throws IOException {
+        if (!Files.exists(replayFile)) {
+            synchronized (this) {
+                if (writer != null) {
+                    writer.close();
+                    writer = null;
+                }
+                if (!Files.exists(spoolFile)) {
+                    return;
+                }
+                Files.deleteIfExists(offsetFile);
+                Files.move(spoolFile, replayFile, StandardCopyOption.ATOMIC_MOVE);
+            }
+        }
+        long position = readOffset();
+        long expireBefore = System.currentTimeMillis() - maxAgeMs;
+        int lines = 0;
+        try (FileChannel channel = FileChannel.open(replayFile, StandardOpenOption.READ);
+             BufferedReader reader = new BufferedReader(
+                     Channels.newReader(channel.position(position), StandardCharsets.UTF_8))) {
+            List<EndpointHit> batch = new ArrayList<>(batchSize);
+            String line;
+            while ((line = reader.readLine()) != null) {
+                //строки разделяются одним символом '\n', см. append
+                position += line.getBytes(StandardCharsets.UTF_8).length + 1;
+                lines++;
+                EndpointHit endpointHit = parse(line, expireBefore);
+                if (endpointHit != null) {
+                    batch.add(endpointHit);
+                }
+                if (batch.size() >= batchSize) {
+                    send(sender, batch);
+                    writeOffset(position);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+            if (!batch.isEmpty()) {
+                send(sender, batch);
+                writeOffset(position);
+            }
+        }
+        Files.delete(replayFile);
+        Files.deleteIfExists(offsetFile);
+        log.info("Накопленная статистика отправлена повторно: {} строк", lines);
+    }
+
+    synchronized void close() throws IOException {
+        if (writer != null) {
+            writer.close();
+            writer = null;
+        }
+    }
+
+    private EndpointHit parse(String line, long expireBefore) {
+        int tab = line.indexOf('\t');
+        try {
+            if (tab < 0) {
+                throw new NumberFormatException(line);
+            }
+            if (Long.parseLong(line.substring(0, tab)) < expireBefore) {
+                expiredCounter.increment();
+                return null;
+            }
+            return objectMapper.readValue(line.substring(tab + 1), EndpointHit.class);
+        } catch (NumberFormatException | JsonProcessingException e) {
+            //недописанная при сбое строка
+            droppedCounter.increment();
+            return null;
+        }
+    }
+
+    private void send(Predicate<List<EndpointHit>> sender, List<EndpointHit> batch) {
+        if (sender.test(batch)) {
+            replayedCounter.increment(batch.size());
+        } else {
+            rejectedCounter.increment(batch.size());
+        }
+    }
+
+    /**
+     * @return - количество байт файла replay.ndjson, уже отправленных повторно
+     */
+    private long readOffset() throws IOException {
+        if (!Files.exists(offsetFile)) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(Files.readString(offsetFile).trim());
+        } catch (NumberFormatException e) {
+            log.warn("Позиция повторной отправки {} повреждена, отправка начнется с начала файла", offsetFile);
+            return 0;
+        }
+    }
+
+    private void writeOffset(long position) throws IOException {
+        Path tmp = offsetFile.resolveSibling("replay.offset.tmp");
+        Files.writeString(tmp, Long.toString(position));
+        Files.move(tmp, offsetFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private long size() {
+        return fileSize(spoolFile) + fileSize(replayFile);
+    }
+
+    private static long fileSize(Path file) {
+        try {
+            return Files.exists(file) ? Files.size(file) : 0;
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+}
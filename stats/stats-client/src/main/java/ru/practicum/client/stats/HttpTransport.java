@@ -0,0 +1,95 @@
+package ru.practicum.client.stats;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.http.HttpRequest;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.client.StandardHttpRequestRetryHandler;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HTTP-транспорт клиента статистики: пул постоянных соединений Apache HttpClient с ограничениями
+ * на количество соединений, таймаутами, сжатием ответов gzip и метриками пула httpcomponents.httpclient.pool.*
+ * <p>
+ * Соединение, закрытое сервером во время простоя в пуле, обнаруживается только при следующем запросе.
+ * Поэтому без заголовка Keep-Alive от сервера соединение держится меньше обычного таймаута простоя серверов,
+ * а идемпотентные запросы, не получившие ответа, один раз повторяются в новом соединении. Запросы сохранения
+ * статистики не повторяются: сервис мог их уже сохранить.
+ */
+class HttpTransport implements Closeable {
+    private final CloseableHttpClient httpClient;
+    private final HttpComponentsClientHttpRequestFactory requestFactory;
+
+    /**
+     * @param maxTotal                   - максимальное количество соединений в пуле
+     * @param maxPerRoute                - максимальное количество соединений с одним сервером
+     * @param connectTimeoutMs           - таймаут установки соединения
+     * @param readTimeoutMs              - таймаут ожидания данных ответа
+     * @param connectionRequestTimeoutMs - таймаут ожидания свободного соединения из пула
+     * @param keepAliveMs                - время жизни простаивающего соединения, если сервер не прислал Keep-Alive
+     * @param gzip                       - запрашивать ответы, сжатые gzip
+     */
+    HttpTransport(int maxTotal, int maxPerRoute, int connectTimeoutMs, int readTimeoutMs,
+                  int connectionRequestTimeoutMs, long keepAliveMs, boolean gzip, MeterRegistry meterRegistry) {
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(maxTotal);
+        connectionManager.setDefaultMaxPerRoute(maxPerRoute);
+        //соединение, простоявшее в пуле дольше секунды, проверяется перед использованием
+        connectionManager.setValidateAfterInactivity(1000);
+        new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, "stats-server").bindTo(meterRegistry);
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(connectTimeoutMs)
+                .setSocketTimeout(readTimeoutMs)
+                .setConnectionRequestTimeout(connectionRequestTimeoutMs)
+                .build();
+        //без заголовка Keep-Alive от сервера соединение держится keep-alive-ms
+        ConnectionKeepAliveStrategy keepAlive = (response, context) -> {
+            long serverKeepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+            return serverKeepAlive > 0 ? serverKeepAlive : keepAliveMs;
+        };
+        HttpClientBuilder builder = HttpClientBuilder.create()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .setKeepAliveStrategy(keepAlive)
+                .setRetryHandler(new StaleConnectionRetryHandler())
+                .evictExpiredConnections()
+                .evictIdleConnections(keepAliveMs, TimeUnit.MILLISECONDS);
+        if (!gzip) {
+            builder.disableContentCompression();
+        }
+        httpClient = builder.build();
+        requestFactory = new HttpComponentsClientHttpRequestFactory(httpClient);
+    }
+
+    HttpComponentsClientHttpRequestFactory getRequestFactory() {
+        return requestFactory;
+    }
+
+    @Override
+    public void close() throws IOException {
+        httpClient.close();
+    }
+
+    /**
+     * повтор идемпотентных запросов, в том числе POST /stats/query, который только читает статистику
+     */
+    private static class StaleConnectionRetryHandler extends StandardHttpRequestRetryHandler {
+        StaleConnectionRetryHandler() {
+            super(1, false);
+        }
+
+        @Override
+        protected boolean handleAsIdempotent(HttpRequest request) {
+            return super.handleAsIdempotent(request) || request.getRequestLine().getUri().endsWith("/stats/query");
+        }
+    }
+}
@@ -1,52 +1,266 @@
 package ru.practicum.client.stats;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 import ru.practicum.dto.stats.EndpointHit;
+import ru.practicum.dto.stats.HitsResult;
+import ru.practicum.dto.stats.StatsQuery;
 import ru.practicum.dto.stats.ViewStats;
 
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 /**
  * HTTP-клиент для работы с сервисом статистики.
+ * <p>
+ * Недоступность сервиса статистики не влияет на вызывающий код: после серии неудач предохранитель
+ * перестает обращаться к сервису, запросы сохраняются в файловый накопитель и отправляются повторно
+ * после восстановления сервиса, а статистика возвращается пустой.
  */
+@Slf4j
 @Component
-
 public class StatsClient {
     private static final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private final HttpTransport transport;
     private final RestTemplate restTemplate;
     private String uri;
+    //наибольшее количество uri в строке GET-запроса, большие наборы передаются в теле POST /stats/query
+    private final int maxQueryUris;
+    private final CircuitBreaker circuitBreaker;
+    //файловый накопитель, null - неотправленные запросы отбрасываются
+    private final HitSpool spool;
+    private final int replayBatchSize;
+    private final ScheduledExecutorService replayer;
+    //фоновая отправка статистики, null - запросы отправляются синхронно
+    private final HitSender hitSender;
+    //результаты отправки статистики: stats.client.hits{result=sent|rejected|spooled|failed}
+    private final Counter sentCounter;
+    private final Counter rejectedCounter;
+    private final Counter spooledCounter;
+    private final Counter failedCounter;
 
-    public StatsClient(@Value("${stats-server.url}") String uri) {
+    public StatsClient(@Value("${stats-server.url}") String uri,
+                       @Value("${stats-server.connect-timeout-ms:1000}") int connectTimeoutMs,
+                       @Value("${stats-server.read-timeout-ms:2000}") int readTimeoutMs,
+                       @Value("${stats-server.pool.max-total:50}") int poolMaxTotal,
+                       @Value("${stats-server.pool.max-per-route:20}") int poolMaxPerRoute,
+                       @Value("${stats-server.pool.acquire-timeout-ms:500}") int poolAcquireTimeoutMs,
+                       @Value("${stats-server.pool.keep-alive-ms:4000}") long keepAliveMs,
+                       @Value("${stats-server.gzip:true}") boolean gzip,
+                       @Value("${stats-server.query.max-get-uris:50}") int maxQueryUris,
+                       @Value("${stats-server.async.enabled:false}") boolean async,
+                       @Value("${stats-server.async.capacity:10000}") int capacity,
+                       @Value("${stats-server.async.batch-size:200}") int batchSize,
+                       @Value("${stats-server.async.flush-interval-ms:100}") long flushIntervalMs,
+                       @Value("${stats-server.circuit.failure-threshold:5}") int failureThreshold,
+                       @Value("${stats-server.circuit.open-ms:10000}") long openMs,
+                       @Value("${stats-server.spool.enabled:true}") boolean spoolEnabled,
+                       @Value("${stats-server.spool.dir:stats-spool}") String spoolDir,
+                       @Value("${stats-server.spool.max-bytes:104857600}") long spoolMaxBytes,
+                       @Value("${stats-server.spool.max-age-ms:86400000}") long spoolMaxAgeMs,
+                       @Value("${stats-server.spool.replay-interval-ms:5000}") long replayIntervalMs,
+                       @Value("${stats-server.spool.replay-batch-size:500}") int replayBatchSize,
+                       ObjectProvider<MeterRegistry> meterRegistry) {
         this.uri = uri;
-        restTemplate = new RestTemplate();
+        this.maxQueryUris = maxQueryUris;
+        MeterRegistry registry = meterRegistry.getIfAvailable(() -> Metrics.globalRegistry);
+        transport = new HttpTransport(poolMaxTotal, poolMaxPerRoute, connectTimeoutMs, readTimeoutMs,
+                poolAcquireTimeoutMs, keepAliveMs, gzip, registry);
+        restTemplate = new RestTemplate(transport.getRequestFactory());
+        sentCounter = registry.counter("stats.client.hits", "result", "sent");
+        rejectedCounter = registry.counter("stats.client.hits", "result", "rejected");
+        spooledCounter = registry.counter("stats.client.hits", "result", "spooled");
+        failedCounter = registry.counter("stats.client.hits", "result", "failed");
+        circuitBreaker = new CircuitBreaker(failureThreshold, openMs);
+        this.replayBatchSize = replayBatchSize;
+        if (spoolEnabled) {
+            spool = new HitSpool(Paths.get(spoolDir), spoolMaxBytes, spoolMaxAgeMs, registry);
+            replayer = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "stats-client-replay");
+                thread.setDaemon(true);
+                return thread;
+            });
+            replayer.scheduleWithFixedDelay(this::replay, replayIntervalMs, replayIntervalMs, TimeUnit.MILLISECONDS);
+        } else {
+            spool = null;
+            replayer = null;
+        }
+        hitSender = async
+                ? new HitSender(batch -> deliver(batch, this::hits), registry, capacity, batchSize, flushIntervalMs)
+                : null;
     }
 
-
+    /**
+     * метод сохранения информации о запросе; в асинхронном режиме запрос ставится в очередь
+     * и метод возвращается сразу, без ожидания сервиса статистики
+     */
     public void hit(EndpointHit endpointHit) {
-        restTemplate.postForObject(uri + "/hit", endpointHit, Object.class);
+        if (hitSender != null) {
+            hitSender.offer(endpointHit);
+            return;
+        }
+        deliver(List.of(endpointHit), batch -> restTemplate.postForObject(uri + "/hit", batch.get(0), Object.class));
+    }
+
+    public HitsResult hits(List<EndpointHit> endpointHits) {
+        return restTemplate.postForObject(uri + "/hits", endpointHits, HitsResult.class);
     }
 
+    /**
+     * метод получения статистики; при недоступном сервисе статистики возвращает пустой список
+     */
     public List<ViewStats> getStats(LocalDateTime start, LocalDateTime end, String[] uris, Boolean unique) {
-        final String url = uri + "/stats?start={start}&end={end}&uris={uris}&unique={unique}";
-        ResponseEntity<List<ViewStats>> response = restTemplate.exchange(url, HttpMethod.GET, HttpEntity.EMPTY,
+        return findStats(start, end, uris, unique).orElse(List.of());
+    }
+
+    /**
+     * метод получения статистики, отличающий недоступность сервиса статистики от отсутствия просмотров
+     *
+     * @return - статистика или Optional.empty(), если сервис статистики недоступен
+     */
+    public Optional<List<ViewStats>> findStats(LocalDateTime start, LocalDateTime end, String[] uris,
+                                               Boolean unique) {
+        if (!circuitBreaker.allowRequest()) {
+            return Optional.empty();
+        }
+        try {
+            ResponseEntity<List<ViewStats>> response;
+            if (uris != null && uris.length > maxQueryUris) {
+                response = queryStats(start, end, uris, unique);
+            } else {
+                response = restTemplate.exchange(uri + "/stats?start={start}&end={end}&uris={uris}&unique={unique}",
+                        HttpMethod.GET, HttpEntity.EMPTY,
+                        new ParameterizedTypeReference<>() {
+                        },
+                        Map.of("start", start.format(formatter),
+                                "end", end.format(formatter),
+                                "uris", uris,
+                                "unique", unique)
+                );
+            }
+            circuitBreaker.recordSuccess();
+            return Optional.ofNullable(response.getBody());
+        } catch (HttpClientErrorException e) {
+            circuitBreaker.recordSuccess();
+            throw e;
+        } catch (RestClientException e) {
+            circuitBreaker.recordFailure();
+            log.warn("Сервис статистики недоступен, статистика не получена: {}", e.getMessage());
+            return Optional.empty();
+        } catch (RuntimeException e) {
+            //любое другое исключение тоже завершает вызов, иначе пробный вызов не освободит предохранитель
+            circuitBreaker.recordFailure();
+            throw e;
+        }
+    }
+
+    /**
+     * вспомогательный метод получения статистики запросом в теле, чтобы длина URL не зависела от количества uri
+     */
+    private ResponseEntity<List<ViewStats>> queryStats(LocalDateTime start, LocalDateTime end, String[] uris,
+                                                       Boolean unique) {
+        StatsQuery query = StatsQuery.builder()
+                .start(start.format(formatter))
+                .end(end.format(formatter))
+                .uris(Arrays.asList(uris))
+                .unique(unique)
+                .build();
+        return restTemplate.exchange(uri + "/stats/query", HttpMethod.POST, new HttpEntity<>(query),
                 new ParameterizedTypeReference<>() {
-                },
-                Map.of("start", start.format(formatter),
-                        "end", end.format(formatter),
-                        "uris", uris,
-                        "unique", unique)
-        );
-        return response.getBody();
+                });
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        if (hitSender != null) {
+            hitSender.stop();
+        }
+        if (replayer != null) {
+            replayer.shutdownNow();
+            spool.close();
+        }
+        transport.close();
     }
 
+    /**
+     * вспомогательный метод отправки запросов через предохранитель, неотправленные запросы
+     * сохраняются в накопитель
+     */
+    private void deliver(List<EndpointHit> endpointHits, Consumer<List<EndpointHit>> call) {
+        if (circuitBreaker.allowRequest()) {
+            try {
+                call.accept(endpointHits);
+                circuitBreaker.recordSuccess();
+                sentCounter.increment(endpointHits.size());
+                return;
+            } catch (HttpClientErrorException e) {
+                //сервис доступен, но отклонил запросы, повторная отправка не поможет
+                circuitBreaker.recordSuccess();
+                rejectedCounter.increment(endpointHits.size());
+                log.warn("Сервис статистики отклонил {} записей: {}", endpointHits.size(), e.getMessage());
+                return;
+            } catch (RestClientException e) {
+                circuitBreaker.recordFailure();
+                log.warn("Сервис статистики недоступен: {}", e.getMessage());
+            } catch (RuntimeException e) {
+                circuitBreaker.recordFailure();
+                log.error("Не удалось отправить {} записей статистики", endpointHits.size(), e);
+            }
+        }
+        if (spool != null && spool.append(endpointHits)) {
+            spooledCounter.increment(endpointHits.size());
+        } else {
+            failedCounter.increment(endpointHits.size());
+            log.warn("Не отправлено и не сохранено в накопитель {} записей статистики", endpointHits.size());
+        }
+    }
 
+    private void replay() {
+        if (spool.isEmpty() || !circuitBreaker.allowRequest()) {
+            return;
+        }
+        try {
+            spool.replay(batch -> {
+                try {
+                    hits(batch);
+                    return true;
+                } catch (HttpClientErrorException e) {
+                    //отклоненный пакет отбрасывается, иначе он будет отправляться бесконечно
+                    log.error("Сервис статистики отклонил {} накопленных записей: {}", batch.size(), e.getMessage());
+                    return false;
+                }
+            }, replayBatchSize);
+            circuitBreaker.recordSuccess();
+        } catch (RestClientException e) {
+            circuitBreaker.recordFailure();
+            log.warn("Повторная отправка статистики не удалась: {}", e.getMessage());
+        } catch (IOException | RuntimeException e) {
+            //пробный вызов предохранителя должен завершиться и при ошибке накопителя
+            circuitBreaker.recordFailure();
+            log.error("Не удалось повторно отправить накопленную статистику", e);
+        }
+    }
 }
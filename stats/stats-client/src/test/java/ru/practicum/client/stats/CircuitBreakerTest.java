@@ -0,0 +1,79 @@
+package ru.practicum.client.stats;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CircuitBreakerTest {
+    private static final long OPEN_MS = 50;
+
+    private final CircuitBreaker breaker = new CircuitBreaker(3, OPEN_MS);
+
+    @Test
+    void opensAfterFailuresInARow() {
+        breaker.recordFailure();
+        breaker.recordFailure();
+        assertTrue(breaker.allowRequest());
+        assertFalse(breaker.isOpen());
+
+        breaker.recordFailure();
+
+        assertTrue(breaker.isOpen());
+        assertFalse(breaker.allowRequest());
+    }
+
+    @Test
+    void successResetsFailureCount() {
+        breaker.recordFailure();
+        breaker.recordFailure();
+        breaker.recordSuccess();
+        breaker.recordFailure();
+        breaker.recordFailure();
+
+        assertFalse(breaker.isOpen());
+    }
+
+    @Test
+    void allowsSingleTrialAfterOpenPeriod() throws InterruptedException {
+        open();
+        Thread.sleep(OPEN_MS * 2);
+
+        assertTrue(breaker.allowRequest());
+        assertFalse(breaker.allowRequest());
+    }
+
+    @Test
+    void successfulTrialClosesBreaker() throws InterruptedException {
+        open();
+        Thread.sleep(OPEN_MS * 2);
+        assertTrue(breaker.allowRequest());
+
+        breaker.recordSuccess();
+
+        assertFalse(breaker.isOpen());
+        assertTrue(breaker.allowRequest());
+        assertTrue(breaker.allowRequest());
+    }
+
+    @Test
+    void failedTrialReopensBreaker() throws InterruptedException {
+        open();
+        Thread.sleep(OPEN_MS * 2);
+        assertTrue(breaker.allowRequest());
+
+        breaker.recordFailure();
+
+        assertTrue(breaker.isOpen());
+        assertFalse(breaker.allowRequest());
+        Thread.sleep(OPEN_MS * 2);
+        assertTrue(breaker.allowRequest());
+    }
+
+    private void open() {
+        for (int i = 0; i < 3; i++) {
+            breaker.recordFailure();
+        }
+        assertTrue(breaker.isOpen());
+    }
+}
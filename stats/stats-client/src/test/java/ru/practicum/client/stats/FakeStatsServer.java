@@ -0,0 +1,140 @@
+package ru.practicum.client.stats;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Сервис статистики для тестов клиента: запоминает запросы и отвечает заданным статусом
+ */
+class FakeStatsServer implements AutoCloseable {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpServer server;
+    private final List<Request> requests = new CopyOnWriteArrayList<>();
+    private volatile int status = 201;
+    private volatile String stats = "[]";
+    private volatile boolean dropConnections;
+    //порты клиентов, от которых уже были запросы
+    private final Set<Integer> connections = ConcurrentHashMap.newKeySet();
+
+    FakeStatsServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    String url() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    /**
+     * статус ответа на запросы сохранения, ответы на запросы статистики всегда 200, если статус не 5xx
+     */
+    void respondWith(int status) {
+        this.status = status;
+    }
+
+    void respondWithStats(String json) {
+        this.stats = json;
+    }
+
+    /**
+     * закрывать соединение без ответа на второй и следующие запросы в нем, как сервер, закрывший
+     * простаивающее соединение: клиент узнает об этом только после отправки запроса
+     */
+    void dropConnections() {
+        this.dropConnections = true;
+    }
+
+    List<Request> requests() {
+        return new ArrayList<>(requests);
+    }
+
+    /**
+     * @return - количество записей, принятых запросами /hit и /hits
+     */
+    int savedHits() {
+        int count = 0;
+        for (Request request : requests) {
+            if (request.status >= 300) {
+                continue;
+            }
+            if (request.path.equals("/hit")) {
+                count++;
+            } else if (request.path.equals("/hits")) {
+                count += size(request.body);
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+        String path = exchange.getRequestURI().getPath();
+        if (!connections.add(exchange.getRemoteAddress().getPort()) && dropConnections) {
+            exchange.close();
+            return;
+        }
+        int code = status;
+        String response = "";
+        if (path.startsWith("/stats") && code < 500) {
+            code = 200;
+            response = stats;
+        } else if (path.equals("/hits") && code < 300) {
+            response = "{\"accepted\":" + size(body) + "}";
+        }
+        requests.add(new Request(exchange.getRequestMethod(), path, exchange.getRequestURI().getRawQuery(), body,
+                exchange.getRemoteAddress().getPort(), code));
+        byte[] bytes = response.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        //HttpServer закрывает соединение после ответа с длиной -1, поэтому пустой ответ отправляется с длиной 0
+        exchange.sendResponseHeaders(code, bytes.length == 0 ? 0 : bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private int size(String json) {
+        try {
+            return objectMapper.readTree(json).size();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static class Request {
+        final String method;
+        final String path;
+        final String query;
+        final String body;
+        //порт клиента, по нему видно, в каком соединении пришел запрос
+        final int clientPort;
+        final int status;
+
+        Request(String method, String path, String query, String body, int clientPort, int status) {
+            this.method = method;
+            this.path = path;
+            this.query = query;
+            this.body = body;
+            this.clientPort = clientPort;
+            this.status = status;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package ru.practicum.client.stats;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import ru.practicum.dto.stats.EndpointHit;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HitSenderTest {
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<List<EndpointHit>> sent = Collections.synchronizedList(new ArrayList<>());
+
+    @Test
+    void hitsAreSentInBatches() throws InterruptedException {
+        HitSender sender = new HitSender(batch -> sent.add(new ArrayList<>(batch)), meterRegistry, 100, 2, 50);
+        try {
+            for (int i = 0; i < 5; i++) {
+                sender.offer(hit(i));
+            }
+
+            await(() -> sentCount() == 5);
+            synchronized (sent) {
+                sent.forEach(batch -> assertTrue(batch.size() <= 2));
+            }
+        } finally {
+            sender.stop();
+        }
+    }
+
+    @Test
+    void offerDoesNotBlockWhenQueueIsFull() throws InterruptedException {
+        CountDownLatch sending = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        HitSender sender = new HitSender(batch -> {
+            sending.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            sent.add(new ArrayList<>(batch));
+        }, meterRegistry, 2, 1, 50);
+        try {
+            sender.offer(hit(0));
+            assertTrue(sending.await(5, TimeUnit.SECONDS));
+
+            for (int i = 1; i <= 3; i++) {
+                sender.offer(hit(i));
+            }
+
+            assertEquals(1, meterRegistry.counter("stats.client.hits", "result", "dropped").count());
+        } finally {
+            release.countDown();
+            sender.stop();
+        }
+        assertEquals(3, sentCount());
+    }
+
+    @Test
+    void stopSendsQueuedHits() {
+        HitSender sender = new HitSender(batch -> sent.add(new ArrayList<>(batch)), meterRegistry, 100, 2, 50);
+        for (int i = 0; i < 7; i++) {
+            sender.offer(hit(i));
+        }
+
+        sender.stop();
+
+        assertEquals(7, sentCount());
+    }
+
+    @Test
+    void failedBatchIsCounted() throws InterruptedException {
+        HitSender sender = new HitSender(batch -> {
+            throw new IllegalStateException("нет соединения");
+        }, meterRegistry, 100, 10, 50);
+        try {
+            sender.offer(hit(0));
+            sender.offer(hit(1));
+
+            await(() -> meterRegistry.counter("stats.client.hits", "result", "failed").count() == 2);
+        } finally {
+            sender.stop();
+        }
+    }
+
+    private int sentCount() {
+        synchronized (sent) {
+            return sent.stream().mapToInt(List::size).sum();
+        }
+    }
+
+    static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "Условие не выполнено за 5 секунд");
+            Thread.sleep(10);
+        }
+    }
+
+    static EndpointHit hit(int i) {
+        return new EndpointHit("ewm-main-service", "/events/" + i, "192.163.0.1", "2022-09-06 11:00:23");
+    }
+}
@@ -0,0 +1,121 @@
+package ru.practicum.client.stats;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.practicum.dto.stats.EndpointHit;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HitSpoolTest {
+    @TempDir
+    Path dir;
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<EndpointHit> sent = new ArrayList<>();
+
+    @Test
+    void replaySendsSpooledHitsInBatches() throws IOException {
+        HitSpool spool = spool(1_000_000);
+        assertTrue(spool.isEmpty());
+        assertTrue(spool.append(hits(0, 3)));
+        assertTrue(spool.append(hits(3, 5)));
+        List<Integer> batchSizes = new ArrayList<>();
+
+        spool.replay(batch -> {
+            batchSizes.add(batch.size());
+            return sent.addAll(batch);
+        }, 2);
+
+        assertEquals(List.of(2, 2, 1), batchSizes);
+        assertEquals(hits(0, 5), sent);
+        assertTrue(spool.isEmpty());
+        assertFalse(Files.exists(dir.resolve("replay.ndjson")));
+        assertFalse(Files.exists(dir.resolve("replay.offset")));
+    }
+
+    @Test
+    void failedReplayResumesFromFirstUnsentBatch() throws IOException {
+        HitSpool spool = spool(1_000_000);
+        spool.append(hits(0, 5));
+        int[] calls = {0};
+
+        assertThrows(IllegalStateException.class, () -> spool.replay(batch -> {
+            if (++calls[0] == 2) {
+                throw new IllegalStateException("нет соединения");
+            }
+            return sent.addAll(batch);
+        }, 2));
+        //граница сохраняется только после ответа сервиса на пакет
+        assertEquals(2, meterRegistry.counter("stats.client.spool", "result", "replayed").count());
+        //запросы, поступившие во время сбоя, пишутся в новый файл накопителя
+        spool.append(hits(5, 6));
+        spool.replay(sent::addAll, 2);
+
+        assertEquals(hits(0, 5), sent);
+        assertFalse(spool.isEmpty());
+        spool.replay(sent::addAll, 2);
+        assertEquals(hits(0, 6), sent);
+        assertTrue(spool.isEmpty());
+    }
+
+    @Test
+    void rejectedBatchIsNotReplayedAgain() throws IOException {
+        HitSpool spool = spool(1_000_000);
+        spool.append(hits(0, 3));
+
+        spool.replay(batch -> batch.size() == 1 && sent.addAll(batch), 2);
+
+        assertEquals(hits(2, 3), sent);
+        assertTrue(spool.isEmpty());
+        assertEquals(2, meterRegistry.counter("stats.client.spool", "result", "rejected").count());
+        assertEquals(1, meterRegistry.counter("stats.client.spool", "result", "replayed").count());
+    }
+
+    @Test
+    void fullSpoolDropsHits() {
+        HitSpool spool = spool(1);
+
+        assertTrue(spool.append(hits(0, 1)));
+        assertFalse(spool.append(hits(1, 3)));
+
+        assertEquals(2, meterRegistry.counter("stats.client.spool", "result", "dropped").count());
+    }
+
+    @Test
+    void expiredAndBrokenLinesAreSkipped() throws IOException {
+        Files.writeString(dir.resolve("spool.ndjson"),
+                "1000\t{\"app\":\"ewm-main-service\",\"uri\":\"/events/0\",\"ip\":\"192.163.0.1\"," +
+                        "\"timestamp\":\"2022-09-06 11:00:23\"}\n" +
+                        "not a hit\n" +
+                        System.currentTimeMillis() + "\t{\"app\":\"ewm-main-service\",\"uri\":\"/events/1\"," +
+                        "\"ip\":\"192.163.0.1\",\"timestamp\":\"2022-09-06 11:00:23\"}\n" +
+                        System.currentTimeMillis() + "\t{\"app\":\"ewm-main-");
+        HitSpool spool = spool(1_000_000);
+
+        spool.replay(sent::addAll, 10);
+
+        assertEquals(hits(1, 2), sent);
+        assertEquals(1, meterRegistry.counter("stats.client.spool", "result", "expired").count());
+        assertEquals(2, meterRegistry.counter("stats.client.spool", "result", "dropped").count());
+    }
+
+    private HitSpool spool(long maxBytes) {
+        return new HitSpool(dir, maxBytes, 60_000, meterRegistry);
+    }
+
+    private static List<EndpointHit> hits(int from, int to) {
+        return IntStream.range(from, to).mapToObj(HitSenderTest::hit).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,237 @@
+package ru.practicum.client.stats;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import ru.practicum.dto.stats.StatsQuery;
+import ru.practicum.dto.stats.ViewStats;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static ru.practicum.client.stats.HitSenderTest.await;
+import static ru.practicum.client.stats.HitSenderTest.hit;
+
+class StatsClientTest {
+    @TempDir
+    Path spoolDir;
+    private FakeStatsServer server;
+    private MeterRegistry meterRegistry;
+    private StatsClient client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new FakeStatsServer();
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (client != null) {
+            client.stop();
+        }
+        server.close();
+    }
+
+    @Test
+    void syncHitIsSentAndCounted() {
+        client = client(false, false, 60_000);
+
+        client.hit(hit(1));
+
+        assertEquals(1, server.savedHits());
+        assertEquals(1, hits("sent"));
+    }
+
+    @Test
+    void asyncHitIsSentInBackground() throws InterruptedException {
+        client = client(true, false, 60_000);
+
+        for (int i = 0; i < 3; i++) {
+            client.hit(hit(i));
+        }
+
+        await(() -> hits("sent") == 3);
+        assertTrue(server.requests().stream().allMatch(request -> request.path.equals("/hits")));
+    }
+
+    @Test
+    void rejectedHitIsNotSpooled() {
+        server.respondWith(400);
+        client = client(false, true, 60_000);
+
+        client.hit(hit(1));
+
+        assertEquals(1, hits("rejected"));
+        assertEquals(0, hits("spooled"));
+    }
+
+    @Test
+    void hitIsSpooledWhenServerFails() {
+        server.respondWith(503);
+        client = client(false, true, 60_000);
+
+        client.hit(hit(1));
+
+        assertEquals(1, hits("spooled"));
+        assertEquals(0, hits("sent"));
+    }
+
+    @Test
+    void hitIsCountedAsFailedWithoutSpool() {
+        server.respondWith(503);
+        client = client(false, false, 60_000);
+
+        client.hit(hit(1));
+
+        assertEquals(1, hits("failed"));
+    }
+
+    @Test
+    void spooledHitsAreReplayedAfterOutage() throws InterruptedException {
+        server.respondWith(503);
+        client = client(false, true, 50);
+        client.hit(hit(1));
+        client.hit(hit(2));
+        assertEquals(2, hits("spooled"));
+
+        server.respondWith(201);
+
+        //запросы могут быть отправлены за две повторные отправки, счетчик увеличивается после ответа сервиса
+        await(() -> meterRegistry.counter("stats.client.spool", "result", "replayed").count() == 2
+                && Files.notExists(spoolDir.resolve("replay.ndjson")));
+        assertEquals(2, server.savedHits());
+    }
+
+    @Test
+    void openBreakerSkipsStatsServer() {
+        server.respondWith(503);
+        client = client(false, false, 60_000);
+        LocalDateTime start = LocalDateTime.of(2022, 9, 6, 0, 0);
+        LocalDateTime end = start.plusDays(1);
+        assertTrue(client.findStats(start, end, new String[]{"/events/1"}, false).isEmpty());
+        assertTrue(client.findStats(start, end, new String[]{"/events/1"}, false).isEmpty());
+        int requests = server.requests().size();
+
+        server.respondWith(201);
+
+        assertTrue(client.findStats(start, end, new String[]{"/events/1"}, false).isEmpty());
+        assertEquals(List.of(), client.getStats(start, end, new String[]{"/events/1"}, false));
+        assertEquals(requests, server.requests().size());
+    }
+
+    @Test
+    void requestsReuseKeepAliveConnection() {
+        client = client(false, false, 60_000);
+
+        for (int i = 0; i < 5; i++) {
+            client.hit(hit(i));
+        }
+
+        assertEquals(1, server.requests().stream().map(request -> request.clientPort).distinct().count());
+        assertEquals(5, hits("sent"));
+    }
+
+    @Test
+    void statsQueryIsRetriedAfterStaleConnection() {
+        server.dropConnections();
+        server.respondWithStats("[{\"app\":\"ewm-main-service\",\"uri\":\"/events/1\",\"hits\":5}]");
+        client = client(false, false, 60_000);
+        LocalDateTime start = LocalDateTime.of(2022, 9, 6, 0, 0);
+        String[] uris = {"/events/1", "/events/2", "/events/3", "/events/4"};
+
+        for (int i = 0; i < 2; i++) {
+            assertEquals(Optional.of(List.of(new ViewStats("ewm-main-service", "/events/1", 5L))),
+                    client.findStats(start, start.plusDays(1), uris, false));
+        }
+
+        //POST /stats/query только читает статистику, поэтому запрос в закрытое сервером соединение
+        //повторяется в новом
+        assertTrue(server.requests().stream().allMatch(request -> request.path.equals("/stats/query")));
+        assertEquals(2, server.requests().stream().map(request -> request.clientPort).distinct().count());
+    }
+
+    @Test
+    void hitIsNotRetriedAfterStaleConnection() {
+        server.dropConnections();
+        client = client(false, true, 60_000);
+
+        client.hit(hit(1));
+        client.hit(hit(2));
+
+        //сервис мог сохранить запрос до закрытия соединения, поэтому он не повторяется, а сохраняется в накопитель
+        assertEquals(1, server.savedHits());
+        assertEquals(1, hits("sent"));
+        assertEquals(1, hits("spooled"));
+    }
+
+    @Test
+    void connectionPoolIsMeasured() {
+        client = client(false, false, 60_000);
+
+        assertEquals(10, meterRegistry.get("httpcomponents.httpclient.pool.total.max")
+                .tag("httpclient", "stats-server").gauge().value());
+    }
+
+    @Test
+    void smallUriSetIsRequestedWithGet() {
+        server.respondWithStats("[{\"app\":\"ewm-main-service\",\"uri\":\"/events/1\",\"hits\":5}]");
+        client = client(false, false, 60_000);
+        LocalDateTime start = LocalDateTime.of(2022, 9, 6, 0, 0);
+
+        List<ViewStats> stats = client.getStats(start, start.plusDays(1), new String[]{"/events/1", "/events/2"}, true);
+
+        assertEquals(List.of(new ViewStats("ewm-main-service", "/events/1", 5L)), stats);
+        FakeStatsServer.Request request = server.requests().get(0);
+        assertEquals("GET", request.method);
+        assertEquals("/stats", request.path);
+        assertTrue(request.query.contains("/events/2"));
+    }
+
+    @Test
+    void largeUriSetIsRequestedInBody() throws IOException {
+        client = client(false, false, 60_000);
+        LocalDateTime start = LocalDateTime.of(2022, 9, 6, 0, 0);
+        String[] uris = {"/events/1", "/events/2", "/events/3", "/events/4"};
+
+        assertEquals(Optional.of(List.of()), client.findStats(start, start.plusDays(1), uris, false));
+
+        FakeStatsServer.Request request = server.requests().get(0);
+        assertEquals("POST", request.method);
+        assertEquals("/stats/query", request.path);
+        StatsQuery query = new ObjectMapper().readValue(request.body, StatsQuery.class);
+        assertEquals(Arrays.asList(uris), query.getUris());
+        assertEquals("2022-09-06 00:00:00", query.getStart());
+        assertEquals("2022-09-07 00:00:00", query.getEnd());
+        assertFalse(query.getUnique());
+    }
+
+    private double hits(String result) {
+        return meterRegistry.counter("stats.client.hits", "result", result).count();
+    }
+
+    /**
+     * клиент с предохранителем, срабатывающим после двух неудач на 200 мс, и тремя uri в GET-запросе
+     */
+    StatsClient client(boolean async, boolean spoolEnabled, long replayIntervalMs) {
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory(Map.of("meterRegistry", meterRegistry));
+        return new StatsClient(server.url(), 1000, 2000, 10, 10, 500, 30_000, true, 3,
+                async, 100, 10, 20, 2, 200,
+                spoolEnabled, spoolDir.toString(), 1_000_000, 86_400_000, replayIntervalMs, 500,
+                beanFactory.getBeanProvider(MeterRegistry.class));
+    }
+}
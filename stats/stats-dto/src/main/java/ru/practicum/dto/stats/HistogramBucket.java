@@ -0,0 +1,20 @@
+package ru.practicum.dto.stats;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class HistogramBucket {
+    private String app;
+    private String uri;
+    //начало корзины в формате "yyyy-MM-dd HH:mm:ss"
+    private String bucket;
+    private Long hits;
+    //количество уникальных посещений, null если не запрашивалось
+    private Long uniqueHits;
+}
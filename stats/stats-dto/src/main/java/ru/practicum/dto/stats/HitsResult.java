@@ -0,0 +1,18 @@
+package ru.practicum.dto.stats;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Результат пакетного сохранения информации о запросах к эндпоинтам
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class HitsResult {
+    //Количество принятых записей
+    private Integer accepted;
+}
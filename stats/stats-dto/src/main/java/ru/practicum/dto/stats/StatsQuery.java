@@ -0,0 +1,28 @@
+package ru.practicum.dto.stats;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Запрос статистики в теле POST /stats/query, для наборов uri, не помещающихся в строку запроса
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StatsQuery {
+    //Дата и время начала диапазона в формате yyyy-MM-dd HH:mm:ss
+    private String start;
+    //Дата и время конца диапазона в формате yyyy-MM-dd HH:mm:ss
+    private String end;
+    //Список uri, null - все uri
+    private List<String> uris;
+    //Нужно ли учитывать только уникальные посещения
+    private Boolean unique;
+    //Точный подсчет уникальных посещений вместо оценки
+    private Boolean exact;
+}
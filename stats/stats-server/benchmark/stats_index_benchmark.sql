@@ -0,0 +1,72 @@
+-- Сравнение времени запроса уникальной статистики по списку uri (getStatsForUriUnique)
+-- до и после индексов stats_uri_timestamp_idx и stats_timestamp_brin_idx.
+-- Скрипт работает в отдельной схеме stats_bench и не затрагивает рабочие таблицы.
+-- Запуск: psql -h localhost -U kitty -d postgres -f benchmark/stats_index_benchmark.sql
+
+\timing on
+DROP SCHEMA IF EXISTS stats_bench CASCADE;
+CREATE SCHEMA stats_bench;
+SET search_path = stats_bench;
+
+CREATE TABLE stats (
+id BIGSERIAL NOT NULL,
+app_id INTEGER NOT NULL,
+uri_id INTEGER NOT NULL,
+ip BYTEA NOT NULL,
+timestamp TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+CONSTRAINT pk_stats PRIMARY KEY (id, timestamp)
+) PARTITION BY RANGE (timestamp);
+
+-- секции по дням за 30 дней
+DO $$
+BEGIN
+    FOR d IN 0..29 LOOP
+        EXECUTE format('CREATE TABLE stats_p%s PARTITION OF stats FOR VALUES FROM (%L) TO (%L)',
+                       to_char(DATE '2026-01-01' + d, 'YYYYMMDD'), DATE '2026-01-01' + d, DATE '2026-01-01' + d + 1);
+    END LOOP;
+END $$;
+
+-- 10 млн запросов: 1 сервис, 50 000 uri с распределением, близким к степенному, 200 000 ip
+INSERT INTO stats (app_id, uri_id, ip, timestamp)
+SELECT 1,
+       (floor(50000 * power(random(), 3)))::INTEGER + 1,
+       int4send((floor(random() * 200000))::INTEGER),
+       TIMESTAMP '2026-01-01' + random() * INTERVAL '30 days'
+FROM generate_series(1, 10000000);
+VACUUM ANALYZE stats;
+
+-- до: без индексов, прежний вид запроса
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT app_id, uri_id, COUNT(DISTINCT ip) AS hits FROM stats
+WHERE uri_id IN (1, 2, 3, 10, 100, 1000, 10000)
+  AND timestamp BETWEEN '2026-01-05 00:00:00' AND '2026-01-20 00:00:00'
+GROUP BY app_id, uri_id ORDER BY hits DESC;
+
+CREATE INDEX stats_uri_timestamp_idx ON stats (uri_id, timestamp) INCLUDE (app_id, ip);
+CREATE INDEX stats_timestamp_brin_idx ON stats USING BRIN (timestamp);
+-- карта видимости нужна для сканирования только индекса
+VACUUM ANALYZE stats;
+
+-- после: прежний вид запроса с индексами
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT app_id, uri_id, COUNT(DISTINCT ip) AS hits FROM stats
+WHERE uri_id IN (1, 2, 3, 10, 100, 1000, 10000)
+  AND timestamp BETWEEN '2026-01-05 00:00:00' AND '2026-01-20 00:00:00'
+GROUP BY app_id, uri_id ORDER BY hits DESC;
+
+-- после: запрос StateRepositoryImpl.getStatsForUriUnique
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT app_id, uri_id, COUNT(*) AS hits FROM (
+    SELECT DISTINCT app_id, uri_id, ip FROM stats
+    WHERE timestamp BETWEEN '2026-01-05 00:00:00' AND '2026-01-20 00:00:00'
+      AND uri_id IN (1, 2, 3, 10, 100, 1000, 10000)) AS u
+GROUP BY app_id, uri_id ORDER BY hits DESC;
+
+-- запрос без списка uri использует отсечение секций и BRIN-индекс
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT app_id, uri_id, COUNT(*) AS hits FROM stats
+WHERE timestamp BETWEEN '2026-01-05 00:00:00' AND '2026-01-06 00:00:00'
+GROUP BY app_id, uri_id ORDER BY hits DESC;
+
+RESET search_path;
+DROP SCHEMA stats_bench CASCADE;
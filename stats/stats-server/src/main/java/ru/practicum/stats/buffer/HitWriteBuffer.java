@@ -0,0 +1,218 @@
+package ru.practicum.stats.buffer;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.stats.exeption.ServiceUnavailableException;
+import ru.practicum.stats.model.Stats;
+import ru.practicum.stats.service.StatsWriter;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ограниченный буфер отложенной записи статистики.
+ * Запросы подтверждаются сразу после помещения в буфер, фоновый поток сбрасывает записи в б/д
+ * пакетами по batch-size штук или по истечении flush-interval-ms с момента первой записи пакета.
+ * Неудачная запись пакета повторяется до flush-retries раз с удваивающейся паузой от retry-backoff-ms,
+ * места пакета в буфере остаются занятыми, пока он не сохранен или не отброшен.
+ */
+@Slf4j
+@Component
+public class HitWriteBuffer {
+    private final StatsWriter writer;
+    private final boolean enabled;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final OverflowPolicy overflowPolicy;
+    private final int flushRetries;
+    private final long retryBackoffMs;
+    private final BlockingQueue<Stats> queue;
+    //свободные места в буфере, резервируются целиком на весь пакет
+    private final Semaphore slots;
+    private final Timer flushTimer;
+    private final Counter rejectedCounter;
+    private final Counter droppedCounter;
+    private final Counter failedCounter;
+    private volatile boolean running;
+    private Thread flusher;
+
+    public HitWriteBuffer(StatsWriter writer,
+                          MeterRegistry meterRegistry,
+                          @Value("${stats.buffer.enabled:false}") boolean enabled,
+                          @Value("${stats.buffer.capacity:10000}") int capacity,
+                          @Value("${stats.buffer.batch-size:500}") int batchSize,
+                          @Value("${stats.buffer.flush-interval-ms:200}") long flushIntervalMs,
+                          @Value("${stats.buffer.overflow:REJECT}") OverflowPolicy overflowPolicy,
+                          @Value("${stats.buffer.flush-retries:3}") int flushRetries,
+                          @Value("${stats.buffer.retry-backoff-ms:100}") long retryBackoffMs) {
+        this.writer = writer;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.flushIntervalMs = flushIntervalMs;
+        this.overflowPolicy = overflowPolicy;
+        this.flushRetries = flushRetries;
+        this.retryBackoffMs = retryBackoffMs;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.slots = new Semaphore(capacity);
+        Gauge.builder("stats.buffer.depth", queue, BlockingQueue::size)
+                .description("Количество записей, ожидающих сохранения")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("stats.buffer.flush")
+                .description("Время сохранения пакета из буфера")
+                .register(meterRegistry);
+        this.rejectedCounter = meterRegistry.counter("stats.buffer.overflow", "policy", "reject");
+        this.droppedCounter = meterRegistry.counter("stats.buffer.overflow", "policy", "drop");
+        this.failedCounter = meterRegistry.counter("stats.buffer.failed");
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * метод помещения записей в буфер
+     *
+     * @param stats - список записей статистики
+     * @return - количество принятых записей
+     */
+    public int offer(List<Stats> stats) {
+        int accepted = stats.size();
+        if (!slots.tryAcquire(accepted)) {
+            if (overflowPolicy == OverflowPolicy.REJECT) {
+                rejectedCounter.increment(accepted);
+                throw new ServiceUnavailableException("Буфер отложенной записи статистики переполнен");
+            }
+            int free = slots.drainPermits();
+            if (free > accepted) {
+                slots.release(free - accepted);
+            }
+            accepted = Math.min(accepted, free);
+            droppedCounter.increment(stats.size() - accepted);
+        }
+        for (int i = 0; i < accepted; i++) {
+            queue.add(stats.get(i));
+        }
+        return accepted;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        flusher = new Thread(this::runFlusher, "stats-buffer-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+        log.info("Буфер отложенной записи статистики запущен");
+    }
+
+    /**
+     * сброс оставшихся записей при остановке приложения
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        if (!enabled) {
+            return;
+        }
+        running = false;
+        flusher.interrupt();
+        flusher.join(TimeUnit.SECONDS.toMillis(10));
+        if (flusher.isAlive()) {
+            //поток еще сохраняет пакет, параллельный сброс очереди мог бы записать ее в обход него
+            log.error("Буфер отложенной записи статистики не остановлен за 10 с, не сохранено {} записей",
+                    queue.size());
+            return;
+        }
+        List<Stats> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            flush(batch);
+        }
+        log.info("Буфер отложенной записи статистики остановлен");
+    }
+
+    private void runFlusher() {
+        List<Stats> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                Stats first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long left = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || left <= 0) {
+                        break;
+                    }
+                    Stats next = queue.poll(left, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        //записи, взятые из очереди до прерывания, сохраняются здесь, остальные - в shutdown()
+        if (!batch.isEmpty()) {
+            flush(batch);
+        }
+    }
+
+    private void flush(List<Stats> batch) {
+        int size = batch.size();
+        long backoffMs = retryBackoffMs;
+        try {
+            for (int attempt = 0; ; attempt++) {
+                try {
+                    flushTimer.record(() -> writer.write(batch));
+                    return;
+                } catch (RuntimeException e) {
+                    if (attempt >= flushRetries || !pause(backoffMs)) {
+                        failedCounter.increment(size);
+                        log.error("Не удалось сохранить пакет статистики из {} записей", size, e);
+                        return;
+                    }
+                    log.warn("Не удалось сохранить пакет статистики из {} записей, повтор через {} мс: {}",
+                            size, backoffMs, e.getMessage());
+                    backoffMs *= 2;
+                }
+            }
+        } finally {
+            batch.clear();
+            slots.release(size);
+        }
+    }
+
+    /**
+     * пауза перед повтором записи, при остановке приложения повторы прекращаются
+     *
+     * @return - false, если поток был прерван
+     */
+    private boolean pause(long ms) {
+        try {
+            Thread.sleep(ms);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package ru.practicum.stats.buffer;
+
+/**
+ * Поведение буфера статистики при переполнении
+ */
+public enum OverflowPolicy {
+    //отклонить запрос целиком, клиент получит ошибку 503
+    REJECT,
+    //принять то, что помещается в буфер, остальное отбросить
+    DROP
+}
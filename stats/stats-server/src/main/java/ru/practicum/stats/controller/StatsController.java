@@ -1,26 +1,55 @@
 package ru.practicum.stats.controller;
 
-import lombok.RequiredArgsConstructor;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.practicum.dto.stats.EndpointHit;
+import ru.practicum.dto.stats.HitsResult;
+import ru.practicum.dto.stats.StatsQuery;
 import ru.practicum.dto.stats.ViewStats;
+import ru.practicum.stats.exeption.ValidationException;
+import ru.practicum.stats.mapper.Mapper;
+import ru.practicum.stats.rollup.Granularity;
+import ru.practicum.stats.service.HistogramStream;
 import ru.practicum.stats.service.StatsService;
 
+import javax.validation.Valid;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
  * класс контроллер для обработки запросов статистики
  */
 @Slf4j
+@Validated
 @RestController
-@RequiredArgsConstructor
 public class StatsController {
+    private static final String APPLICATION_NDJSON = "application/x-ndjson";
 
     private final StatsService statsService;
+    private final ObjectMapper objectMapper;
+    private final int maxBatchSize;
+
+    public StatsController(StatsService statsService,
+                           ObjectMapper objectMapper,
+                           @Value("${stats.hits.max-batch-size:1000}") int maxBatchSize) {
+        this.statsService = statsService;
+        this.objectMapper = objectMapper;
+        this.maxBatchSize = maxBatchSize;
+    }
 
     /**
      * метод добавления статистики
@@ -29,11 +58,50 @@ public class StatsController {
      */
     @PostMapping("/hit")
     @ResponseStatus(HttpStatus.CREATED)
-    public void hit(@RequestBody EndpointHit endpointHit) {
+    public void hit(@Valid @RequestBody EndpointHit endpointHit) {
         log.info("Информация сохранена {}", endpointHit);
         statsService.add(endpointHit);
     }
 
+    /**
+     * метод пакетного добавления статистики, пакет больше stats.hits.max-batch-size отклоняется целиком
+     *
+     * @param endpointHits - массив Stats в формате EndpointHit
+     * @return - количество принятых записей
+     */
+    @PostMapping(value = "/hits", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseStatus(HttpStatus.CREATED)
+    public HitsResult hits(@RequestBody List<@Valid EndpointHit> endpointHits) {
+        if (endpointHits.size() > maxBatchSize) {
+            throw batchTooLarge();
+        }
+        log.info("Получен пакет статистики из {} записей", endpointHits.size());
+        return new HitsResult(statsService.addAll(endpointHits));
+    }
+
+    /**
+     * метод пакетного добавления статистики в формате NDJSON (одна запись EndpointHit на строку),
+     * чтение прекращается, как только записей становится больше stats.hits.max-batch-size
+     *
+     * @param body - поток записей в формате EndpointHit
+     * @return - количество принятых записей
+     */
+    @PostMapping(value = "/hits", consumes = APPLICATION_NDJSON)
+    @ResponseStatus(HttpStatus.CREATED)
+    public HitsResult hitsStream(InputStream body) throws IOException {
+        List<EndpointHit> endpointHits = new ArrayList<>();
+        try (MappingIterator<EndpointHit> iterator = objectMapper.readerFor(EndpointHit.class).readValues(body)) {
+            while (iterator.hasNextValue()) {
+                if (endpointHits.size() == maxBatchSize) {
+                    throw batchTooLarge();
+                }
+                endpointHits.add(iterator.nextValue());
+            }
+        }
+        log.info("Получен поток статистики из {} записей", endpointHits.size());
+        return new HitsResult(statsService.addAll(endpointHits));
+    }
+
     /**
      * метод возвращающий статистику в определенный промежуток времени,
      *
@@ -41,6 +109,7 @@ public class StatsController {
      * @param end    - Дата и время конца диапазона за который нужно выгрузить статистику
      * @param uris   - Список uri для которых нужно выгрузить статистику
      * @param unique Нужно ли учитывать только уникальные посещения (только с уникальным ip)
+     * @param exact  - точный подсчет уникальных посещений вместо оценки HyperLogLog (ошибка оценки ~1.6%)
      * @return
      */
     @GetMapping("/stats")
@@ -48,9 +117,86 @@ public class StatsController {
     public List<ViewStats> getStats(@RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime start,
                                     @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime end,
                                     @RequestParam(required = false) List<String> uris,
-                                    @RequestParam(defaultValue = "false") Boolean unique) {
+                                    @RequestParam(defaultValue = "false") Boolean unique,
+                                    @RequestParam(defaultValue = "false") Boolean exact) {
         log.info("Выполнен запрос на получение статистики с {} по {}", start, end);
-        return statsService.getStats(start, end, uris, unique);
+        return statsService.getStats(start, end, uris, unique, exact);
+    }
+
+    /**
+     * метод возвращающий статистику по запросу в теле, результат тот же, что у GET /stats
+     *
+     * @param query - диапазон, список uri и флаги unique, exact
+     * @return
+     */
+    @PostMapping(value = "/stats/query", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseStatus(HttpStatus.OK)
+    public List<ViewStats> queryStats(@RequestBody StatsQuery query) {
+        log.info("Выполнен запрос на получение статистики с {} по {} для {} uri", query.getStart(), query.getEnd(),
+                query.getUris() == null ? "всех" : query.getUris().size());
+        return statsService.getStats(Mapper.toDateTime(query.getStart()), Mapper.toDateTime(query.getEnd()),
+                query.getUris(),
+                Boolean.TRUE.equals(query.getUnique()),
+                Boolean.TRUE.equals(query.getExact()));
+    }
+
+    /**
+     * метод возвращающий самые посещаемые uri в определенный промежуток времени
+     *
+     * @param n      - количество uri
+     * @param start  - Дата и время начала диапазона
+     * @param end    - Дата и время конца диапазона
+     * @param unique - Нужно ли учитывать только уникальные посещения (только с уникальным ip)
+     * @return - не больше n записей статистики по убыванию количества посещений
+     */
+    @GetMapping("/stats/top")
+    @ResponseStatus(HttpStatus.OK)
+    public List<ViewStats> getTop(@RequestParam(defaultValue = "10") Integer n,
+                                  @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime start,
+                                  @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime end,
+                                  @RequestParam(defaultValue = "false") Boolean unique) {
+        log.info("Выполнен запрос на получение топ {} uri с {} по {}", n, start, end);
+        return statsService.getTop(start, end, n, unique);
+    }
+
+    /**
+     * метод возвращающий гистограмму посещений uri по корзинам фиксированного размера,
+     * корзины записываются в ответ по мере чтения из б/д
+     *
+     * @param start       - Дата и время начала диапазона
+     * @param end         - Дата и время конца диапазона
+     * @param uris        - Список uri для которых нужно построить гистограмму
+     * @param granularity - размер корзины: MINUTE, HOUR или DAY
+     * @param unique      - Нужно ли считать также уникальные посещения (только с уникальным ip)
+     * @return - массив HistogramBucket по возрастанию начала корзины
+     */
+    @GetMapping("/stats/histogram")
+    public ResponseEntity<StreamingResponseBody> getHistogram(
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime start,
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime end,
+            @RequestParam(required = false) List<String> uris,
+            @RequestParam(defaultValue = "HOUR") Granularity granularity,
+            @RequestParam(defaultValue = "false") Boolean unique) {
+        log.info("Выполнен запрос на получение гистограммы с {} по {}", start, end);
+        HistogramStream histogram = statsService.getHistogram(start, end, uris, granularity, unique);
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.writeStartArray();
+                histogram.forEach(bucket -> {
+                    try {
+                        generator.writeObject(bucket);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                generator.writeEndArray();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    private ValidationException batchTooLarge() {
+        return new ValidationException(String.format("Пакет статистики больше %d записей", maxBatchSize));
     }
 
 
@@ -0,0 +1,19 @@
+package ru.practicum.stats.dictionary;
+
+/**
+ * Словари статистики и их таблицы
+ */
+public enum DictionaryKind {
+    APP("stats_app"),
+    URI("stats_uri");
+
+    private final String table;
+
+    DictionaryKind(String table) {
+        this.table = table;
+    }
+
+    public String getTable() {
+        return table;
+    }
+}
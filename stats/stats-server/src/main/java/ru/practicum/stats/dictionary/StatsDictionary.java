@@ -0,0 +1,110 @@
+package ru.practicum.stats.dictionary;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import ru.practicum.dto.stats.ViewStats;
+import ru.practicum.stats.model.HitCount;
+import ru.practicum.stats.model.Stats;
+import ru.practicum.stats.repository.DictionaryRepository;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Словари app и uri статистики: записи хранят целочисленные идентификаторы вместо строк.
+ * Значения словарей никогда не удаляются и не меняются, поэтому кэшируются в памяти без ограничения срока
+ */
+@Component
+@RequiredArgsConstructor
+public class StatsDictionary {
+    private final DictionaryRepository dictionaryRepository;
+    private final Map<DictionaryKind, Map<String, Integer>> ids = newCache();
+    private final Map<DictionaryKind, Map<Integer, String>> names = newCache();
+
+    /**
+     * метод заполнения идентификаторов app и uri у записей статистики, отсутствующие значения добавляются в словари
+     *
+     * @param stats - записи статистики
+     */
+    public void encode(List<Stats> stats) {
+        Map<String, Integer> appIds = resolve(DictionaryKind.APP, stats, Stats::getApp);
+        Map<String, Integer> uriIds = resolve(DictionaryKind.URI, stats, Stats::getUri);
+        for (Stats hit : stats) {
+            hit.setAppId(appIds.get(hit.getApp()));
+            hit.setUriId(uriIds.get(hit.getUri()));
+        }
+    }
+
+    /**
+     * @param uris - список uri
+     * @return - идентификаторы uri, которые есть в словаре, uri без записей статистики пропускаются
+     */
+    public List<Integer> findUriIds(List<String> uris) {
+        Map<String, Integer> cached = ids.get(DictionaryKind.URI);
+        Set<String> missing = uris.stream().filter(uri -> !cached.containsKey(uri)).collect(Collectors.toSet());
+        if (!missing.isEmpty()) {
+            cache(DictionaryKind.URI, dictionaryRepository.findIds(DictionaryKind.URI, missing));
+        }
+        return uris.stream().map(cached::get).filter(Objects::nonNull).distinct().collect(Collectors.toList());
+    }
+
+    /**
+     * метод замены идентификаторов app и uri их значениями, порядок записей сохраняется
+     */
+    public List<ViewStats> toViewStats(List<HitCount> counts) {
+        Map<Integer, String> apps = findNames(DictionaryKind.APP, counts.stream()
+                .map(HitCount::getAppId).collect(Collectors.toSet()));
+        Map<Integer, String> uris = findNames(DictionaryKind.URI, counts.stream()
+                .map(HitCount::getUriId).collect(Collectors.toSet()));
+        return counts.stream()
+                .map(count -> new ViewStats(apps.get(count.getAppId()), uris.get(count.getUriId()), count.getHits()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * @return - значение словаря по идентификатору
+     */
+    public String name(DictionaryKind kind, Integer id) {
+        return findNames(kind, Set.of(id)).get(id);
+    }
+
+    private Map<String, Integer> resolve(DictionaryKind kind, List<Stats> stats, Function<Stats, String> value) {
+        Map<String, Integer> cached = ids.get(kind);
+        Set<String> missing = stats.stream().map(value).filter(name -> !cached.containsKey(name))
+                .collect(Collectors.toSet());
+        if (!missing.isEmpty()) {
+            cache(kind, dictionaryRepository.resolve(kind, missing));
+        }
+        return cached;
+    }
+
+    private Map<Integer, String> findNames(DictionaryKind kind, Set<Integer> keys) {
+        Map<Integer, String> cached = names.get(kind);
+        Set<Integer> missing = keys.stream().filter(id -> !cached.containsKey(id)).collect(Collectors.toSet());
+        if (!missing.isEmpty()) {
+            dictionaryRepository.findNames(kind, missing).forEach((id, name) -> cache(kind, Map.of(name, id)));
+        }
+        return cached;
+    }
+
+    private void cache(DictionaryKind kind, Map<String, Integer> values) {
+        values.forEach((name, id) -> {
+            ids.get(kind).put(name, id);
+            names.get(kind).put(id, name);
+        });
+    }
+
+    private static <K, V> Map<DictionaryKind, Map<K, V>> newCache() {
+        Map<DictionaryKind, Map<K, V>> cache = new EnumMap<>(DictionaryKind.class);
+        for (DictionaryKind kind : DictionaryKind.values()) {
+            cache.put(kind, new ConcurrentHashMap<>());
+        }
+        return cache;
+    }
+}
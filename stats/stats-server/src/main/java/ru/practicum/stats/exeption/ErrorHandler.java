@@ -1,11 +1,16 @@
 package ru.practicum.stats.exeption;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
+import javax.validation.ConstraintViolationException;
+
 @RestControllerAdvice
 @Slf4j
 public class ErrorHandler {
@@ -19,6 +24,26 @@ public class ErrorHandler {
         return new ErrorResponse(e.getMessage());
     }
 
+    /**
+     * метод обработки ошибок проверки тела запроса (@Valid), возвращающий ошибку 400
+     */
+    @ExceptionHandler({MethodArgumentNotValidException.class, ConstraintViolationException.class})
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ErrorResponse handleConstraintViolation(final Exception e) {
+        log.info("Произошла ошибка 400 при проверке тела запроса");
+        return new ErrorResponse(e.getMessage());
+    }
+
+    /**
+     * метод обработки нечитаемого тела запроса (в том числе строки NDJSON), возвращающий ошибку 400
+     */
+    @ExceptionHandler({HttpMessageNotReadableException.class, JsonProcessingException.class})
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ErrorResponse handleNotReadable(final Exception e) {
+        log.info("Произошла ошибка 400 при разборе тела запроса");
+        return new ErrorResponse(e.getMessage());
+    }
+
     /**
      * метод обработки исключения, возвращающий getMessage() и ошибку 404
      */
@@ -28,4 +53,14 @@ public class ErrorHandler {
         log.info("Произошла ошибка 404 при поиске переданных параметров в хранилище");
         return new ErrorResponse(e.getMessage());
     }
+
+    /**
+     * метод обработки исключения, возвращающий getMessage() и ошибку 503
+     */
+    @ExceptionHandler
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public ErrorResponse handleServiceUnavailableException(final ServiceUnavailableException e) {
+        log.info("Произошла ошибка 503: {}", e.getMessage());
+        return new ErrorResponse(e.getMessage());
+    }
 }
@@ -0,0 +1,7 @@
+package ru.practicum.stats.exeption;
+
+public class ServiceUnavailableException extends RuntimeException {
+    public ServiceUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,325 @@
+package ru.practicum.stats.hitlog;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.stats.exeption.ServiceUnavailableException;
+import ru.practicum.stats.model.Stats;
+import ru.practicum.stats.repository.HitLogCheckpointRepository;
+import ru.practicum.stats.service.StatsWriter;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Журнал запросов: записи статистики дописываются в сегменты, отображенные в память, и подтверждаются
+ * сразу после этого. Фоновый поток переносит записи в б/д пакетами через {@link StatsWriter} и в той же
+ * транзакции сохраняет позицию журнала, поэтому после перезапуска перенос продолжается с нее
+ * без потерь и повторов. Полностью перенесенные сегменты удаляются.
+ * <p>
+ * Записи переживают падение процесса, так как остаются в страничном кэше ОС. Для сохранности
+ * при сбое самой ОС нужен force-on-append=true, каждая запись тогда сбрасывается на диск.
+ */
+@Slf4j
+@Component
+public class HitLog {
+    private final StatsWriter writer;
+    private final HitLogCheckpointRepository checkpointRepository;
+    private final boolean enabled;
+    private final Path dir;
+    private final int segmentSize;
+    private final int maxSegments;
+    private final int batchSize;
+    private final long compactIntervalMs;
+    private final boolean forceOnAppend;
+    private final Counter failedCounter;
+    private final ConcurrentNavigableMap<Long, HitLogSegment> segments = new ConcurrentSkipListMap<>();
+    private HitLogSegment appendSegment;
+    private int appendOffset;
+    //позиция после последней полностью записанной записи, дальше нее перенос не читает
+    private volatile HitLogPosition written;
+    //позиция, до которой записи перенесены в б/д
+    private HitLogPosition compacted;
+    private volatile boolean running;
+    private Thread compactor;
+
+    public HitLog(StatsWriter writer,
+                  HitLogCheckpointRepository checkpointRepository,
+                  MeterRegistry meterRegistry,
+                  @Value("${stats.hitlog.enabled:false}") boolean enabled,
+                  @Value("${stats.hitlog.dir:hitlog}") String dir,
+                  @Value("${stats.hitlog.segment-size-mb:64}") int segmentSizeMb,
+                  @Value("${stats.hitlog.max-segments:32}") int maxSegments,
+                  @Value("${stats.hitlog.compact-batch-size:5000}") int batchSize,
+                  @Value("${stats.hitlog.compact-interval-ms:200}") long compactIntervalMs,
+                  @Value("${stats.hitlog.force-on-append:false}") boolean forceOnAppend) {
+        this.writer = writer;
+        this.checkpointRepository = checkpointRepository;
+        this.enabled = enabled;
+        this.dir = Paths.get(dir);
+        this.segmentSize = segmentSizeMb * 1024 * 1024;
+        this.maxSegments = maxSegments;
+        this.batchSize = batchSize;
+        this.compactIntervalMs = compactIntervalMs;
+        this.forceOnAppend = forceOnAppend;
+        Gauge.builder("stats.hitlog.segments", segments, Map::size)
+                .description("Количество сегментов журнала запросов")
+                .register(meterRegistry);
+        this.failedCounter = meterRegistry.counter("stats.hitlog.failed");
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            Files.createDirectories(dir);
+            try (Stream<Path> files = Files.list(dir)) {
+                for (Path file : files.filter(f -> f.getFileName().toString().matches("segment-\\d+\\.log"))
+                        .collect(Collectors.toList())) {
+                    long index = HitLogSegment.parseIndex(file);
+                    segments.put(index, HitLogSegment.open(dir, index, segmentSize));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось открыть журнал запросов " + dir, e);
+        }
+        compacted = checkpointRepository.find();
+        if (compacted == null) {
+            compacted = new HitLogPosition(segments.isEmpty() ? 0 : segments.firstKey(), 0);
+        } else if (segments.isEmpty()) {
+            //каталог журнала очищен: неперенесенных записей нет, перенос начинается с начала нового сегмента
+            if (compacted.getOffset() > 0) {
+                log.warn("Каталог журнала запросов {} пуст, позиция переноса {} сброшена", dir, compacted);
+                compacted = new HitLogPosition(compacted.getSegment() + 1, 0);
+                checkpointRepository.save(compacted);
+            }
+        } else {
+            checkCheckpoint();
+        }
+        removeSegmentsBefore(compacted.getSegment());
+        if (segments.isEmpty()) {
+            appendSegment = HitLogSegment.open(dir, compacted.getSegment(), segmentSize);
+            segments.put(appendSegment.getIndex(), appendSegment);
+        } else {
+            appendSegment = segments.lastEntry().getValue();
+        }
+        //недописанная при сбое запись в конце сегмента отбрасывается и будет перезаписана
+        appendOffset = appendSegment.scanEnd();
+        appendSegment.terminate(appendOffset);
+        written = new HitLogPosition(appendSegment.getIndex(), appendOffset);
+        log.info("Журнал запросов открыт: сегментов {}, перенос продолжится с {}", segments.size(), compacted);
+        running = true;
+        compactor = new Thread(this::compactLoop, "stats-hitlog-compactor");
+        compactor.setDaemon(true);
+        compactor.start();
+    }
+
+    /**
+     * метод добавления записей в журнал
+     *
+     * @param stats - список записей статистики
+     * @return - количество принятых записей
+     */
+    public int append(List<Stats> stats) {
+        List<ByteBuffer> records = stats.stream().map(HitLogSegment::encode).collect(Collectors.toList());
+        synchronized (this) {
+            //место под весь пакет выделяется до записи: пакет принимается или отклоняется целиком,
+            //чтобы повтор отклоненного запроса клиентом не привел к задвоению
+            List<HitLogSegment> reserved = reserve(records);
+            HitLogSegment startSegment = appendSegment;
+            int startOffset = appendOffset;
+            try {
+                Iterator<HitLogSegment> next = reserved.iterator();
+                for (ByteBuffer record : records) {
+                    int end = appendSegment.append(appendOffset, record, forceOnAppend);
+                    if (end < 0) {
+                        appendSegment.force();
+                        appendSegment = next.next();
+                        appendOffset = 0;
+                        end = appendSegment.append(appendOffset, record, forceOnAppend);
+                    }
+                    appendOffset = end;
+                }
+            } catch (RuntimeException e) {
+                //позиция written не сдвигалась, поэтому записанная часть пакета не будет перенесена
+                appendSegment = startSegment;
+                appendOffset = startOffset;
+                startSegment.terminate(startOffset);
+                release(reserved);
+                throw e;
+            }
+            written = new HitLogPosition(appendSegment.getIndex(), appendOffset);
+        }
+        return records.size();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (!enabled) {
+            return;
+        }
+        running = false;
+        compactor.interrupt();
+        try {
+            compactor.join(compactIntervalMs * 10);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        segments.values().forEach(HitLogSegment::force);
+    }
+
+    /**
+     * метод выделения новых сегментов, в которые продолжится запись пакета
+     *
+     * @return - открытые сегменты в порядке записи
+     */
+    private List<HitLogSegment> reserve(List<ByteBuffer> records) {
+        List<HitLogSegment> reserved = new ArrayList<>();
+        long index = appendSegment.getIndex();
+        int capacity = appendSegment.capacity();
+        int offset = appendOffset;
+        try {
+            for (ByteBuffer record : records) {
+                if (offset + record.remaining() + Integer.BYTES > capacity) {
+                    if (segments.size() >= maxSegments) {
+                        throw new ServiceUnavailableException("Журнал запросов переполнен: заняты все " + maxSegments +
+                                " сегментов, перенос в б/д отстает");
+                    }
+                    HitLogSegment segment = HitLogSegment.open(dir, ++index, segmentSize);
+                    reserved.add(segment);
+                    segments.put(segment.getIndex(), segment);
+                    capacity = segment.capacity();
+                    offset = 0;
+                }
+                offset += record.remaining();
+            }
+        } catch (RuntimeException e) {
+            release(reserved);
+            throw e;
+        }
+        return reserved;
+    }
+
+    private void release(List<HitLogSegment> reserved) {
+        for (HitLogSegment segment : reserved) {
+            segments.remove(segment.getIndex());
+            segment.delete();
+        }
+    }
+
+    /**
+     * метод проверки сохраненной позиции переноса по сегментам на диске: если каталог журнала заменен
+     * или сегменты удалены вручную, продолжение с этой позиции потеряло бы или задвоило записи
+     */
+    private void checkCheckpoint() {
+        HitLogSegment segment = segments.get(compacted.getSegment());
+        if (segment == null) {
+            throw new IllegalStateException(String.format("Позиция переноса %s не соответствует сегментам " +
+                    "журнала запросов %d-%d в %s", compacted, segments.firstKey(), segments.lastKey(), dir));
+        }
+        int end = segment.scanEnd();
+        if (compacted.getOffset() > end) {
+            throw new IllegalStateException(String.format("Позиция переноса %s за концом записей сегмента %d " +
+                    "журнала запросов в %s (%d)", compacted, segment.getIndex(), dir, end));
+        }
+    }
+
+    private void compactLoop() {
+        while (running) {
+            try {
+                if (!compactBatch()) {
+                    Thread.sleep(compactIntervalMs);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                failedCounter.increment();
+                log.error("Не удалось перенести записи журнала с позиции {}", compacted, e);
+                try {
+                    Thread.sleep(compactIntervalMs);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * метод переноса очередного пакета записей в б/д
+     *
+     * @return - true, если записи были перенесены
+     */
+    private boolean compactBatch() {
+        HitLogPosition limit = written;
+        List<Stats> batch = new ArrayList<>();
+        long segmentIndex = compacted.getSegment();
+        int offset = compacted.getOffset();
+        while (batch.size() < batchSize) {
+            HitLogSegment segment = segments.get(segmentIndex);
+            if (segment == null) {
+                if (segmentIndex >= limit.getSegment()) {
+                    break;
+                }
+                segmentIndex++;
+                offset = 0;
+                continue;
+            }
+            boolean last = segmentIndex == limit.getSegment();
+            Stats hit = segment.read(offset, last ? limit.getOffset() : segment.capacity());
+            if (hit != null) {
+                batch.add(hit);
+                offset += segment.recordLength(offset);
+            } else if (last) {
+                break;
+            } else {
+                //сегмент закончился: конец записей или поврежденный при сбое хвост
+                segmentIndex++;
+                offset = 0;
+            }
+        }
+        HitLogPosition next = new HitLogPosition(segmentIndex, offset);
+        if (next.equals(compacted)) {
+            return false;
+        }
+        if (!batch.isEmpty()) {
+            writer.write(batch, () -> checkpointRepository.save(next));
+        } else {
+            checkpointRepository.save(next);
+        }
+        compacted = next;
+        removeSegmentsBefore(next.getSegment());
+        return true;
+    }
+
+    private void removeSegmentsBefore(long index) {
+        for (HitLogSegment segment : new ArrayList<>(segments.headMap(index).values())) {
+            segments.remove(segment.getIndex());
+            segment.delete();
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package ru.practicum.stats.hitlog;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Позиция в журнале запросов: номер сегмента и смещение в нем
+ */
+@Data
+@AllArgsConstructor
+public class HitLogPosition {
+    private long segment;
+    private int offset;
+}
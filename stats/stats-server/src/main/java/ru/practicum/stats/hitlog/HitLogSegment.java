@@ -0,0 +1,192 @@
+package ru.practicum.stats.hitlog;
+
+import ru.practicum.stats.exeption.ValidationException;
+import ru.practicum.stats.model.Stats;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.zip.CRC32;
+
+/**
+ * Сегмент журнала запросов: файл фиксированного размера, отображенный в память.
+ * <p>
+ * Формат записи: длина данных (int), CRC32 данных (int), данные: время запроса в секундах (long),
+ * ip (длина byte и байты), app и uri (длина short и байты UTF-8). Нулевая длина означает конец записей,
+ * запись с неверной контрольной суммой - недописанный при сбое хвост сегмента.
+ */
+class HitLogSegment {
+    private static final int HEADER = Integer.BYTES * 2;
+    private static final int MAX_VALUE_LENGTH = 125;
+
+    private final long index;
+    private final Path file;
+    private final MappedByteBuffer buffer;
+
+    private HitLogSegment(long index, Path file, MappedByteBuffer buffer) {
+        this.index = index;
+        this.file = file;
+        this.buffer = buffer;
+    }
+
+    static HitLogSegment open(Path dir, long index, int size) {
+        Path file = dir.resolve(String.format("segment-%020d.log", index));
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            long length = Math.max(channel.size(), size);
+            return new HitLogSegment(index, file, channel.map(FileChannel.MapMode.READ_WRITE, 0, length));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось открыть сегмент журнала " + file, e);
+        }
+    }
+
+    static long parseIndex(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring("segment-".length(), name.length() - ".log".length()));
+    }
+
+    /**
+     * метод кодирования записи статистики, проверяет ограничения таблиц б/д, чтобы запись
+     * не остановила перенос журнала
+     */
+    static ByteBuffer encode(Stats hit) {
+        byte[] app = value(hit.getApp(), "app");
+        byte[] uri = value(hit.getUri(), "uri");
+        byte[] ip = hit.getIp();
+        ByteBuffer payload = ByteBuffer.allocate(Long.BYTES + 1 + ip.length + Short.BYTES * 2 + app.length + uri.length);
+        payload.putLong(hit.getTimestamp().toEpochSecond(ZoneOffset.UTC))
+                .put((byte) ip.length).put(ip)
+                .putShort((short) app.length).put(app)
+                .putShort((short) uri.length).put(uri);
+        CRC32 crc = new CRC32();
+        crc.update(payload.array());
+        ByteBuffer record = ByteBuffer.allocate(HEADER + payload.capacity());
+        record.putInt(payload.capacity()).putInt((int) crc.getValue()).put(payload.array()).flip();
+        return record;
+    }
+
+    /**
+     * метод добавления записи
+     *
+     * @return - смещение после записи или -1, если в сегменте не хватает места
+     */
+    int append(int offset, ByteBuffer record, boolean force) {
+        //после записи должно остаться место под нулевую длину - признак конца сегмента
+        if (offset + record.remaining() + Integer.BYTES > buffer.capacity()) {
+            return -1;
+        }
+        int length = record.remaining();
+        buffer.duplicate().position(offset).put(record);
+        //признак конца записей закрывает оставшиеся после отката или сбоя данные
+        buffer.putInt(offset + length, 0);
+        if (force) {
+            buffer.force();
+        }
+        return offset + length;
+    }
+
+    /**
+     * метод чтения записи
+     *
+     * @param offset - смещение записи
+     * @param limit  - граница записанных данных
+     * @return - запись или null, если записей больше нет или запись повреждена
+     */
+    Stats read(int offset, int limit) {
+        if (offset + HEADER > limit) {
+            return null;
+        }
+        ByteBuffer view = buffer.duplicate();
+        view.position(offset);
+        int length = view.getInt();
+        int checksum = view.getInt();
+        if (length <= 0 || length > limit - offset - HEADER) {
+            return null;
+        }
+        byte[] payload = new byte[length];
+        view.get(payload);
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        if ((int) crc.getValue() != checksum) {
+            return null;
+        }
+        ByteBuffer data = ByteBuffer.wrap(payload);
+        LocalDateTime timestamp = LocalDateTime.ofEpochSecond(data.getLong(), 0, ZoneOffset.UTC);
+        byte[] ip = new byte[data.get()];
+        data.get(ip);
+        return Stats.builder()
+                .timestamp(timestamp)
+                .ip(ip)
+                .app(string(data))
+                .uri(string(data))
+                .build();
+    }
+
+    /**
+     * @return - длина записи со смещением offset вместе с заголовком
+     */
+    int recordLength(int offset) {
+        return HEADER + buffer.getInt(offset);
+    }
+
+    /**
+     * @return - смещение после последней целой записи сегмента
+     */
+    int scanEnd() {
+        int offset = 0;
+        while (read(offset, buffer.capacity()) != null) {
+            offset += recordLength(offset);
+        }
+        return offset;
+    }
+
+    /**
+     * метод записи признака конца записей: данные после смещения offset больше не читаются
+     */
+    void terminate(int offset) {
+        if (offset + Integer.BYTES <= buffer.capacity()) {
+            buffer.putInt(offset, 0);
+        }
+    }
+
+    int capacity() {
+        return buffer.capacity();
+    }
+
+    long getIndex() {
+        return index;
+    }
+
+    void force() {
+        buffer.force();
+    }
+
+    void delete() {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось удалить сегмент журнала " + file, e);
+        }
+    }
+
+    private static byte[] value(String value, String name) {
+        if (value == null || value.isBlank() || value.length() > MAX_VALUE_LENGTH) {
+            throw new ValidationException("Некорректно задан " + name);
+        }
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String string(ByteBuffer data) {
+        byte[] bytes = new byte[data.getShort()];
+        data.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,219 @@
+package ru.practicum.stats.hot;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.practicum.stats.model.HitCount;
+import ru.practicum.stats.model.Stats;
+import ru.practicum.stats.repository.HotWindowRepository;
+import ru.practicum.stats.sketch.HyperLogLog;
+
+import javax.annotation.PostConstruct;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Горячее окно статистики: запросы за последние window-days дней хранятся в памяти по парам app, uri
+ * и запросы статистики, целиком попадающие в окно, обслуживаются без обращения к б/д.
+ * <p>
+ * Пары app, uri разложены по полосам, у каждой полосы своя блокировка чтения-записи. Уникальные ip
+ * считаются по 64-битным хешам, совпадение хешей разных адресов практически исключено.
+ * При превышении memory-budget-mb начало окна сдвигается вперед, пока данные не уложатся в бюджет.
+ */
+@Slf4j
+@Component
+public class HotWindowIndex {
+    private static final int STRIPES = 64;
+    //время хранится в секундах от 2020-01-01, чтобы уместиться в int
+    private static final long EPOCH = LocalDateTime.of(2020, 1, 1, 0, 0).toEpochSecond(ZoneOffset.UTC);
+
+    private final HotWindowRepository hotWindowRepository;
+    private final boolean enabled;
+    private final int windowDays;
+    private final long maxHits;
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final AtomicLong hits = new AtomicLong();
+    //начало окна в секундах, запросы раньше него в индексе не хранятся
+    private volatile int horizon;
+    private volatile boolean ready;
+
+    public HotWindowIndex(HotWindowRepository hotWindowRepository,
+                          MeterRegistry meterRegistry,
+                          @Value("${stats.hot-window.enabled:true}") boolean enabled,
+                          @Value("${stats.hot-window.window-days:7}") int windowDays,
+                          @Value("${stats.hot-window.memory-budget-mb:64}") long memoryBudgetMb) {
+        this.hotWindowRepository = hotWindowRepository;
+        this.enabled = enabled;
+        this.windowDays = windowDays;
+        this.maxHits = memoryBudgetMb * 1024 * 1024 / UriHits.BYTES_PER_HIT;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+        Gauge.builder("stats.hot.hits", hits, AtomicLong::get)
+                .description("Количество запросов в горячем окне")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        LocalDateTime since = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS).minusDays(windowDays);
+        horizon = toSecond(since);
+        hotWindowRepository.forEachSince(since, hit -> record(List.of(hit)));
+        ready = true;
+        log.info("Горячее окно статистики построено с {}, записей {}", fromSecond(horizon), hits.get());
+    }
+
+    /**
+     * метод добавления сохраненных записей статистики в окно
+     *
+     * @param stats - записи с заполненными идентификаторами app и uri
+     */
+    public void record(List<Stats> stats) {
+        if (!enabled) {
+            return;
+        }
+        for (Stats hit : stats) {
+            int second = toSecond(hit.getTimestamp());
+            if (second < horizon) {
+                continue;
+            }
+            long key = key(hit.getAppId(), hit.getUriId());
+            Stripe stripe = stripe(key);
+            stripe.lock.writeLock().lock();
+            try {
+                stripe.uris.computeIfAbsent(key, k -> new UriHits()).add(second, HyperLogLog.hash(hit.getIp()));
+            } finally {
+                stripe.lock.writeLock().unlock();
+            }
+        }
+        if (hits.addAndGet(stats.size()) > maxHits) {
+            shrink();
+        }
+    }
+
+    /**
+     * @return - true, если окно содержит все запросы начиная с start
+     */
+    public boolean covers(LocalDateTime start) {
+        return ready && toSecond(start) >= horizon;
+    }
+
+    /**
+     * метод подсчета статистики по окну, вызывается после проверки covers(start)
+     *
+     * @param start  - Дата и время начала диапазона (включительно)
+     * @param end    - Дата и время конца диапазона (включительно)
+     * @param uriIds - идентификаторы uri, null - все uri
+     * @param unique - учитывать только уникальные ip
+     * @return - статистика, упорядоченная по убыванию количества запросов
+     */
+    public List<HitCount> getStats(LocalDateTime start, LocalDateTime end, List<Integer> uriIds, boolean unique) {
+        int from = toSecond(start);
+        int to = toSecond(end);
+        Set<Integer> uriFilter = uriIds == null ? null : new HashSet<>(uriIds);
+        List<HitCount> result = new ArrayList<>();
+        for (Stripe stripe : stripes) {
+            stripe.lock.readLock().lock();
+            try {
+                stripe.uris.forEach((key, uriHits) -> {
+                    int uriId = (int) (long) key;
+                    if (uriFilter != null && !uriFilter.contains(uriId)) {
+                        return;
+                    }
+                    long count;
+                    if (unique) {
+                        Set<Long> ips = new HashSet<>();
+                        uriHits.collectIps(from, to, ips);
+                        count = ips.size();
+                    } else {
+                        count = uriHits.count(from, to);
+                    }
+                    if (count > 0) {
+                        result.add(new HitCount((int) (key >>> 32), uriId, count));
+                    }
+                });
+            } finally {
+                stripe.lock.readLock().unlock();
+            }
+        }
+        result.sort(Comparator.comparing(HitCount::getHits).reversed());
+        return result;
+    }
+
+    /**
+     * метод сдвига окна вслед за текущим временем
+     */
+    @Scheduled(cron = "${stats.hot-window.prune-cron:0 0 * * * *}")
+    public void slide() {
+        if (enabled) {
+            prune(toSecond(LocalDateTime.now().truncatedTo(ChronoUnit.HOURS).minusDays(windowDays)));
+        }
+    }
+
+    private synchronized void shrink() {
+        int now = toSecond(LocalDateTime.now());
+        while (hits.get() > maxHits && horizon < now) {
+            //каждый шаг отбрасывает четверть оставшегося окна
+            prune(horizon + Math.max(3600, (now - horizon) / 4));
+        }
+        log.warn("Горячее окно статистики сокращено до бюджета памяти, начало окна {}", fromSecond(horizon));
+    }
+
+    private synchronized void prune(int newHorizon) {
+        if (newHorizon <= horizon) {
+            return;
+        }
+        //начало окна сдвигается до удаления записей, чтобы запросы раньше него сразу уходили в б/д
+        horizon = newHorizon;
+        for (Stripe stripe : stripes) {
+            stripe.lock.writeLock().lock();
+            try {
+                stripe.uris.values().removeIf(uriHits -> {
+                    hits.addAndGet(-uriHits.prune(newHorizon));
+                    return uriHits.size() == 0;
+                });
+            } finally {
+                stripe.lock.writeLock().unlock();
+            }
+        }
+    }
+
+    private Stripe stripe(long key) {
+        return stripes[Math.floorMod(Long.hashCode(key * 0x9e3779b97f4a7c15L), STRIPES)];
+    }
+
+    private static long key(int appId, int uriId) {
+        return ((long) appId << 32) | (uriId & 0xffffffffL);
+    }
+
+    private static int toSecond(LocalDateTime time) {
+        long second = time.toEpochSecond(ZoneOffset.UTC) - EPOCH;
+        return (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, second));
+    }
+
+    private static LocalDateTime fromSecond(int second) {
+        return LocalDateTime.ofEpochSecond(EPOCH + second, 0, ZoneOffset.UTC);
+    }
+
+    private static class Stripe {
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+        private final Map<Long, UriHits> uris = new HashMap<>();
+    }
+}
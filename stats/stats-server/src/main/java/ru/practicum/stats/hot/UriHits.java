@@ -0,0 +1,79 @@
+package ru.practicum.stats.hot;
+
+import java.util.Arrays;
+import java.util.Set;
+
+/**
+ * Запросы к одной паре app, uri в горячем окне: время запроса в секундах и 64-битный хеш ip,
+ * 12 байт на запись. Не потокобезопасен, доступ защищается блокировкой полосы индекса.
+ */
+class UriHits {
+    static final int BYTES_PER_HIT = Integer.BYTES + Long.BYTES;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private int[] seconds = new int[INITIAL_CAPACITY];
+    private long[] ipHashes = new long[INITIAL_CAPACITY];
+    private int size;
+
+    void add(int second, long ipHash) {
+        if (size == seconds.length) {
+            seconds = Arrays.copyOf(seconds, size * 2);
+            ipHashes = Arrays.copyOf(ipHashes, size * 2);
+        }
+        seconds[size] = second;
+        ipHashes[size] = ipHash;
+        size++;
+    }
+
+    /**
+     * @return - количество запросов в интервале [from, to]
+     */
+    long count(int from, int to) {
+        long count = 0;
+        for (int i = 0; i < size; i++) {
+            if (seconds[i] >= from && seconds[i] <= to) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * метод сбора хешей ip запросов в интервале [from, to]
+     */
+    void collectIps(int from, int to, Set<Long> ips) {
+        for (int i = 0; i < size; i++) {
+            if (seconds[i] >= from && seconds[i] <= to) {
+                ips.add(ipHashes[i]);
+            }
+        }
+    }
+
+    /**
+     * метод удаления запросов раньше horizon
+     *
+     * @return - количество удаленных записей
+     */
+    int prune(int horizon) {
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            if (seconds[i] >= horizon) {
+                seconds[kept] = seconds[i];
+                ipHashes[kept] = ipHashes[i];
+                kept++;
+            }
+        }
+        int removed = size - kept;
+        size = kept;
+        if (size < seconds.length / 4 && seconds.length > INITIAL_CAPACITY) {
+            int capacity = Math.max(INITIAL_CAPACITY, size * 2);
+            seconds = Arrays.copyOf(seconds, capacity);
+            ipHashes = Arrays.copyOf(ipHashes, capacity);
+        }
+        return removed;
+    }
+
+    int size() {
+        return size;
+    }
+}
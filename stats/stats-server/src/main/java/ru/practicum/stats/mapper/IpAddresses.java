@@ -0,0 +1,54 @@
+package ru.practicum.stats.mapper;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import ru.practicum.stats.exeption.ValidationException;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+/**
+ * класс для упаковки ip-адресов в двоичный вид: 4 байта для IPv4 и 16 байт для IPv6
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class IpAddresses {
+
+    /**
+     * @param ip - ip-адрес в текстовом виде
+     * @return - ip-адрес в двоичном виде
+     */
+    public static byte[] pack(String ip) {
+        if (ip == null || ip.isBlank()) {
+            throw new ValidationException("Не указан ip-адрес");
+        }
+        if (ip.indexOf(':') < 0) {
+            return packV4(ip);
+        }
+        //литерал IPv6 разбирается без обращения к DNS
+        try {
+            return InetAddress.getByName(ip).getAddress();
+        } catch (UnknownHostException e) {
+            throw new ValidationException("Некорректный ip-адрес " + ip);
+        }
+    }
+
+    private static byte[] packV4(String ip) {
+        String[] parts = ip.split("\\.", -1);
+        if (parts.length != 4) {
+            throw new ValidationException("Некорректный ip-адрес " + ip);
+        }
+        byte[] address = new byte[4];
+        for (int i = 0; i < parts.length; i++) {
+            String part = parts[i];
+            if (part.isEmpty() || part.length() > 3 || !part.chars().allMatch(c -> c >= '0' && c <= '9')) {
+                throw new ValidationException("Некорректный ip-адрес " + ip);
+            }
+            int value = Integer.parseInt(part);
+            if (value > 255) {
+                throw new ValidationException("Некорректный ip-адрес " + ip);
+            }
+            address[i] = (byte) value;
+        }
+        return address;
+    }
+}
@@ -3,22 +3,57 @@ package ru.practicum.stats.mapper;
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
 import ru.practicum.dto.stats.EndpointHit;
+import ru.practicum.dto.stats.HistogramBucket;
+import ru.practicum.stats.exeption.ValidationException;
+import ru.practicum.stats.model.BucketCount;
 import ru.practicum.stats.model.Stats;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 
 /**
- * класс Mapper, преобразовывает EndpointHit в Stats, для корректного добавления записи в б/д
+ * класс Mapper, преобразовывает EndpointHit в Stats, для корректного добавления записи в б/д,
+ * и счетчики корзин в HistogramBucket
  */
 @NoArgsConstructor(access = AccessLevel.PRIVATE)
 public class Mapper {
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
     public static Stats toStats(EndpointHit endpointHit) {
+        //записи NDJSON-потока не проходят @Valid, поэтому обязательные поля проверяются и здесь
+        if (endpointHit.getApp() == null || endpointHit.getApp().isBlank()) {
+            throw new ValidationException("Не указан app");
+        }
+        if (endpointHit.getUri() == null || endpointHit.getUri().isBlank()) {
+            throw new ValidationException("Не указан uri");
+        }
         return Stats.builder()
                 .app(endpointHit.getApp())
                 .uri(endpointHit.getUri())
-                .ip(endpointHit.getIp())
-                .timestamp(LocalDateTime.parse(endpointHit.getTimestamp(), DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")))
+                .ip(IpAddresses.pack(endpointHit.getIp()))
+                .timestamp(toDateTime(endpointHit.getTimestamp()))
+                .build();
+    }
+
+    public static HistogramBucket toHistogramBucket(String app, String uri, BucketCount count) {
+        return HistogramBucket.builder()
+                .app(app)
+                .uri(uri)
+                .bucket(count.getBucket().format(FORMATTER))
+                .hits(count.getHits())
+                .uniqueHits(count.getUniqueHits())
                 .build();
     }
+
+    public static LocalDateTime toDateTime(String value) {
+        if (value == null) {
+            throw new ValidationException("Не задана дата");
+        }
+        try {
+            return LocalDateTime.parse(value, FORMATTER);
+        } catch (DateTimeParseException e) {
+            throw new ValidationException("Неверный формат даты: " + value);
+        }
+    }
 }
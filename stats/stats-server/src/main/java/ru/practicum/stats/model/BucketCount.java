@@ -0,0 +1,22 @@
+package ru.practicum.stats.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Количество запросов по паре идентификаторов app, uri во временной корзине
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BucketCount {
+    private LocalDateTime bucket;
+    private Integer appId;
+    private Integer uriId;
+    private Long hits;
+    //количество уникальных ip, null если не запрашивалось
+    private Long uniqueHits;
+}
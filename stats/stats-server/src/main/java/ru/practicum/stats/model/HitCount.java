@@ -0,0 +1,17 @@
+package ru.practicum.stats.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Количество запросов по паре идентификаторов app, uri
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class HitCount {
+    private Integer appId;
+    private Integer uriId;
+    private Long hits;
+}
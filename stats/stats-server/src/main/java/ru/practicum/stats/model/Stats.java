@@ -26,16 +26,24 @@ public class Stats {
     private Long id;
 
     //Идентификатор сервиса для которого записывается информация
-    @Column(name = "app")
+    @Transient
     private String app;
 
     //URI для которого был осуществлен запрос
-    @Column(name = "uri")
+    @Transient
     private String uri;
 
-    //IP-адрес пользователя, осуществившего запрос
+    //Идентификатор сервиса в словаре stats_app
+    @Column(name = "app_id")
+    private Integer appId;
+
+    //Идентификатор URI в словаре stats_uri
+    @Column(name = "uri_id")
+    private Integer uriId;
+
+    //IP-адрес пользователя, осуществившего запрос, в двоичном виде (4 байта IPv4, 16 байт IPv6)
     @Column(name = "ip")
-    private String ip;
+    private byte[] ip;
 
     //Дата и время, когда был совершен запрос к эндпоинту (в формате \"yyyy-MM-dd HH:mm:ss\")
     @Column(name = "timestamp")
@@ -0,0 +1,25 @@
+package ru.practicum.stats.partition;
+
+import java.time.LocalDate;
+
+/**
+ * Диапазон времени, который хранится в одной секции таблицы stats
+ */
+public enum PartitionInterval {
+    DAY,
+    MONTH;
+
+    /**
+     * начало секции, в которую попадает дата
+     */
+    public LocalDate floor(LocalDate date) {
+        return this == DAY ? date : date.withDayOfMonth(1);
+    }
+
+    /**
+     * начало следующей секции
+     */
+    public LocalDate next(LocalDate partitionStart) {
+        return this == DAY ? partitionStart.plusDays(1) : partitionStart.plusMonths(1);
+    }
+}
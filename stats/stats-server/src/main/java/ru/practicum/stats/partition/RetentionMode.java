@@ -0,0 +1,11 @@
+package ru.practicum.stats.partition;
+
+/**
+ * Что делать с секциями, вышедшими за срок хранения
+ */
+public enum RetentionMode {
+    //удалить секцию вместе с данными
+    DROP,
+    //отсоединить секцию от таблицы stats и сохранить как архивную таблицу stats_archive_yyyyMMdd
+    DETACH
+}
@@ -0,0 +1,176 @@
+package ru.practicum.stats.partition;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.practicum.stats.exeption.ValidationException;
+import ru.practicum.stats.model.Stats;
+import ru.practicum.stats.repository.PartitionRepository;
+
+import javax.annotation.PostConstruct;
+import javax.sql.DataSource;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Управление секциями таблицы stats: секции создаются заранее по расписанию и по требованию при записи,
+ * секции старше срока хранения удаляются или отсоединяются целиком, без DELETE по строкам.
+ * Записи принимаются только в окне от accept-past-days дней назад до accept-future-days дней вперед и не старше
+ * срока хранения, поэтому клиент не может создать произвольное количество секций
+ */
+@Slf4j
+@Component
+public class StatsPartitionManager {
+    private static final String PARTITION_PREFIX = "stats_p";
+    private static final String ARCHIVE_PREFIX = "stats_archive_";
+    private static final DateTimeFormatter NAME_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    private final PartitionRepository partitionRepository;
+    private final DataSource dataSource;
+    private final PartitionInterval interval;
+    private final int premake;
+    private final int retentionDays;
+    private final RetentionMode retentionMode;
+    private final int acceptPastDays;
+    private final int acceptFutureDays;
+    //начала существующих секций
+    private final Set<LocalDate> partitions = ConcurrentHashMap.newKeySet();
+
+    public StatsPartitionManager(PartitionRepository partitionRepository,
+                                 DataSource dataSource,
+                                 @Value("${stats.partition.interval:DAY}") PartitionInterval interval,
+                                 @Value("${stats.partition.premake:3}") int premake,
+                                 @Value("${stats.partition.retention-days:0}") int retentionDays,
+                                 @Value("${stats.partition.retention-mode:DROP}") RetentionMode retentionMode,
+                                 @Value("${stats.partition.accept-past-days:365}") int acceptPastDays,
+                                 @Value("${stats.partition.accept-future-days:1}") int acceptFutureDays) {
+        this.partitionRepository = partitionRepository;
+        this.dataSource = dataSource;
+        this.interval = interval;
+        this.premake = premake;
+        this.retentionDays = retentionDays;
+        this.retentionMode = retentionMode;
+        this.acceptPastDays = acceptPastDays;
+        this.acceptFutureDays = acceptFutureDays;
+    }
+
+    @PostConstruct
+    public void init() {
+        if (!partitionRepository.isCurrentLayout()) {
+            log.warn("Таблица stats имеет прежний формат, она будет пересоздана");
+            partitionRepository.dropLegacyTables();
+            new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(dataSource);
+        }
+        //индексы создаются только после проверки формата: на таблице прежнего формата нет столбцов uri_id, app_id
+        partitionRepository.createIndexes();
+        maintain();
+    }
+
+    /**
+     * метод создания секций на premake интервалов вперед и удаления секций старше срока хранения
+     */
+    @Scheduled(cron = "${stats.partition.maintenance-cron:0 5 0 * * *}")
+    public void maintain() {
+        Set<LocalDate> existing = partitionRepository.findPartitions().stream()
+                .map(this::parseStart)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        partitions.retainAll(existing);
+        partitions.addAll(existing);
+        LocalDate start = interval.floor(LocalDate.now());
+        for (int i = 0; i <= premake; i++) {
+            ensurePartition(start);
+            start = interval.next(start);
+        }
+        if (retentionDays > 0) {
+            removeExpired(LocalDate.now().minusDays(retentionDays));
+        }
+    }
+
+    /**
+     * метод создания недостающих секций для записей статистики, вызывается перед их сохранением
+     * вне транзакции записи, чтобы не держать блокировку таблицы stats до ее завершения
+     *
+     * @param stats - записи статистики
+     */
+    public void ensurePartitions(List<Stats> stats) {
+        validate(stats);
+        stats.stream()
+                .map(s -> interval.floor(s.getTimestamp().toLocalDate()))
+                .distinct()
+                .filter(start -> !partitions.contains(start))
+                .forEach(this::ensurePartition);
+    }
+
+    /**
+     * метод проверки времени записей статистики, вызывается при приеме записей
+     *
+     * @param stats - записи статистики
+     */
+    public void validate(List<Stats> stats) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime earliest = now.minusDays(acceptPastDays);
+        LocalDateTime latest = now.plusDays(acceptFutureDays);
+        for (Stats hit : stats) {
+            LocalDateTime timestamp = hit.getTimestamp();
+            //секция записи старше срока хранения была бы удалена при следующем обслуживании
+            if (timestamp.isBefore(earliest) || timestamp.isAfter(latest) || isExpired(timestamp.toLocalDate())) {
+                throw new ValidationException(String.format("Время запроса %s вне допустимого диапазона с %s по %s",
+                        timestamp, earliest, latest));
+            }
+        }
+    }
+
+    private boolean isExpired(LocalDate date) {
+        if (retentionDays <= 0) {
+            return false;
+        }
+        return !interval.next(interval.floor(date)).isAfter(LocalDate.now().minusDays(retentionDays));
+    }
+
+    private synchronized void ensurePartition(LocalDate start) {
+        if (partitions.contains(start)) {
+            return;
+        }
+        partitionRepository.createPartition(PARTITION_PREFIX + start.format(NAME_FORMAT), start, interval.next(start));
+        partitions.add(start);
+        log.info("Создана секция статистики с {}", start);
+    }
+
+    private void removeExpired(LocalDate cutoff) {
+        for (LocalDate start : List.copyOf(partitions)) {
+            if (interval.next(start).isAfter(cutoff)) {
+                continue;
+            }
+            String name = PARTITION_PREFIX + start.format(NAME_FORMAT);
+            partitions.remove(start);
+            if (retentionMode == RetentionMode.DETACH) {
+                partitionRepository.detachPartition(name, ARCHIVE_PREFIX + start.format(NAME_FORMAT));
+            } else {
+                partitionRepository.dropPartition(name);
+            }
+            log.info("Секция статистики {} вышла за срок хранения: {}", name, retentionMode);
+        }
+    }
+
+    private LocalDate parseStart(String partitionName) {
+        if (!partitionName.startsWith(PARTITION_PREFIX)) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(partitionName.substring(PARTITION_PREFIX.length()), NAME_FORMAT);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
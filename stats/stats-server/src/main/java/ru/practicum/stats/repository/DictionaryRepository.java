@@ -0,0 +1,83 @@
+package ru.practicum.stats.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+import ru.practicum.stats.dictionary.DictionaryKind;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Репозиторий словарей app и uri статистики
+ */
+@Repository
+@RequiredArgsConstructor
+public class DictionaryRepository {
+    //ограничение на количество значений в одном запросе, чтобы не превысить лимит параметров драйвера
+    private static final int VALUES_PER_QUERY = 1000;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /**
+     * метод добавления отсутствующих в словаре значений
+     *
+     * @param kind  - словарь
+     * @param names - значения
+     * @return - идентификаторы всех переданных значений
+     */
+    public Map<String, Integer> resolve(DictionaryKind kind, Collection<String> names) {
+        //значения добавляются в едином порядке, чтобы параллельные вставки не блокировали друг друга
+        SqlParameterSource[] batch = new TreeSet<>(names).stream()
+                .map(name -> new MapSqlParameterSource("name", name))
+                .toArray(SqlParameterSource[]::new);
+        jdbcTemplate.batchUpdate("INSERT INTO " + kind.getTable() + " (name) VALUES (:name) ON CONFLICT DO NOTHING",
+                batch);
+        return findIds(kind, names);
+    }
+
+    /**
+     * @return - идентификаторы значений, которые есть в словаре
+     */
+    public Map<String, Integer> findIds(DictionaryKind kind, Collection<String> names) {
+        Map<String, Integer> ids = new HashMap<>();
+        for (List<String> chunk : chunks(names)) {
+            jdbcTemplate.query("SELECT id, name FROM " + kind.getTable() + " WHERE name IN (:names)",
+                    new MapSqlParameterSource("names", chunk),
+                    rs -> {
+                        ids.put(rs.getString("name"), rs.getInt("id"));
+                    });
+        }
+        return ids;
+    }
+
+    /**
+     * @return - значения словаря по идентификаторам
+     */
+    public Map<Integer, String> findNames(DictionaryKind kind, Collection<Integer> ids) {
+        Map<Integer, String> names = new HashMap<>();
+        for (List<Integer> chunk : chunks(ids)) {
+            jdbcTemplate.query("SELECT id, name FROM " + kind.getTable() + " WHERE id IN (:ids)",
+                    new MapSqlParameterSource("ids", chunk),
+                    rs -> {
+                        names.put(rs.getInt("id"), rs.getString("name"));
+                    });
+        }
+        return names;
+    }
+
+    private <T> List<List<T>> chunks(Collection<T> values) {
+        List<T> list = new ArrayList<>(values);
+        List<List<T>> chunks = new ArrayList<>();
+        for (int from = 0; from < list.size(); from += VALUES_PER_QUERY) {
+            chunks.add(list.subList(from, Math.min(list.size(), from + VALUES_PER_QUERY)));
+        }
+        return chunks;
+    }
+}
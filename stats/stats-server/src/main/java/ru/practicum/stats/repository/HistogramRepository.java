@@ -0,0 +1,84 @@
+package ru.practicum.stats.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.stats.model.BucketCount;
+import ru.practicum.stats.rollup.Granularity;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Репозиторий для потокового построения гистограмм посещений: строки читаются упорядоченными
+ * по корзине порциями по FETCH_SIZE, драйвер делает это только внутри транзакции
+ */
+@Repository
+@RequiredArgsConstructor
+public class HistogramRepository {
+    private static final int FETCH_SIZE = 5000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * метод обхода корзин агрегатов в полуинтервале [from, to)
+     *
+     * @param uriIds - идентификаторы uri, null - все uri
+     */
+    @Transactional(readOnly = true)
+    public void forEachRollupBucket(Granularity granularity, LocalDateTime from, LocalDateTime to,
+                                    List<Integer> uriIds, Consumer<BucketCount> consumer) {
+        List<Object> params = new ArrayList<>(List.of(granularity.name(), Timestamp.valueOf(from),
+                Timestamp.valueOf(to)));
+        String sql = "SELECT bucket, app_id, uri_id, hits, NULL AS unique_hits FROM stats_rollup " +
+                "WHERE granularity = ? AND bucket >= ? AND bucket < ?" + uriCondition(uriIds, params) +
+                " ORDER BY bucket, app_id, uri_id";
+        stream(sql, params, consumer);
+    }
+
+    /**
+     * метод подсчета сырых записей по корзинам в полуинтервале [from, to)
+     *
+     * @param uriIds - идентификаторы uri, null - все uri
+     * @param unique - считать также уникальные ip
+     */
+    @Transactional(readOnly = true)
+    public void forEachRawBucket(Granularity granularity, LocalDateTime from, LocalDateTime to,
+                                 List<Integer> uriIds, boolean unique, Consumer<BucketCount> consumer) {
+        List<Object> params = new ArrayList<>(List.of(Timestamp.valueOf(from), Timestamp.valueOf(to)));
+        String sql = "SELECT date_trunc('" + granularity.name().toLowerCase() + "', timestamp) AS bucket, " +
+                "app_id, uri_id, COUNT(*) AS hits, " + (unique ? "COUNT(DISTINCT ip)" : "NULL") + " AS unique_hits " +
+                "FROM stats WHERE timestamp >= ? AND timestamp < ?" + uriCondition(uriIds, params) +
+                " GROUP BY 1, 2, 3 ORDER BY 1, 2, 3";
+        stream(sql, params, consumer);
+    }
+
+    private String uriCondition(List<Integer> uriIds, List<Object> params) {
+        if (uriIds == null) {
+            return "";
+        }
+        params.addAll(uriIds);
+        return " AND uri_id IN (" + String.join(", ", Collections.nCopies(uriIds.size(), "?")) + ")";
+    }
+
+    private void stream(String sql, List<Object> params, Consumer<BucketCount> consumer) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql);
+            statement.setFetchSize(FETCH_SIZE);
+            for (int i = 0; i < params.size(); i++) {
+                statement.setObject(i + 1, params.get(i));
+            }
+            return statement;
+        }, rs -> {
+            long uniqueHits = rs.getLong("unique_hits");
+            consumer.accept(new BucketCount(rs.getTimestamp("bucket").toLocalDateTime(), rs.getInt("app_id"),
+                    rs.getInt("uri_id"), rs.getLong("hits"), rs.wasNull() ? null : uniqueHits));
+        });
+    }
+}
@@ -0,0 +1,40 @@
+package ru.practicum.stats.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.practicum.stats.model.Stats;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * Репозиторий для пакетной записи статистики через JDBC batch insert
+ */
+@Repository
+@RequiredArgsConstructor
+public class HitBatchRepository {
+    private static final int BATCH_SIZE = 500;
+    private static final String INSERT_STATS = "INSERT INTO stats (app_id, uri_id, ip, timestamp) VALUES (?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * метод пакетного сохранения статистики
+     *
+     * @param stats - список записей статистики с заполненными идентификаторами app и uri
+     * @return - количество сохраненных записей
+     */
+    public int saveAll(List<Stats> stats) {
+        if (stats.isEmpty()) {
+            return 0;
+        }
+        jdbcTemplate.batchUpdate(INSERT_STATS, stats, BATCH_SIZE, (ps, s) -> {
+            ps.setInt(1, s.getAppId());
+            ps.setInt(2, s.getUriId());
+            ps.setBytes(3, s.getIp());
+            ps.setTimestamp(4, Timestamp.valueOf(s.getTimestamp()));
+        });
+        return stats.size();
+    }
+}
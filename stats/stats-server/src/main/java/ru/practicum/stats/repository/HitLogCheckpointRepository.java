@@ -0,0 +1,36 @@
+package ru.practicum.stats.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.practicum.stats.hitlog.HitLogPosition;
+
+import java.util.List;
+
+/**
+ * Репозиторий позиции журнала запросов, до которой записи перенесены в б/д
+ */
+@Repository
+@RequiredArgsConstructor
+public class HitLogCheckpointRepository {
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * @return - сохраненная позиция или null, если журнал еще не переносился
+     */
+    public HitLogPosition find() {
+        List<HitLogPosition> positions = jdbcTemplate.query(
+                "SELECT segment, position FROM stats_hitlog_checkpoint WHERE id = 1",
+                (rs, rowNum) -> new HitLogPosition(rs.getLong("segment"), rs.getInt("position")));
+        return positions.isEmpty() ? null : positions.get(0);
+    }
+
+    /**
+     * метод сохранения позиции, вызывается в транзакции записи перенесенных записей
+     */
+    public void save(HitLogPosition position) {
+        jdbcTemplate.update("INSERT INTO stats_hitlog_checkpoint (id, segment, position) VALUES (1, ?, ?) " +
+                        "ON CONFLICT (id) DO UPDATE SET segment = EXCLUDED.segment, position = EXCLUDED.position",
+                position.getSegment(), position.getOffset());
+    }
+}
@@ -0,0 +1,48 @@
+package ru.practicum.stats.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.stats.model.Stats;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.function.Consumer;
+
+/**
+ * Репозиторий для построения горячего окна статистики
+ */
+@Repository
+@RequiredArgsConstructor
+public class HotWindowRepository {
+    private static final int FETCH_SIZE = 10000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * метод потокового чтения записей статистики, начиная с момента времени; драйвер читает строки
+     * порциями по FETCH_SIZE только внутри транзакции
+     *
+     * @param since    - момент времени (включительно)
+     * @param consumer - обработчик записи с заполненными идентификаторами app, uri, ip и временем запроса
+     */
+    @Transactional(readOnly = true)
+    public void forEachSince(LocalDateTime since, Consumer<Stats> consumer) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                    "SELECT app_id, uri_id, ip, timestamp FROM stats WHERE timestamp >= ?");
+            statement.setFetchSize(FETCH_SIZE);
+            statement.setTimestamp(1, Timestamp.valueOf(since));
+            return statement;
+        }, rs -> {
+            consumer.accept(Stats.builder()
+                    .appId(rs.getInt("app_id"))
+                    .uriId(rs.getInt("uri_id"))
+                    .ip(rs.getBytes("ip"))
+                    .timestamp(rs.getTimestamp("timestamp").toLocalDateTime())
+                    .build());
+        });
+    }
+}
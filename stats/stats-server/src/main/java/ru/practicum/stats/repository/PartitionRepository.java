@@ -0,0 +1,69 @@
+package ru.practicum.stats.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Репозиторий для управления секциями таблицы stats
+ */
+@Repository
+@RequiredArgsConstructor
+public class PartitionRepository {
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * @return - true, если таблица stats секционирована и хранит идентификаторы app, uri вместо строк
+     */
+    public boolean isCurrentLayout() {
+        Boolean current = jdbcTemplate.queryForObject("SELECT c.relkind = 'p' AND EXISTS (SELECT 1 " +
+                "FROM pg_attribute a WHERE a.attrelid = c.oid AND a.attname = 'app_id' AND NOT a.attisdropped) " +
+                "FROM pg_class c WHERE c.oid = to_regclass('stats')", Boolean.class);
+        return Boolean.TRUE.equals(current);
+    }
+
+    /**
+     * создание индексов таблицы stats: покрывающего индекса для запросов по списку uri и BRIN-индекса по времени;
+     * индексы создаются на секционированной таблице и наследуются всеми ее секциями
+     */
+    public void createIndexes() {
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS stats_uri_timestamp_idx ON stats (uri_id, timestamp) " +
+                "INCLUDE (app_id, ip)");
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS stats_timestamp_brin_idx ON stats USING BRIN (timestamp)");
+    }
+
+    /**
+     * @return - имена всех секций таблицы stats
+     */
+    public List<String> findPartitions() {
+        return jdbcTemplate.queryForList("SELECT c.relname FROM pg_inherits i " +
+                "JOIN pg_class c ON c.oid = i.inhrelid WHERE i.inhparent = 'stats'::regclass", String.class);
+    }
+
+    /**
+     * создание секции для полуинтервала [from, to)
+     */
+    public void createPartition(String name, LocalDate from, LocalDate to) {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + name + " PARTITION OF stats " +
+                "FOR VALUES FROM ('" + from + "') TO ('" + to + "')");
+    }
+
+    public void dropPartition(String name) {
+        jdbcTemplate.execute("DROP TABLE " + name);
+    }
+
+    public void detachPartition(String name, String archiveName) {
+        jdbcTemplate.execute("ALTER TABLE stats DETACH PARTITION " + name);
+        jdbcTemplate.execute("ALTER TABLE " + name + " RENAME TO " + archiveName);
+    }
+
+    /**
+     * удаление таблицы stats прежнего формата вместе с построенными по ней агрегатами
+     */
+    public void dropLegacyTables() {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS stats, stats_rollup, stats_sketch CASCADE");
+    }
+}
@@ -0,0 +1,103 @@
+package ru.practicum.stats.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+import ru.practicum.stats.model.HitCount;
+import ru.practicum.stats.rollup.Granularity;
+import ru.practicum.stats.rollup.RollupKey;
+import ru.practicum.stats.rollup.TimeSegment;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Репозиторий счетчиков агрегированной статистики stats_rollup
+ */
+@Repository
+@RequiredArgsConstructor
+public class RollupRepository {
+    private static final String UPSERT_ROLLUP = "INSERT INTO stats_rollup (granularity, app_id, uri_id, bucket, hits) " +
+            "VALUES (:granularity, :appId, :uriId, :bucket, :hits) " +
+            "ON CONFLICT (granularity, app_id, uri_id, bucket) DO UPDATE SET hits = stats_rollup.hits + EXCLUDED.hits";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /**
+     * метод увеличения счетчиков
+     *
+     * @param increments - прирост счетчиков, упорядоченный по ключу
+     */
+    public void increment(Map<RollupKey, Long> increments) {
+        SqlParameterSource[] batch = increments.entrySet().stream()
+                .map(e -> new MapSqlParameterSource()
+                        .addValue("granularity", e.getKey().getGranularity().name())
+                        .addValue("appId", e.getKey().getAppId())
+                        .addValue("uriId", e.getKey().getUriId())
+                        .addValue("bucket", Timestamp.valueOf(e.getKey().getBucket()))
+                        .addValue("hits", e.getValue()))
+                .toArray(SqlParameterSource[]::new);
+        jdbcTemplate.batchUpdate(UPSERT_ROLLUP, batch);
+    }
+
+    /**
+     * метод суммирования счетчиков по корзинам
+     *
+     * @param segments - отрезки, покрытые корзинами
+     * @param uriIds   - идентификаторы uri, null - все uri
+     * @return - количество запросов по каждой паре app, uri
+     */
+    public List<HitCount> sumHits(List<TimeSegment> segments, List<Integer> uriIds) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        StringBuilder sql = new StringBuilder("SELECT app_id, uri_id, SUM(hits) AS hits FROM stats_rollup WHERE ")
+                .append(SegmentSql.bucketCondition(segments, params));
+        return query(sql, params, uriIds);
+    }
+
+    /**
+     * метод подсчета сырых записей таблицы stats на краях диапазона, не покрытых корзинами
+     *
+     * @param segments - отрезки без корзин
+     * @param uriIds   - идентификаторы uri, null - все uri
+     * @return - количество запросов по каждой паре app, uri
+     */
+    public List<HitCount> countRawHits(List<TimeSegment> segments, List<Integer> uriIds) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        StringBuilder sql = new StringBuilder("SELECT app_id, uri_id, COUNT(*) AS hits FROM stats WHERE ")
+                .append(SegmentSql.rawCondition(segments, params));
+        return query(sql, params, uriIds);
+    }
+
+    /**
+     * метод обхода часовых счетчиков, начиная с момента времени
+     *
+     * @param since    - начало первой корзины (включительно)
+     * @param consumer - обработчик начала корзины и счетчика пары app, uri в ней
+     */
+    public void forEachHourBucket(LocalDateTime since, BiConsumer<LocalDateTime, HitCount> consumer) {
+        jdbcTemplate.query("SELECT bucket, app_id, uri_id, hits FROM stats_rollup " +
+                        "WHERE granularity = :granularity AND bucket >= :since",
+                new MapSqlParameterSource()
+                        .addValue("granularity", Granularity.HOUR.name())
+                        .addValue("since", Timestamp.valueOf(since)),
+                rs -> {
+                    consumer.accept(rs.getTimestamp("bucket").toLocalDateTime(),
+                            new HitCount(rs.getInt("app_id"), rs.getInt("uri_id"), rs.getLong("hits")));
+                });
+    }
+
+    private List<HitCount> query(StringBuilder sql, MapSqlParameterSource params, List<Integer> uriIds) {
+        if (uriIds != null) {
+            sql.append(" AND uri_id IN (:uriIds)");
+            params.addValue("uriIds", uriIds);
+        }
+        sql.append(" GROUP BY app_id, uri_id");
+        return jdbcTemplate.query(sql.toString(), params, (rs, rowNum) ->
+                new HitCount(rs.getInt("app_id"), rs.getInt("uri_id"), rs.getLong("hits")));
+    }
+}
@@ -0,0 +1,53 @@
+package ru.practicum.stats.repository;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import ru.practicum.stats.rollup.TimeSegment;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * класс для построения условий выборки по набору отрезков времени
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+class SegmentSql {
+
+    /**
+     * условие на корзины агрегатов: (granularity = ? AND bucket >= ? AND bucket < ?) OR ...
+     */
+    static String bucketCondition(List<TimeSegment> segments, MapSqlParameterSource params) {
+        StringBuilder sql = new StringBuilder("(");
+        for (int i = 0; i < segments.size(); i++) {
+            TimeSegment segment = segments.get(i);
+            if (i > 0) {
+                sql.append(" OR ");
+            }
+            sql.append("(granularity = :g").append(i)
+                    .append(" AND bucket >= :f").append(i)
+                    .append(" AND bucket < :t").append(i).append(")");
+            params.addValue("g" + i, segment.getGranularity().name())
+                    .addValue("f" + i, Timestamp.valueOf(segment.getFrom()))
+                    .addValue("t" + i, Timestamp.valueOf(segment.getTo()));
+        }
+        return sql.append(")").toString();
+    }
+
+    /**
+     * условие на сырые записи таблицы stats: (timestamp >= ? AND timestamp < ?) OR ...
+     */
+    static String rawCondition(List<TimeSegment> segments, MapSqlParameterSource params) {
+        StringBuilder sql = new StringBuilder("(");
+        for (int i = 0; i < segments.size(); i++) {
+            TimeSegment segment = segments.get(i);
+            if (i > 0) {
+                sql.append(" OR ");
+            }
+            sql.append("(timestamp >= :f").append(i).append(" AND timestamp < :t").append(i).append(")");
+            params.addValue("f" + i, Timestamp.valueOf(segment.getFrom()))
+                    .addValue("t" + i, Timestamp.valueOf(segment.getTo()));
+        }
+        return sql.append(")").toString();
+    }
+}
@@ -0,0 +1,141 @@
+package ru.practicum.stats.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+import ru.practicum.stats.model.Stats;
+import ru.practicum.stats.rollup.Granularity;
+import ru.practicum.stats.rollup.RollupKey;
+import ru.practicum.stats.rollup.TimeSegment;
+import ru.practicum.stats.sketch.HyperLogLog;
+import ru.practicum.stats.sketch.UriSketch;
+
+import java.sql.Timestamp;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Репозиторий скетчей уникальных ip stats_sketch
+ */
+@Repository
+@RequiredArgsConstructor
+public class SketchRepository {
+    //ограничение на количество ключей в одном запросе, чтобы не превысить лимит параметров драйвера
+    private static final int KEYS_PER_QUERY = 1000;
+    private static final String INSERT_EMPTY = "INSERT INTO stats_sketch (granularity, app_id, uri_id, bucket, registers) " +
+            "VALUES (:granularity, :appId, :uriId, :bucket, :registers) ON CONFLICT DO NOTHING";
+    private static final String UPDATE_SKETCH = "UPDATE stats_sketch SET registers = :registers " +
+            "WHERE granularity = :granularity AND app_id = :appId AND uri_id = :uriId AND bucket = :bucket";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /**
+     * метод создания пустых скетчей для корзин, которых еще нет
+     *
+     * @param keys - ключи корзин, упорядоченные по ключу
+     */
+    public void createMissing(List<RollupKey> keys) {
+        byte[] empty = new HyperLogLog().toBytes();
+        SqlParameterSource[] batch = keys.stream()
+                .map(key -> keyParams(key).addValue("registers", empty))
+                .toArray(SqlParameterSource[]::new);
+        jdbcTemplate.batchUpdate(INSERT_EMPTY, batch);
+    }
+
+    /**
+     * метод чтения скетчей с блокировкой строк до конца транзакции
+     *
+     * @param keys - ключи корзин, упорядоченные по ключу
+     * @return - скетчи по ключу
+     */
+    public Map<RollupKey, HyperLogLog> findForUpdate(List<RollupKey> keys) {
+        Map<RollupKey, HyperLogLog> sketches = new HashMap<>();
+        for (int from = 0; from < keys.size(); from += KEYS_PER_QUERY) {
+            List<RollupKey> chunk = keys.subList(from, Math.min(keys.size(), from + KEYS_PER_QUERY));
+            MapSqlParameterSource params = new MapSqlParameterSource();
+            StringBuilder sql = new StringBuilder("SELECT granularity, app_id, uri_id, bucket, registers " +
+                    "FROM stats_sketch WHERE (granularity, app_id, uri_id, bucket) IN (");
+            for (int i = 0; i < chunk.size(); i++) {
+                RollupKey key = chunk.get(i);
+                sql.append(i > 0 ? ", " : "")
+                        .append("(:g").append(i).append(", :a").append(i)
+                        .append(", :u").append(i).append(", :b").append(i).append(")");
+                params.addValue("g" + i, key.getGranularity().name())
+                        .addValue("a" + i, key.getAppId())
+                        .addValue("u" + i, key.getUriId())
+                        .addValue("b" + i, Timestamp.valueOf(key.getBucket()));
+            }
+            sql.append(") ORDER BY granularity COLLATE \"C\", app_id, uri_id, bucket FOR UPDATE");
+            jdbcTemplate.query(sql.toString(), params, rs -> {
+                RollupKey key = new RollupKey(Granularity.valueOf(rs.getString("granularity")),
+                        rs.getInt("app_id"), rs.getInt("uri_id"), rs.getTimestamp("bucket").toLocalDateTime());
+                sketches.put(key, HyperLogLog.fromBytes(rs.getBytes("registers")));
+            });
+        }
+        return sketches;
+    }
+
+    /**
+     * метод сохранения обновленных скетчей
+     */
+    public void saveAll(Map<RollupKey, HyperLogLog> sketches) {
+        SqlParameterSource[] batch = sketches.entrySet().stream()
+                .map(e -> keyParams(e.getKey()).addValue("registers", e.getValue().toBytes()))
+                .toArray(SqlParameterSource[]::new);
+        jdbcTemplate.batchUpdate(UPDATE_SKETCH, batch);
+    }
+
+    /**
+     * метод поиска скетчей корзин
+     *
+     * @param segments - отрезки, покрытые корзинами
+     * @param uriIds   - идентификаторы uri, null - все uri
+     * @return - скетчи корзин
+     */
+    public List<UriSketch> findSketches(List<TimeSegment> segments, List<Integer> uriIds) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        StringBuilder sql = new StringBuilder("SELECT app_id, uri_id, registers FROM stats_sketch WHERE ")
+                .append(SegmentSql.bucketCondition(segments, params));
+        appendUris(sql, params, uriIds);
+        return jdbcTemplate.query(sql.toString(), params, (rs, rowNum) ->
+                new UriSketch(rs.getInt("app_id"), rs.getInt("uri_id"), HyperLogLog.fromBytes(rs.getBytes("registers"))));
+    }
+
+    /**
+     * метод поиска уникальных ip в сырых записях таблицы stats на краях диапазона, не покрытых корзинами
+     *
+     * @param segments - отрезки без корзин
+     * @param uriIds   - идентификаторы uri, null - все uri
+     * @return - записи с заполненными идентификаторами app, uri и ip
+     */
+    public List<Stats> findRawIps(List<TimeSegment> segments, List<Integer> uriIds) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        StringBuilder sql = new StringBuilder("SELECT app_id, uri_id, ip FROM stats WHERE ")
+                .append(SegmentSql.rawCondition(segments, params));
+        appendUris(sql, params, uriIds);
+        sql.append(" GROUP BY app_id, uri_id, ip");
+        return jdbcTemplate.query(sql.toString(), params, (rs, rowNum) -> Stats.builder()
+                .appId(rs.getInt("app_id"))
+                .uriId(rs.getInt("uri_id"))
+                .ip(rs.getBytes("ip"))
+                .build());
+    }
+
+    private void appendUris(StringBuilder sql, MapSqlParameterSource params, List<Integer> uriIds) {
+        if (uriIds != null) {
+            sql.append(" AND uri_id IN (:uriIds)");
+            params.addValue("uriIds", uriIds);
+        }
+    }
+
+    private MapSqlParameterSource keyParams(RollupKey key) {
+        return new MapSqlParameterSource()
+                .addValue("granularity", key.getGranularity().name())
+                .addValue("appId", key.getAppId())
+                .addValue("uriId", key.getUriId())
+                .addValue("bucket", Timestamp.valueOf(key.getBucket()));
+    }
+}
@@ -0,0 +1,15 @@
+package ru.practicum.stats.repository;
+
+import ru.practicum.stats.model.HitCount;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Контракт запросов уникальной статистики, которые нельзя выразить на JPQL
+ */
+public interface StateRepositoryCustom {
+    List<HitCount> getStatsForUriUnique(LocalDateTime start, LocalDateTime end, List<Integer> uriIds);
+
+    List<HitCount> getStatsUnique(LocalDateTime start, LocalDateTime end);
+}
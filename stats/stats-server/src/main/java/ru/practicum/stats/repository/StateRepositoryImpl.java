@@ -0,0 +1,46 @@
+package ru.practicum.stats.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import ru.practicum.stats.model.HitCount;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Реализация запросов уникальной статистики. COUNT(DISTINCT ip) в Postgres всегда сортирует строки
+ * каждой группы, поэтому уникальные тройки (app_id, uri_id, ip) выбираются во вложенном запросе
+ * хеш-агрегацией по результату сканирования только индекса, а затем считаются
+ */
+@RequiredArgsConstructor
+public class StateRepositoryImpl implements StateRepositoryCustom {
+    private static final String UNIQUE_HITS = "SELECT app_id, uri_id, COUNT(*) AS hits FROM (" +
+            "SELECT DISTINCT app_id, uri_id, ip FROM stats WHERE timestamp BETWEEN :start AND :end%s) AS u " +
+            "GROUP BY app_id, uri_id ORDER BY hits DESC";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Override
+    public List<HitCount> getStatsForUriUnique(LocalDateTime start, LocalDateTime end, List<Integer> uriIds) {
+        return query(String.format(UNIQUE_HITS, " AND uri_id IN (:uriIds)"),
+                params(start, end).addValue("uriIds", uriIds));
+    }
+
+    @Override
+    public List<HitCount> getStatsUnique(LocalDateTime start, LocalDateTime end) {
+        return query(String.format(UNIQUE_HITS, ""), params(start, end));
+    }
+
+    private List<HitCount> query(String sql, MapSqlParameterSource params) {
+        return jdbcTemplate.query(sql, params, (rs, rowNum) ->
+                new HitCount(rs.getInt("app_id"), rs.getInt("uri_id"), rs.getLong("hits")));
+    }
+
+    private MapSqlParameterSource params(LocalDateTime start, LocalDateTime end) {
+        return new MapSqlParameterSource()
+                .addValue("start", Timestamp.valueOf(start))
+                .addValue("end", Timestamp.valueOf(end));
+    }
+}
@@ -0,0 +1,31 @@
+package ru.practicum.stats.rollup;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+
+/**
+ * Ключ счетчика агрегированной статистики
+ */
+@Data
+@AllArgsConstructor
+public class RollupKey implements Comparable<RollupKey> {
+    //единый порядок обновления строк исключает взаимные блокировки параллельных транзакций,
+    //он совпадает с порядком сортировки строк в б/д (granularity COLLATE "C", app_id, uri_id, bucket)
+    private static final Comparator<RollupKey> ORDER = Comparator.comparing((RollupKey k) -> k.getGranularity().name())
+            .thenComparing(RollupKey::getAppId)
+            .thenComparing(RollupKey::getUriId)
+            .thenComparing(RollupKey::getBucket);
+
+    private Granularity granularity;
+    private Integer appId;
+    private Integer uriId;
+    private LocalDateTime bucket;
+
+    @Override
+    public int compareTo(RollupKey other) {
+        return ORDER.compare(this, other);
+    }
+}
@@ -0,0 +1,93 @@
+package ru.practicum.stats.rollup;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import ru.practicum.stats.model.HitCount;
+import ru.practicum.stats.model.Stats;
+import ru.practicum.stats.repository.RollupRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Сервис агрегированной статистики: поддерживает счетчики запросов по (app, uri) в минутных, часовых
+ * и суточных корзинах и отвечает на запросы неуникальной статистики суммированием корзин
+ */
+@Slf4j
+@Service
+public class RollupService {
+    private final RollupRepository rollupRepository;
+    private final boolean enabled;
+
+    public RollupService(RollupRepository rollupRepository,
+                         @Value("${stats.rollup.enabled:true}") boolean enabled) {
+        this.rollupRepository = rollupRepository;
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * метод обновления счетчиков, вызывается в транзакции сохранения записей статистики
+     *
+     * @param stats - сохраненные записи статистики
+     */
+    public void record(List<Stats> stats) {
+        if (!enabled || stats.isEmpty()) {
+            return;
+        }
+        Map<RollupKey, Long> increments = new TreeMap<>();
+        for (Stats hit : stats) {
+            for (Granularity granularity : Granularity.values()) {
+                RollupKey key = new RollupKey(granularity, hit.getAppId(), hit.getUriId(),
+                        granularity.floor(hit.getTimestamp()));
+                increments.merge(key, 1L, Long::sum);
+            }
+        }
+        rollupRepository.increment(increments);
+    }
+
+    /**
+     * метод возвращающий неуникальную статистику за промежуток времени
+     *
+     * @param start - Дата и время начала диапазона (включительно)
+     * @param end   - Дата и время конца диапазона (включительно)
+     * @param uriIds - идентификаторы uri, null - все uri
+     * @return - статистика, упорядоченная по убыванию количества запросов
+     */
+    public List<HitCount> getStats(LocalDateTime start, LocalDateTime end, List<Integer> uriIds) {
+        List<TimeSegment> segments = TimeSegments.coverClosed(start, end, Granularity.values());
+        List<TimeSegment> raw = segments.stream().filter(TimeSegment::isRaw).collect(Collectors.toList());
+        List<TimeSegment> buckets = segments.stream().filter(s -> !s.isRaw()).collect(Collectors.toList());
+        List<HitCount> parts = new ArrayList<>();
+        if (!buckets.isEmpty()) {
+            parts.addAll(rollupRepository.sumHits(buckets, uriIds));
+        }
+        if (!raw.isEmpty()) {
+            parts.addAll(rollupRepository.countRawHits(raw, uriIds));
+        }
+        log.debug("Статистика собрана из {} корзин и {} отрезков сырых записей", buckets.size(), raw.size());
+        return merge(parts);
+    }
+
+    private List<HitCount> merge(List<HitCount> parts) {
+        Map<Integer, Map<Integer, Long>> hits = new HashMap<>();
+        for (HitCount part : parts) {
+            hits.computeIfAbsent(part.getAppId(), app -> new HashMap<>())
+                    .merge(part.getUriId(), part.getHits(), Long::sum);
+        }
+        List<HitCount> result = new ArrayList<>();
+        hits.forEach((app, uriHits) -> uriHits.forEach((uri, count) -> result.add(new HitCount(app, uri, count))));
+        result.sort(Comparator.comparing(HitCount::getHits).reversed());
+        return result;
+    }
+}
@@ -0,0 +1,22 @@
+package ru.practicum.stats.rollup;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Полуинтервал [from, to), покрываемый корзинами одного размера или сырыми записями статистики
+ */
+@Data
+@AllArgsConstructor
+public class TimeSegment {
+    //размер корзин, null - интервал читается из сырых записей таблицы stats
+    private Granularity granularity;
+    private LocalDateTime from;
+    private LocalDateTime to;
+
+    public boolean isRaw() {
+        return granularity == null;
+    }
+}
@@ -0,0 +1,61 @@
+package ru.practicum.stats.rollup;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * класс для разбиения диапазона времени на минимальный набор корзин: середина диапазона покрывается
+ * самыми крупными корзинами, края - более мелкими, а остатки меньше самой мелкой корзины - сырыми записями
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class TimeSegments {
+    /**
+     * разбиение отрезка [start, end], заданного как в запросе статистики (обе границы включительно)
+     */
+    public static List<TimeSegment> coverClosed(LocalDateTime start, LocalDateTime end, Granularity... levels) {
+        //время запросов хранится с точностью до секунды, поэтому [start, end] совпадает с [start, end + 1с)
+        return cover(start, end.truncatedTo(ChronoUnit.SECONDS).plusSeconds(1), levels);
+    }
+
+    /**
+     * @param from   - начало полуинтервала (включительно)
+     * @param to     - конец полуинтервала (не включительно)
+     * @param levels - доступные размеры корзин по возрастанию
+     * @return - непересекающиеся отрезки, вместе покрывающие [from, to)
+     */
+    public static List<TimeSegment> cover(LocalDateTime from, LocalDateTime to, Granularity... levels) {
+        List<TimeSegment> segments = new ArrayList<>();
+        cover(from, to, levels, 0, segments);
+        return segments;
+    }
+
+    private static void cover(LocalDateTime from, LocalDateTime to, Granularity[] levels, int level,
+                              List<TimeSegment> segments) {
+        Granularity edge = level == 0 ? null : levels[level - 1];
+        if (level == levels.length) {
+            add(segments, edge, from, to);
+            return;
+        }
+        Granularity granularity = levels[level];
+        LocalDateTime innerFrom = granularity.ceil(from);
+        LocalDateTime innerTo = granularity.floor(to);
+        if (!innerFrom.isBefore(innerTo)) {
+            add(segments, edge, from, to);
+            return;
+        }
+        add(segments, edge, from, innerFrom);
+        add(segments, edge, innerTo, to);
+        cover(innerFrom, innerTo, levels, level + 1, segments);
+    }
+
+    private static void add(List<TimeSegment> segments, Granularity granularity, LocalDateTime from, LocalDateTime to) {
+        if (from.isBefore(to)) {
+            segments.add(new TimeSegment(granularity, from, to));
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package ru.practicum.stats.service;
+
+import ru.practicum.dto.stats.HistogramBucket;
+
+import java.util.function.Consumer;
+
+/**
+ * Гистограмма посещений, корзины которой передаются обработчику по мере чтения из б/д
+ * в порядке возрастания начала корзины
+ */
+@FunctionalInterface
+public interface HistogramStream {
+    void forEach(Consumer<HistogramBucket> consumer);
+}
@@ -2,6 +2,7 @@ package ru.practicum.stats.service;
 
 import ru.practicum.dto.stats.EndpointHit;
 import ru.practicum.dto.stats.ViewStats;
+import ru.practicum.stats.rollup.Granularity;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -18,6 +19,14 @@ public interface StatsService {
      */
     void add(EndpointHit endpointHit);
 
+    /**
+     * метод пакетного добавления статистики в одной транзакции
+     *
+     * @param endpointHits - список Stats в формате EndpointHit
+     * @return - количество принятых записей
+     */
+    int addAll(List<EndpointHit> endpointHits);
+
     /**
      * метод возвращающий статистику за определенный промежуток времени
      *
@@ -25,8 +34,34 @@ public interface StatsService {
      * @param end    - Дата и время конца диапазона за который нужно выгрузить статистику
      * @param uris   - Список uri для которых нужно выгрузить статистику
      * @param unique Нужно ли учитывать только уникальные посещения (только с уникальным ip)
+     * @param exact  - точный подсчет уникальных посещений по сырым записям вместо оценки по скетчам
      * @return
      */
-    List<ViewStats> getStats(LocalDateTime start, LocalDateTime end, List<String> uris, Boolean unique);
+    List<ViewStats> getStats(LocalDateTime start, LocalDateTime end, List<String> uris, Boolean unique, Boolean exact);
+
+    /**
+     * метод возвращающий самые посещаемые uri за промежуток времени
+     *
+     * @param start  - Дата и время начала диапазона
+     * @param end    - Дата и время конца диапазона
+     * @param n      - количество uri
+     * @param unique - учитывать только уникальные посещения
+     * @return - не больше n записей статистики по убыванию количества посещений
+     */
+    List<ViewStats> getTop(LocalDateTime start, LocalDateTime end, Integer n, Boolean unique);
+
+    /**
+     * метод возвращающий гистограмму посещений; параметры проверяются сразу, корзины читаются из б/д
+     * только при обходе гистограммы
+     *
+     * @param start       - Дата и время начала диапазона (включительно)
+     * @param end         - Дата и время конца диапазона (включительно)
+     * @param uris        - Список uri, пустой - все uri
+     * @param granularity - размер корзины
+     * @param unique      - считать также уникальные посещения
+     * @return - корзины по возрастанию начала, крайние корзины ограничены диапазоном
+     */
+    HistogramStream getHistogram(LocalDateTime start, LocalDateTime end, List<String> uris,
+                                 Granularity granularity, Boolean unique);
 
 }
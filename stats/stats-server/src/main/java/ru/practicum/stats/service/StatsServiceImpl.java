@@ -5,13 +5,32 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import ru.practicum.dto.stats.EndpointHit;
 import ru.practicum.dto.stats.ViewStats;
+import ru.practicum.stats.buffer.HitWriteBuffer;
+import ru.practicum.stats.dictionary.DictionaryKind;
+import ru.practicum.stats.dictionary.StatsDictionary;
+import ru.practicum.stats.hitlog.HitLog;
+import ru.practicum.stats.hot.HotWindowIndex;
 import ru.practicum.stats.exeption.ValidationException;
 import ru.practicum.stats.mapper.Mapper;
+import ru.practicum.stats.model.BucketCount;
+import ru.practicum.stats.model.HitCount;
 import ru.practicum.stats.model.Stats;
+import ru.practicum.stats.partition.StatsPartitionManager;
+import ru.practicum.stats.repository.HistogramRepository;
 import ru.practicum.stats.repository.StateRepository;
+import ru.practicum.stats.rollup.Granularity;
+import ru.practicum.stats.rollup.RollupService;
+import ru.practicum.stats.sketch.SketchService;
+import ru.practicum.stats.top.HeavyHitters;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 /**
  * класс, реализующий логику интерфейса StatsService
@@ -22,6 +41,16 @@ import java.util.List;
 public class StatsServiceImpl implements StatsService {
 
     private final StateRepository repository;
+    private final HistogramRepository histogramRepository;
+    private final StatsWriter writer;
+    private final HitWriteBuffer buffer;
+    private final HitLog hitLog;
+    private final RollupService rollupService;
+    private final SketchService sketchService;
+    private final StatsDictionary dictionary;
+    private final HotWindowIndex hotWindow;
+    private final HeavyHitters heavyHitters;
+    private final StatsPartitionManager partitionManager;
 
     /**
      * метод добавления статистики
@@ -30,8 +59,24 @@ public class StatsServiceImpl implements StatsService {
      */
     @Override
     public void add(EndpointHit endpointHit) {
-        Stats stats = Mapper.toStats(endpointHit);
-        repository.save(stats);
+        store(List.of(Mapper.toStats(endpointHit)));
+    }
+
+    /**
+     * метод пакетного добавления статистики в одной транзакции
+     *
+     * @param endpointHits - список Stats в формате EndpointHit
+     * @return - количество принятых записей
+     */
+    @Override
+    public int addAll(List<EndpointHit> endpointHits) {
+        List<Stats> stats = endpointHits.stream()
+                .filter(Objects::nonNull)
+                .map(Mapper::toStats)
+                .collect(Collectors.toList());
+        int accepted = store(stats);
+        log.info("Принято записей статистики {}", accepted);
+        return accepted;
     }
 
     /**
@@ -41,29 +86,152 @@ public class StatsServiceImpl implements StatsService {
      * @param end    - Дата и время конца диапазона за который нужно выгрузить статистику
      * @param uris   - Список uri для которых нужно выгрузить статистику
      * @param unique Нужно ли учитывать только уникальные посещения (только с уникальным ip)
+     * @param exact  - точный подсчет уникальных посещений по сырым записям вместо оценки по скетчам
      * @return - статистику за определенный промежуток времени
      */
     @Override
-    public List<ViewStats> getStats(LocalDateTime start, LocalDateTime end, List<String> uris, Boolean unique) {
+    public List<ViewStats> getStats(LocalDateTime start, LocalDateTime end, List<String> uris, Boolean unique,
+                                    Boolean exact) {
+        validateRange(start, end);
+        List<Integer> uriFilter = uris == null || uris.isEmpty() ? null : dictionary.findUriIds(uris);
+        if (uriFilter != null && uriFilter.isEmpty()) {
+            log.info("По запрошенным uri статистики нет");
+            return List.of();
+        }
+        List<ViewStats> stats = dictionary.toViewStats(countHits(start, end, uriFilter, unique, exact));
+        log.info("Возвращаем запрос {}", stats);
+        return stats;
+    }
+
+    /**
+     * метод возвращающий самые посещаемые uri за промежуток времени. Для неуникальных посещений
+     * на больших диапазонах кандидаты выбираются по сводкам Space-Saving и пересчитываются точно,
+     * иначе считается полная статистика
+     *
+     * @param start  - Дата и время начала диапазона
+     * @param end    - Дата и время конца диапазона
+     * @param n      - количество uri
+     * @param unique - учитывать только уникальные посещения
+     * @return - не больше n записей статистики по убыванию количества посещений
+     */
+    @Override
+    public List<ViewStats> getTop(LocalDateTime start, LocalDateTime end, Integer n, Boolean unique) {
+        validateRange(start, end);
+        if (n <= 0) {
+            throw new ValidationException("Количество uri должно быть положительным");
+        }
+        List<HitCount> counts;
+        if (!unique && heavyHitters.covers(start, end)) {
+            //запас кандидатов компенсирует погрешность сводок
+            List<Long> candidates = heavyHitters.candidates(start, end, (int) Math.min(Integer.MAX_VALUE, n * 2L + 10));
+            if (candidates.isEmpty()) {
+                return List.of();
+            }
+            Set<Long> keys = new HashSet<>(candidates);
+            counts = countHits(start, end, candidates.stream().map(HeavyHitters::uriId).distinct()
+                    .collect(Collectors.toList()), false, false).stream()
+                    .filter(count -> keys.contains(HeavyHitters.key(count.getAppId(), count.getUriId())))
+                    .collect(Collectors.toList());
+        } else {
+            counts = countHits(start, end, null, unique, false);
+        }
+        List<ViewStats> top = dictionary.toViewStats(counts.stream().limit(n).collect(Collectors.toList()));
+        log.info("Возвращаем топ {} uri с {} по {}", n, start, end);
+        return top;
+    }
+
+    /**
+     * метод возвращающий гистограмму посещений. Неуникальные посещения по целым корзинам берутся из агрегатов,
+     * неполные крайние корзины и уникальные посещения считаются одним упорядоченным проходом по сырым записям
+     *
+     * @param start       - Дата и время начала диапазона (включительно)
+     * @param end         - Дата и время конца диапазона (включительно)
+     * @param uris        - Список uri, пустой - все uri
+     * @param granularity - размер корзины
+     * @param unique      - считать также уникальные посещения
+     * @return - корзины по возрастанию начала
+     */
+    @Override
+    public HistogramStream getHistogram(LocalDateTime start, LocalDateTime end, List<String> uris,
+                                        Granularity granularity, Boolean unique) {
+        validateRange(start, end);
+        List<Integer> uriFilter = uris == null || uris.isEmpty() ? null : dictionary.findUriIds(uris);
+        if (uriFilter != null && uriFilter.isEmpty()) {
+            return consumer -> {
+            };
+        }
+        LocalDateTime endExclusive = end.truncatedTo(ChronoUnit.SECONDS).plusSeconds(1);
+        LocalDateTime fullFrom = granularity.ceil(start);
+        LocalDateTime fullTo = granularity.floor(endExclusive);
+        log.info("Строим гистограмму с {} по {} с корзинами {}", start, end, granularity);
+        return consumer -> {
+            Consumer<BucketCount> mapper = count -> consumer.accept(Mapper.toHistogramBucket(
+                    dictionary.name(DictionaryKind.APP, count.getAppId()),
+                    dictionary.name(DictionaryKind.URI, count.getUriId()), count));
+            if (unique || !rollupService.isEnabled() || !fullFrom.isBefore(fullTo)) {
+                histogramRepository.forEachRawBucket(granularity, start, endExclusive, uriFilter, unique, mapper);
+                return;
+            }
+            if (start.isBefore(fullFrom)) {
+                histogramRepository.forEachRawBucket(granularity, start, fullFrom, uriFilter, false, mapper);
+            }
+            histogramRepository.forEachRollupBucket(granularity, fullFrom, fullTo, uriFilter, mapper);
+            if (fullTo.isBefore(endExclusive)) {
+                histogramRepository.forEachRawBucket(granularity, fullTo, endExclusive, uriFilter, false, mapper);
+            }
+        };
+    }
+
+    private void validateRange(LocalDateTime start, LocalDateTime end) {
         if (start.isAfter(end) || start.equals(end)) {
             throw new ValidationException("Некорректно заданы временные заданы параметры поиска");
         }
-        List<ViewStats> stats;
-        if (uris == null || uris.isEmpty()) {
+    }
+
+    /**
+     * вспомогательный метод выбора источника статистики: горячее окно, агрегаты, скетчи или сырые записи
+     *
+     * @return - статистика по убыванию количества посещений
+     */
+    private List<HitCount> countHits(LocalDateTime start, LocalDateTime end, List<Integer> uriFilter,
+                                     boolean unique, boolean exact) {
+        List<HitCount> counts;
+        if (hotWindow.covers(start)) {
+            counts = hotWindow.getStats(start, end, uriFilter, unique);
+        } else if (!unique && rollupService.isEnabled()) {
+            counts = rollupService.getStats(start, end, uriFilter);
+        } else if (unique && !exact && sketchService.isEnabled()) {
+            counts = sketchService.getUniqueStats(start, end, uriFilter);
+        } else if (uriFilter == null) {
             if (unique) {
-                stats = repository.getStatsUnique(start, end);
+                counts = repository.getStatsUnique(start, end);
             } else {
-                stats = repository.getStats(start, end);
+                counts = repository.getStats(start, end);
             }
         } else {
             if (!unique) {
-                stats = repository.getStatsForUri(start, end, uris);
+                counts = repository.getStatsForUri(start, end, uriFilter);
             } else {
-                stats = repository.getStatsForUriUnique(start, end, uris);
+                counts = repository.getStatsForUriUnique(start, end, uriFilter);
             }
 
         }
-        log.info("Возвращаем запрос {}", stats);
-        return stats;
+        return counts;
+    }
+
+    /**
+     * вспомогательный метод: при включенном журнале запросов или буфере отложенной записи помещает
+     * записи в них, иначе сохраняет их в б/д сразу
+     */
+    private int store(List<Stats> stats) {
+        //время проверяется до подтверждения приема: буфер и журнал сохраняют записи в б/д позже
+        partitionManager.validate(stats);
+        if (hitLog.isEnabled()) {
+            return hitLog.append(stats);
+        }
+        if (buffer.isEnabled()) {
+            return buffer.offer(stats);
+        }
+        return writer.write(stats);
     }
 }
@@ -0,0 +1,147 @@
+package ru.practicum.stats.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.stats.dictionary.StatsDictionary;
+import ru.practicum.stats.hot.HotWindowIndex;
+import ru.practicum.stats.model.Stats;
+import ru.practicum.stats.partition.StatsPartitionManager;
+import ru.practicum.stats.repository.HitBatchRepository;
+import ru.practicum.stats.rollup.RollupService;
+import ru.practicum.stats.sketch.SketchService;
+import ru.practicum.stats.top.HeavyHitters;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+
+/**
+ * класс, выполняющий запись пакета статистики и обновление агрегатов в одной транзакции.
+ * <p>
+ * Пакеты, поступившие одновременно, записываются одной транзакцией одного потока (групповая фиксация):
+ * пока идет запись, новые пакеты накапливаются в очереди, затем первый из ожидающих потоков записывает
+ * их все. Счетчики и скетчи каждой корзины обновляются один раз на группу, поэтому одновременные запросы
+ * к популярному uri не ждут друг друга на блокировках строк агрегатов. Вызов возвращается только после
+ * фиксации транзакции, в которую попали его записи.
+ */
+@Component
+@RequiredArgsConstructor
+public class StatsWriter {
+    private final HitBatchRepository batchRepository;
+    private final RollupService rollupService;
+    private final SketchService sketchService;
+    private final StatsPartitionManager partitionManager;
+    private final StatsDictionary dictionary;
+    private final HotWindowIndex hotWindow;
+    private final HeavyHitters heavyHitters;
+    private final TransactionTemplate transactionTemplate;
+    //пакеты, ожидающие записи, и признак идущей записи; доступ под монитором queue
+    private final Queue<PendingWrite> queue = new ArrayDeque<>();
+    private boolean writing;
+
+    /**
+     * метод записи пакета статистики
+     *
+     * @param stats - список записей статистики
+     * @return - количество сохраненных записей
+     */
+    public int write(List<Stats> stats) {
+        return write(stats, () -> {
+        });
+    }
+
+    /**
+     * метод записи пакета статистики с дополнительным действием в той же транзакции
+     *
+     * @param stats         - список записей статистики
+     * @param inTransaction - действие, выполняемое в транзакции записи
+     * @return - количество сохраненных записей
+     */
+    public int write(List<Stats> stats, Runnable inTransaction) {
+        //секции и значения словарей создаются до начала транзакции записи
+        partitionManager.ensurePartitions(stats);
+        dictionary.encode(stats);
+        PendingWrite write = new PendingWrite(stats, inTransaction);
+        List<PendingWrite> group;
+        boolean interrupted = false;
+        synchronized (queue) {
+            queue.add(write);
+            while (!write.done && writing) {
+                try {
+                    queue.wait();
+                } catch (InterruptedException e) {
+                    //пакет уже в очереди и будет записан, ожидание не прерывается, чтобы не вызвать повтор запроса
+                    interrupted = true;
+                }
+            }
+            if (!write.done) {
+                writing = true;
+                group = new ArrayList<>(queue);
+                queue.clear();
+            } else {
+                group = List.of();
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if (!group.isEmpty()) {
+            try {
+                commit(group);
+            } finally {
+                synchronized (queue) {
+                    for (PendingWrite w : group) {
+                        if (!w.done) {
+                            w.error = new IllegalStateException("Пакет статистики не записан");
+                            w.done = true;
+                        }
+                    }
+                    writing = false;
+                    queue.notifyAll();
+                }
+            }
+        }
+        if (write.error != null) {
+            throw write.error;
+        }
+        return write.stats.size();
+    }
+
+    private void commit(List<PendingWrite> group) {
+        List<Stats> stats = new ArrayList<>();
+        group.forEach(w -> stats.addAll(w.stats));
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                batchRepository.saveAll(stats);
+                rollupService.record(stats);
+                sketchService.record(stats);
+                group.forEach(w -> w.inTransaction.run());
+            });
+        } catch (RuntimeException e) {
+            group.forEach(w -> {
+                w.error = e;
+                w.done = true;
+            });
+            return;
+        }
+        group.forEach(w -> w.done = true);
+        //в горячее окно попадают только записи зафиксированных транзакций
+        hotWindow.record(stats);
+        heavyHitters.record(stats);
+    }
+
+    private static class PendingWrite {
+        private final List<Stats> stats;
+        private final Runnable inTransaction;
+        //поля изменяются записывающим потоком и читаются под монитором queue после его освобождения
+        private boolean done;
+        private RuntimeException error;
+
+        PendingWrite(List<Stats> stats, Runnable inTransaction) {
+            this.stats = stats;
+            this.inTransaction = inTransaction;
+        }
+    }
+}
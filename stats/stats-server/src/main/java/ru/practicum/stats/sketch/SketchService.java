@@ -0,0 +1,105 @@
+package ru.practicum.stats.sketch;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import ru.practicum.stats.model.HitCount;
+import ru.practicum.stats.model.Stats;
+import ru.practicum.stats.repository.SketchRepository;
+import ru.practicum.stats.rollup.Granularity;
+import ru.practicum.stats.rollup.RollupKey;
+import ru.practicum.stats.rollup.TimeSegment;
+import ru.practicum.stats.rollup.TimeSegments;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Сервис уникальной статистики: поддерживает скетчи HyperLogLog уникальных ip по (app, uri) в часовых
+ * и суточных корзинах и оценивает количество уникальных посещений объединением скетчей.
+ * Точность оценки описана в {@link HyperLogLog}.
+ */
+@Slf4j
+@Service
+public class SketchService {
+    private static final Granularity[] LEVELS = {Granularity.HOUR, Granularity.DAY};
+
+    private final SketchRepository sketchRepository;
+    private final boolean enabled;
+
+    public SketchService(SketchRepository sketchRepository,
+                         @Value("${stats.sketch.enabled:true}") boolean enabled) {
+        this.sketchRepository = sketchRepository;
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * метод обновления скетчей, вызывается в транзакции сохранения записей статистики
+     *
+     * @param stats - сохраненные записи статистики
+     */
+    public void record(List<Stats> stats) {
+        if (!enabled || stats.isEmpty()) {
+            return;
+        }
+        Map<RollupKey, List<byte[]>> ips = new TreeMap<>();
+        for (Stats hit : stats) {
+            for (Granularity granularity : LEVELS) {
+                RollupKey key = new RollupKey(granularity, hit.getAppId(), hit.getUriId(),
+                        granularity.floor(hit.getTimestamp()));
+                ips.computeIfAbsent(key, k -> new ArrayList<>()).add(hit.getIp());
+            }
+        }
+        List<RollupKey> keys = new ArrayList<>(ips.keySet());
+        sketchRepository.createMissing(keys);
+        Map<RollupKey, HyperLogLog> sketches = sketchRepository.findForUpdate(keys);
+        ips.forEach((key, values) -> values.forEach(sketches.get(key)::add));
+        sketchRepository.saveAll(sketches);
+    }
+
+    /**
+     * метод возвращающий оценку уникальной статистики за промежуток времени
+     *
+     * @param start - Дата и время начала диапазона (включительно)
+     * @param end   - Дата и время конца диапазона (включительно)
+     * @param uriIds - идентификаторы uri, null - все uri
+     * @return - статистика, упорядоченная по убыванию количества уникальных посещений
+     */
+    public List<HitCount> getUniqueStats(LocalDateTime start, LocalDateTime end, List<Integer> uriIds) {
+        List<TimeSegment> segments = TimeSegments.coverClosed(start, end, LEVELS);
+        List<TimeSegment> raw = segments.stream().filter(TimeSegment::isRaw).collect(Collectors.toList());
+        List<TimeSegment> buckets = segments.stream().filter(s -> !s.isRaw()).collect(Collectors.toList());
+        Map<Integer, Map<Integer, HyperLogLog>> sketches = new HashMap<>();
+        if (!buckets.isEmpty()) {
+            for (UriSketch bucket : sketchRepository.findSketches(buckets, uriIds)) {
+                sketch(sketches, bucket.getAppId(), bucket.getUriId()).merge(bucket.getSketch());
+            }
+        }
+        if (!raw.isEmpty()) {
+            for (Stats hit : sketchRepository.findRawIps(raw, uriIds)) {
+                sketch(sketches, hit.getAppId(), hit.getUriId()).add(hit.getIp());
+            }
+        }
+        List<HitCount> result = new ArrayList<>();
+        sketches.forEach((app, uriSketches) -> uriSketches.forEach((uri, sketch) ->
+                result.add(new HitCount(app, uri, sketch.estimate()))));
+        result.sort(Comparator.comparing(HitCount::getHits).reversed());
+        log.debug("Уникальная статистика оценена по {} корзинам и {} отрезкам сырых записей",
+                buckets.size(), raw.size());
+        return result;
+    }
+
+    private HyperLogLog sketch(Map<Integer, Map<Integer, HyperLogLog>> sketches, Integer app, Integer uri) {
+        return sketches.computeIfAbsent(app, a -> new HashMap<>()).computeIfAbsent(uri, u -> new HyperLogLog());
+    }
+}
@@ -0,0 +1,15 @@
+package ru.practicum.stats.sketch;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Скетч уникальных ip одной корзины для пары app, uri
+ */
+@Data
+@AllArgsConstructor
+public class UriSketch {
+    private Integer appId;
+    private Integer uriId;
+    private HyperLogLog sketch;
+}
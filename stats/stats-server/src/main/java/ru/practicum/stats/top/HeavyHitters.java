@@ -0,0 +1,130 @@
+package ru.practicum.stats.top;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.practicum.stats.model.Stats;
+import ru.practicum.stats.repository.RollupRepository;
+import ru.practicum.stats.rollup.Granularity;
+import ru.practicum.stats.rollup.RollupService;
+
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Часовые сводки Space-Saving самых посещаемых пар app, uri за последние retention-days дней.
+ * Сводки дают кандидатов в топ, точные значения для них считаются по агрегатам
+ */
+@Slf4j
+@Component
+public class HeavyHitters {
+    private final RollupRepository rollupRepository;
+    private final boolean enabled;
+    private final int capacity;
+    private final int retentionDays;
+    private final Duration exactBelow;
+    private final Map<LocalDateTime, SpaceSaving> hours = new ConcurrentHashMap<>();
+    private volatile LocalDateTime horizon;
+
+    public HeavyHitters(RollupRepository rollupRepository,
+                        RollupService rollupService,
+                        @Value("${stats.top.enabled:true}") boolean enabled,
+                        @Value("${stats.top.capacity:200}") int capacity,
+                        @Value("${stats.top.retention-days:7}") int retentionDays,
+                        @Value("${stats.top.exact-below-hours:6}") int exactBelowHours) {
+        this.rollupRepository = rollupRepository;
+        //сводки восстанавливаются из часовых агрегатов, без них после перезапуска они были бы неполными
+        this.enabled = enabled && rollupService.isEnabled();
+        this.capacity = capacity;
+        this.retentionDays = retentionDays;
+        this.exactBelow = Duration.ofHours(exactBelowHours);
+    }
+
+    @PostConstruct
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        LocalDateTime since = Granularity.HOUR.floor(LocalDateTime.now()).minusDays(retentionDays);
+        rollupRepository.forEachHourBucket(since, (bucket, count) ->
+                summary(bucket).add(key(count.getAppId(), count.getUriId()), count.getHits()));
+        horizon = since;
+        log.info("Сводки популярных uri восстановлены с {}, часов {}", since, hours.size());
+    }
+
+    /**
+     * метод учета сохраненных записей статистики
+     *
+     * @param stats - записи с заполненными идентификаторами app и uri
+     */
+    public void record(List<Stats> stats) {
+        if (!enabled) {
+            return;
+        }
+        Map<LocalDateTime, List<Stats>> byHour = stats.stream()
+                .filter(hit -> !hit.getTimestamp().isBefore(horizon))
+                .collect(Collectors.groupingBy(hit -> Granularity.HOUR.floor(hit.getTimestamp())));
+        byHour.forEach((hour, hits) -> {
+            SpaceSaving summary = summary(hour);
+            synchronized (summary) {
+                hits.forEach(hit -> summary.add(key(hit.getAppId(), hit.getUriId()), 1));
+            }
+        });
+    }
+
+    /**
+     * @return - true, если диапазон целиком покрыт сводками и достаточно велик, чтобы точный подсчет был дорог
+     */
+    public boolean covers(LocalDateTime start, LocalDateTime end) {
+        return enabled && !start.isBefore(horizon) && Duration.between(start, end).compareTo(exactBelow) >= 0;
+    }
+
+    /**
+     * метод выбора кандидатов в топ по сводкам часов, пересекающихся с диапазоном
+     *
+     * @param limit - количество кандидатов
+     * @return - ключи пар app, uri по убыванию оценки количества запросов
+     */
+    public List<Long> candidates(LocalDateTime start, LocalDateTime end, int limit) {
+        Map<Long, Long> totals = new HashMap<>();
+        hours.forEach((hour, summary) -> {
+            if (!hour.isAfter(end) && hour.plusHours(1).isAfter(start)) {
+                synchronized (summary) {
+                    summary.addTo(totals);
+                }
+            }
+        });
+        return totals.entrySet().stream()
+                .sorted(Map.Entry.<Long, Long>comparingByValue().reversed())
+                .limit(limit)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+    }
+
+    @Scheduled(cron = "${stats.top.prune-cron:0 0 * * * *}")
+    public void prune() {
+        if (enabled) {
+            horizon = Granularity.HOUR.floor(LocalDateTime.now()).minusDays(retentionDays);
+            hours.keySet().removeIf(hour -> hour.isBefore(horizon));
+        }
+    }
+
+    public static long key(int appId, int uriId) {
+        return ((long) appId << 32) | (uriId & 0xffffffffL);
+    }
+
+    public static int uriId(long key) {
+        return (int) key;
+    }
+
+    private SpaceSaving summary(LocalDateTime hour) {
+        return hours.computeIfAbsent(hour, h -> new SpaceSaving(capacity));
+    }
+}
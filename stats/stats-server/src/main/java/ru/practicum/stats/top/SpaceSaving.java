@@ -0,0 +1,60 @@
+package ru.practicum.stats.top;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Сводка Space-Saving: хранит не больше capacity счетчиков. Новый ключ при заполненной сводке вытесняет
+ * ключ с минимальным счетчиком и наследует его значение, поэтому счетчик завышает частоту не больше,
+ * чем на значение вытесненного. Любой ключ с частотой больше N / capacity гарантированно есть в сводке.
+ * Не потокобезопасен.
+ */
+class SpaceSaving {
+    private static final Comparator<Counter> ORDER = Comparator.comparingLong((Counter c) -> c.count)
+            .thenComparingLong(c -> c.key);
+
+    private final int capacity;
+    private final Map<Long, Counter> counters = new HashMap<>();
+    private final TreeSet<Counter> byCount = new TreeSet<>(ORDER);
+
+    SpaceSaving(int capacity) {
+        this.capacity = capacity;
+    }
+
+    void add(long key, long weight) {
+        Counter counter = counters.get(key);
+        if (counter == null) {
+            if (counters.size() < capacity) {
+                counter = new Counter(key, 0);
+            } else {
+                Counter min = byCount.pollFirst();
+                counters.remove(min.key);
+                counter = new Counter(key, min.count);
+            }
+            counters.put(key, counter);
+        } else {
+            byCount.remove(counter);
+        }
+        counter.count += weight;
+        byCount.add(counter);
+    }
+
+    /**
+     * метод прибавления счетчиков сводки к общим счетчикам
+     */
+    void addTo(Map<Long, Long> totals) {
+        counters.forEach((key, counter) -> totals.merge(key, counter.count, Long::sum));
+    }
+
+    private static class Counter {
+        private final long key;
+        private long count;
+
+        private Counter(long key, long count) {
+            this.key = key;
+            this.count = count;
+        }
+    }
+}
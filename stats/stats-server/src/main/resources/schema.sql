@@ -1,8 +1,51 @@
-DROP TABLE IF EXISTS stats CASCADE;
+CREATE TABLE IF NOT EXISTS stats_app (
+id SERIAL NOT NULL,
+name VARCHAR(125) NOT NULL,
+CONSTRAINT pk_stats_app PRIMARY KEY (id),
+CONSTRAINT uq_stats_app_name UNIQUE (name)
+);
+
+CREATE TABLE IF NOT EXISTS stats_uri (
+id SERIAL NOT NULL,
+name VARCHAR(125) NOT NULL,
+CONSTRAINT pk_stats_uri PRIMARY KEY (id),
+CONSTRAINT uq_stats_uri_name UNIQUE (name)
+);
+
 CREATE TABLE IF NOT EXISTS stats (
-id BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
-app VARCHAR(125) NOT NULL,
-uri VARCHAR(125) NOT NULL,
-ip VARCHAR(125) NOT NULL,
-timestamp TIMESTAMP WITHOUT TIME ZONE NOT NULL
-);
\ No newline at end of file
+id BIGSERIAL NOT NULL,
+app_id INTEGER NOT NULL,
+uri_id INTEGER NOT NULL,
+ip BYTEA NOT NULL,
+timestamp TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+CONSTRAINT pk_stats PRIMARY KEY (id, timestamp)
+) PARTITION BY RANGE (timestamp);
+
+CREATE TABLE IF NOT EXISTS stats_rollup (
+granularity VARCHAR(6) NOT NULL,
+app_id INTEGER NOT NULL,
+uri_id INTEGER NOT NULL,
+bucket TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+hits BIGINT NOT NULL,
+CONSTRAINT pk_stats_rollup PRIMARY KEY (granularity, app_id, uri_id, bucket)
+);
+
+CREATE INDEX IF NOT EXISTS stats_rollup_bucket_idx ON stats_rollup (granularity, bucket);
+
+CREATE TABLE IF NOT EXISTS stats_sketch (
+granularity VARCHAR(6) NOT NULL,
+app_id INTEGER NOT NULL,
+uri_id INTEGER NOT NULL,
+bucket TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+registers BYTEA NOT NULL,
+CONSTRAINT pk_stats_sketch PRIMARY KEY (granularity, app_id, uri_id, bucket)
+);
+
+CREATE INDEX IF NOT EXISTS stats_sketch_bucket_idx ON stats_sketch (granularity, bucket);
+
+CREATE TABLE IF NOT EXISTS stats_hitlog_checkpoint (
+id INTEGER NOT NULL,
+segment BIGINT NOT NULL,
+position INTEGER NOT NULL,
+CONSTRAINT pk_stats_hitlog_checkpoint PRIMARY KEY (id)
+);
@@ -0,0 +1,200 @@
+package ru.practicum.stats.buffer;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.practicum.stats.exeption.ServiceUnavailableException;
+import ru.practicum.stats.model.Stats;
+import ru.practicum.stats.service.StatsWriter;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class HitWriteBufferTest {
+    private StatsWriter writer;
+    private MeterRegistry meterRegistry;
+    //копии пакетов, переданных в writer: буфер очищает пакет после записи
+    private List<List<Stats>> written;
+
+    @BeforeEach
+    void setUp() {
+        writer = mock(StatsWriter.class);
+        meterRegistry = new SimpleMeterRegistry();
+        written = Collections.synchronizedList(new ArrayList<>());
+        when(writer.write(anyList())).thenAnswer(invocation -> {
+            List<Stats> batch = invocation.getArgument(0);
+            written.add(new ArrayList<>(batch));
+            return batch.size();
+        });
+    }
+
+    @Test
+    void rejectPolicyRefusesWholeBatchWhenFull() {
+        HitWriteBuffer buffer = buffer(3, OverflowPolicy.REJECT);
+        assertEquals(2, buffer.offer(hits(2)));
+
+        assertThrows(ServiceUnavailableException.class, () -> buffer.offer(hits(2)));
+        assertEquals(2, meterRegistry.counter("stats.buffer.overflow", "policy", "reject").count());
+        //после отказа свободное место не теряется
+        assertEquals(1, buffer.offer(hits(1)));
+    }
+
+    @Test
+    void dropPolicyAcceptsWhatFits() {
+        HitWriteBuffer buffer = buffer(3, OverflowPolicy.DROP);
+        assertEquals(2, buffer.offer(hits(2)));
+
+        assertEquals(1, buffer.offer(hits(4)));
+        assertEquals(3, meterRegistry.counter("stats.buffer.overflow", "policy", "drop").count());
+        assertEquals(0, buffer.offer(hits(1)));
+    }
+
+    @Test
+    void flusherWritesAcceptedHitsInBatches() throws InterruptedException {
+        HitWriteBuffer buffer = new HitWriteBuffer(writer, meterRegistry, true, 100, 2, 50, OverflowPolicy.REJECT, 2, 10);
+        buffer.start();
+        try {
+            buffer.offer(hits(5));
+
+            await(() -> writtenCount() == 5);
+            written.forEach(batch -> assertTrue(batch.size() <= 2));
+        } finally {
+            buffer.shutdown();
+        }
+    }
+
+    @Test
+    void flushedHitsFreeCapacity() throws InterruptedException {
+        HitWriteBuffer buffer = new HitWriteBuffer(writer, meterRegistry, true, 2, 2, 50, OverflowPolicy.REJECT, 2, 10);
+        buffer.start();
+        try {
+            buffer.offer(hits(2));
+            await(() -> writtenCount() == 2);
+
+            await(() -> tryOffer(buffer, 2));
+        } finally {
+            buffer.shutdown();
+        }
+    }
+
+    @Test
+    void shutdownFlushesRemainingHits() throws InterruptedException {
+        HitWriteBuffer buffer = new HitWriteBuffer(writer, meterRegistry, true, 100, 10, 60_000, OverflowPolicy.REJECT, 2, 10);
+        buffer.start();
+        buffer.offer(hits(3));
+
+        buffer.shutdown();
+
+        assertEquals(3, writtenCount());
+    }
+
+    @Test
+    void failedFlushIsRetriedThenCountedAndReleasesCapacity() throws InterruptedException {
+        doThrow(new IllegalStateException("нет соединения")).when(writer).write(anyList());
+        HitWriteBuffer buffer = new HitWriteBuffer(writer, meterRegistry, true, 2, 2, 50, OverflowPolicy.REJECT, 2, 10);
+        buffer.start();
+        try {
+            buffer.offer(hits(2));
+            await(() -> meterRegistry.counter("stats.buffer.failed").count() == 2);
+
+            //первая попытка и два повтора
+            verify(writer, times(3)).write(anyList());
+            await(() -> tryOffer(buffer, 2));
+        } finally {
+            buffer.shutdown();
+        }
+    }
+
+    @Test
+    void retriedFlushKeepsCapacityUntilSaved() throws InterruptedException {
+        AtomicInteger attempts = new AtomicInteger();
+        when(writer.write(anyList())).thenAnswer(invocation -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw new IllegalStateException("нет соединения");
+            }
+            List<Stats> batch = invocation.getArgument(0);
+            written.add(new ArrayList<>(batch));
+            return batch.size();
+        });
+        HitWriteBuffer buffer = new HitWriteBuffer(writer, meterRegistry, true, 2, 2, 50, OverflowPolicy.REJECT, 2, 500);
+        buffer.start();
+        try {
+            buffer.offer(hits(2));
+            await(() -> attempts.get() == 1);
+
+            //во время паузы перед повтором пакет занимает свои места
+            assertThrows(ServiceUnavailableException.class, () -> buffer.offer(hits(1)));
+            await(() -> writtenCount() == 2);
+            assertEquals(0, meterRegistry.counter("stats.buffer.failed").count());
+            await(() -> tryOffer(buffer, 2));
+        } finally {
+            buffer.shutdown();
+        }
+    }
+
+    @Test
+    void disabledBufferDoesNotStartFlusher() throws InterruptedException {
+        HitWriteBuffer buffer = buffer(10, OverflowPolicy.REJECT);
+        buffer.start();
+        buffer.offer(hits(1));
+        buffer.shutdown();
+
+        verify(writer, never()).write(anyList());
+    }
+
+    private int writtenCount() {
+        synchronized (written) {
+            return written.stream().mapToInt(List::size).sum();
+        }
+    }
+
+    //место в буфере освобождается после возврата из writer, поэтому попытка повторяется
+    private static boolean tryOffer(HitWriteBuffer buffer, int count) {
+        try {
+            return buffer.offer(hits(count)) == count;
+        } catch (ServiceUnavailableException e) {
+            return false;
+        }
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 2000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "Условие не выполнено за 2 секунды");
+            Thread.sleep(10);
+        }
+    }
+
+    private HitWriteBuffer buffer(int capacity, OverflowPolicy policy) {
+        return new HitWriteBuffer(writer, meterRegistry, false, capacity, 10, 50, policy, 2, 10);
+    }
+
+    private static List<Stats> hits(int count) {
+        List<Stats> hits = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            hits.add(Stats.builder()
+                    .app("ewm-main-service")
+                    .uri("/events/" + i)
+                    .ip(new byte[]{(byte) 192, (byte) 168, 0, 1})
+                    .timestamp(LocalDateTime.of(2022, 9, 6, 11, 0, 23))
+                    .build());
+        }
+        return hits;
+    }
+}
@@ -0,0 +1,166 @@
+package ru.practicum.stats.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import ru.practicum.dto.stats.EndpointHit;
+import ru.practicum.dto.stats.HistogramBucket;
+import ru.practicum.dto.stats.StatsQuery;
+import ru.practicum.dto.stats.ViewStats;
+import ru.practicum.stats.rollup.Granularity;
+import ru.practicum.stats.service.StatsService;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(value = StatsController.class, properties = "stats.hits.max-batch-size=3")
+class StatsControllerTest {
+    @Autowired
+    private MockMvc mvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @MockBean
+    private StatsService statsService;
+
+    @Test
+    void hitsAcceptsJsonArray() throws Exception {
+        when(statsService.addAll(anyList())).thenReturn(2);
+
+        mvc.perform(post("/hits")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(hit("/events/1"), hit("/events/2")))))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.accepted").value(2));
+        verify(statsService).addAll(argThat(hits -> hits.size() == 2 && "/events/2".equals(hits.get(1).getUri())));
+    }
+
+    @Test
+    void hitsAcceptsNdjsonStream() throws Exception {
+        when(statsService.addAll(anyList())).thenReturn(3);
+        String body = objectMapper.writeValueAsString(hit("/events/1")) + "\n"
+                + objectMapper.writeValueAsString(hit("/events/2")) + "\n"
+                + objectMapper.writeValueAsString(hit("/events/3")) + "\n";
+
+        mvc.perform(post("/hits")
+                        .contentType("application/x-ndjson")
+                        .content(body))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.accepted").value(3));
+        verify(statsService).addAll(argThat(hits -> hits.size() == 3 && "/events/3".equals(hits.get(2).getUri())));
+    }
+
+    @Test
+    void hitsOverMaxBatchSizeAreRejected() throws Exception {
+        List<EndpointHit> hits = List.of(hit("/events/1"), hit("/events/2"), hit("/events/3"), hit("/events/4"));
+
+        mvc.perform(post("/hits")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(hits)))
+                .andExpect(status().isBadRequest());
+        mvc.perform(post("/hits")
+                        .contentType("application/x-ndjson")
+                        .content(ndjson(hits)))
+                .andExpect(status().isBadRequest());
+        verify(statsService, never()).addAll(anyList());
+    }
+
+    @Test
+    void malformedNdjsonLineIsRejected() throws Exception {
+        String body = objectMapper.writeValueAsString(hit("/events/1")) + "\n"
+                + "{\"app\": \"ewm-main-service\", \"uri\": \n";
+
+        mvc.perform(post("/hits")
+                        .contentType("application/x-ndjson")
+                        .content(body))
+                .andExpect(status().isBadRequest());
+        verify(statsService, never()).addAll(anyList());
+    }
+
+    @Test
+    void hitWithoutAppIsRejected() throws Exception {
+        mvc.perform(post("/hit")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                new EndpointHit(null, "/events/1", "192.163.0.1", "2022-09-06 11:00:23"))))
+                .andExpect(status().isBadRequest());
+        verify(statsService, never()).add(any());
+    }
+
+    @Test
+    void hitsWithBlankUriAreRejected() throws Exception {
+        List<EndpointHit> hits = List.of(hit("/events/1"),
+                new EndpointHit("ewm-main-service", " ", "192.163.0.1", "2022-09-06 11:00:23"));
+
+        mvc.perform(post("/hits")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(hits)))
+                .andExpect(status().isBadRequest());
+        verify(statsService, never()).addAll(anyList());
+    }
+
+    @Test
+    void statsQueryPassesUrisFromBody() throws Exception {
+        List<String> uris = List.of("/events/1", "/events/2", "/events/3");
+        when(statsService.getStats(any(), any(), anyList(), any(), any()))
+                .thenReturn(List.of(new ViewStats("ewm-main-service", "/events/2", 4L)));
+        StatsQuery query = new StatsQuery("2022-09-06 00:00:00", "2022-09-07 00:00:00", uris, true, null);
+
+        mvc.perform(post("/stats/query")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(query)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].uri").value("/events/2"))
+                .andExpect(jsonPath("$[0].hits").value(4));
+        verify(statsService).getStats(LocalDateTime.of(2022, 9, 6, 0, 0), LocalDateTime.of(2022, 9, 7, 0, 0),
+                uris, true, false);
+    }
+
+    @Test
+    void histogramIsStreamedAsJsonArray() throws Exception {
+        HistogramBucket bucket = new HistogramBucket("ewm-main-service", "/events/1", "2022-09-06 11:00:00", 5L, null);
+        when(statsService.getHistogram(any(), any(), any(), eq(Granularity.HOUR), eq(false)))
+                .thenReturn(consumer -> consumer.accept(bucket));
+
+        MvcResult result = mvc.perform(get("/stats/histogram")
+                        .param("start", "2022-09-06 10:00:00")
+                        .param("end", "2022-09-06 12:00:00"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].uri").value("/events/1"))
+                .andExpect(jsonPath("$[0].hits").value(5));
+    }
+
+    private String ndjson(List<EndpointHit> hits) throws Exception {
+        StringBuilder body = new StringBuilder();
+        for (EndpointHit hit : hits) {
+            body.append(objectMapper.writeValueAsString(hit)).append("\n");
+        }
+        return body.toString();
+    }
+
+    private static EndpointHit hit(String uri) {
+        return new EndpointHit("ewm-main-service", uri, "192.163.0.1", "2022-09-06 11:00:23");
+    }
+}
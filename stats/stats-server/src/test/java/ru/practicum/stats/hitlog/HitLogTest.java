@@ -0,0 +1,202 @@
+package ru.practicum.stats.hitlog;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.practicum.stats.exeption.ServiceUnavailableException;
+import ru.practicum.stats.exeption.ValidationException;
+import ru.practicum.stats.model.Stats;
+import ru.practicum.stats.repository.HitLogCheckpointRepository;
+import ru.practicum.stats.service.StatsWriter;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class HitLogTest {
+    @TempDir
+    Path dir;
+    private StatsWriter writer;
+    private HitLogCheckpointRepository checkpointRepository;
+    //записи, перенесенные в б/д
+    private List<Stats> compacted;
+
+    @BeforeEach
+    void setUp() {
+        writer = mock(StatsWriter.class);
+        checkpointRepository = mock(HitLogCheckpointRepository.class);
+        compacted = Collections.synchronizedList(new ArrayList<>());
+        when(writer.write(anyList(), any(Runnable.class))).thenAnswer(invocation -> {
+            List<Stats> batch = invocation.getArgument(0);
+            compacted.addAll(batch);
+            invocation.<Runnable>getArgument(1).run();
+            return batch.size();
+        });
+    }
+
+    @Test
+    void appendedHitsAreCompactedWithCheckpoint() {
+        HitLog hitLog = hitLog(writer, 32, 50);
+        hitLog.start();
+        try {
+            List<Stats> hits = hits(3);
+
+            assertEquals(3, hitLog.append(hits));
+
+            int end = hits.stream().mapToInt(hit -> HitLogSegment.encode(hit).remaining()).sum();
+            verify(checkpointRepository, timeout(2000)).save(new HitLogPosition(0, end));
+            assertEquals(uris(hits), uris(compacted));
+        } finally {
+            hitLog.stop();
+        }
+    }
+
+    @Test
+    void compactionResumesAfterRestart() {
+        StatsWriter failing = mock(StatsWriter.class);
+        doThrow(new IllegalStateException("нет соединения")).when(failing).write(anyList(), any(Runnable.class));
+        HitLog first = hitLog(failing, 32, 60_000);
+        first.start();
+        first.append(hits(5));
+        first.stop();
+
+        HitLog second = hitLog(writer, 32, 50);
+        second.start();
+        try {
+            verify(checkpointRepository, timeout(2000)).save(any());
+            assertEquals(uris(hits(5)), uris(compacted));
+            second.append(hits(2));
+            verify(checkpointRepository, timeout(2000).times(2)).save(any());
+            assertEquals(7, compacted.size());
+        } finally {
+            second.stop();
+        }
+    }
+
+    @Test
+    void batchExceedingFreeSegmentsIsRejectedWhole() throws IOException {
+        //журнал из двух сегментов по 1 Мб, перенос не успевает
+        StatsWriter failing = mock(StatsWriter.class);
+        doThrow(new IllegalStateException("нет соединения")).when(failing).write(anyList(), any(Runnable.class));
+        HitLog hitLog = hitLog(failing, 2, 60_000);
+        hitLog.start();
+        try {
+            int perSegment = 1024 * 1024 / HitLogSegment.encode(hits(1).get(0)).remaining();
+
+            assertThrows(ServiceUnavailableException.class, () -> hitLog.append(hits(perSegment * 2 + 10)));
+            assertEquals(1, segmentFiles().size());
+
+            assertEquals(perSegment + 10, hitLog.append(hits(perSegment + 10)));
+            assertEquals(2, segmentFiles().size());
+        } finally {
+            hitLog.stop();
+        }
+    }
+
+    @Test
+    void invalidHitIsRejectedBeforeWrite() {
+        HitLog hitLog = hitLog(writer, 32, 50);
+        hitLog.start();
+        try {
+            List<Stats> hits = hits(2);
+            hits.get(1).setUri("/" + "a".repeat(200));
+
+            assertThrows(ValidationException.class, () -> hitLog.append(hits));
+            hitLog.append(hits(1));
+
+            verify(checkpointRepository, timeout(2000)).save(any());
+            assertEquals(1, compacted.size());
+        } finally {
+            hitLog.stop();
+        }
+    }
+
+    @Test
+    void checkpointOfMissingSegmentFailsStart() {
+        createSegment();
+        when(checkpointRepository.find()).thenReturn(new HitLogPosition(5, 0));
+
+        assertThrows(IllegalStateException.class, () -> hitLog(writer, 32, 50).start());
+    }
+
+    @Test
+    void checkpointPastWrittenRecordsFailsStart() {
+        createSegment();
+        when(checkpointRepository.find()).thenReturn(new HitLogPosition(0, 100_000));
+
+        assertThrows(IllegalStateException.class, () -> hitLog(writer, 32, 50).start());
+    }
+
+    @Test
+    void checkpointIsResetForEmptyDirectory() throws IOException {
+        when(checkpointRepository.find()).thenReturn(new HitLogPosition(3, 120));
+        HitLog hitLog = hitLog(writer, 32, 50);
+
+        hitLog.start();
+        try {
+            verify(checkpointRepository).save(new HitLogPosition(4, 0));
+            assertEquals(List.of("segment-00000000000000000004.log"), segmentFiles());
+        } finally {
+            hitLog.stop();
+        }
+    }
+
+    //сегмент с записями, которые не переносятся в б/д
+    private void createSegment() {
+        StatsWriter failing = mock(StatsWriter.class);
+        doThrow(new IllegalStateException("нет соединения")).when(failing).write(anyList(), any(Runnable.class));
+        HitLog hitLog = hitLog(failing, 32, 60_000);
+        hitLog.start();
+        hitLog.append(hits(3));
+        hitLog.stop();
+        verify(checkpointRepository, never()).save(any());
+    }
+
+    private HitLog hitLog(StatsWriter statsWriter, int maxSegments, long compactIntervalMs) {
+        return new HitLog(statsWriter, checkpointRepository, new SimpleMeterRegistry(), true, dir.toString(), 1,
+                maxSegments, 1000, compactIntervalMs, false);
+    }
+
+    private List<String> segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.map(file -> file.getFileName().toString()).sorted().collect(Collectors.toList());
+        }
+    }
+
+    private static List<String> uris(List<Stats> hits) {
+        synchronized (hits) {
+            return hits.stream().map(Stats::getUri).collect(Collectors.toList());
+        }
+    }
+
+    private static List<Stats> hits(int count) {
+        List<Stats> hits = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            hits.add(Stats.builder()
+                    .app("ewm-main-service")
+                    .uri("/events/" + i)
+                    .ip(new byte[]{(byte) 192, (byte) 163, 0, 1})
+                    .timestamp(LocalDateTime.of(2022, 9, 6, 11, 0, 23))
+                    .build());
+        }
+        return hits;
+    }
+}
@@ -0,0 +1,127 @@
+package ru.practicum.stats.hot;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.practicum.stats.model.HitCount;
+import ru.practicum.stats.model.Stats;
+import ru.practicum.stats.repository.HotWindowRepository;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+class HotWindowIndexTest {
+    private final LocalDateTime base = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS).minusDays(1);
+    private HotWindowRepository hotWindowRepository;
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        hotWindowRepository = mock(HotWindowRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void rebuildLoadsWindowFromDatabase() {
+        doAnswer(invocation -> {
+            Consumer<Stats> consumer = invocation.getArgument(1);
+            consumer.accept(hit(1, 1, base));
+            consumer.accept(hit(2, 1, base.plusMinutes(1)));
+            return null;
+        }).when(hotWindowRepository).forEachSince(any(), any());
+        HotWindowIndex index = index(64);
+        assertFalse(index.covers(base));
+
+        index.rebuild();
+
+        assertTrue(index.covers(base));
+        assertFalse(index.covers(base.minusDays(7)));
+        assertEquals(List.of(new HitCount(1, 1, 2L)),
+                index.getStats(base.minusHours(1), base.plusHours(1), null, false));
+    }
+
+    @Test
+    void getStatsCountsHitsInRange() {
+        HotWindowIndex index = index(64);
+        index.rebuild();
+        index.record(List.of(hit(1, 1, base), hit(2, 1, base.plusSeconds(1)), hit(1, 1, base.plusSeconds(2)),
+                hit(1, 2, base.plusHours(2)), hit(1, 3, base.minusHours(1))));
+
+        assertEquals(List.of(new HitCount(1, 1, 3L), new HitCount(1, 2, 1L)),
+                index.getStats(base, base.plusHours(2), null, false));
+        assertEquals(List.of(new HitCount(1, 1, 3L)),
+                index.getStats(base, base.plusSeconds(2), List.of(1), false));
+    }
+
+    @Test
+    void uniqueStatsCountDistinctIps() {
+        HotWindowIndex index = index(64);
+        index.rebuild();
+        index.record(List.of(hit(1, 1, base), hit(1, 1, base.plusSeconds(1)), hit(2, 1, base.plusSeconds(2))));
+
+        assertEquals(List.of(new HitCount(1, 1, 2L)), index.getStats(base, base.plusHours(1), null, true));
+    }
+
+    @Test
+    void hitsBeforeWindowAreIgnored() {
+        HotWindowIndex index = index(64);
+        index.rebuild();
+        index.record(List.of(hit(1, 1, base.minusDays(30))));
+
+        assertTrue(index.getStats(base.minusDays(31), base, null, false).isEmpty());
+    }
+
+    @Test
+    void windowShrinksToMemoryBudget() {
+        HotWindowIndex index = index(1);
+        index.rebuild();
+        long maxHits = 1024 * 1024 / UriHits.BYTES_PER_HIT;
+        LocalDateTime start = base.minusDays(5);
+        List<Stats> stats = new ArrayList<>();
+        for (int i = 0; i < maxHits + 1000; i++) {
+            stats.add(hit(i, 1, start.plusSeconds(i * 5L)));
+        }
+
+        index.record(stats);
+
+        double hits = meterRegistry.get("stats.hot.hits").gauge().value();
+        assertTrue(hits <= maxHits, "в окне " + hits + " записей");
+        assertFalse(index.covers(start));
+        LocalDateTime last = stats.get(stats.size() - 1).getTimestamp();
+        assertTrue(index.covers(last));
+        assertEquals(1L, index.getStats(last, last, null, false).get(0).getHits());
+    }
+
+    @Test
+    void disabledIndexCoversNothing() {
+        HotWindowIndex index = new HotWindowIndex(hotWindowRepository, meterRegistry, false, 7, 64);
+        index.rebuild();
+        index.record(List.of(hit(1, 1, base)));
+
+        assertFalse(index.covers(base));
+    }
+
+    private HotWindowIndex index(long memoryBudgetMb) {
+        return new HotWindowIndex(hotWindowRepository, meterRegistry, true, 7, memoryBudgetMb);
+    }
+
+    private static Stats hit(int ip, int uriId, LocalDateTime timestamp) {
+        return Stats.builder()
+                .appId(1)
+                .uriId(uriId)
+                .ip(new byte[]{10, (byte) (ip >>> 16), (byte) (ip >>> 8), (byte) ip})
+                .timestamp(timestamp)
+                .build();
+    }
+}
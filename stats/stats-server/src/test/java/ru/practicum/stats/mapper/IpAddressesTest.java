@@ -0,0 +1,36 @@
+package ru.practicum.stats.mapper;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.stats.exeption.ValidationException;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class IpAddressesTest {
+
+    @Test
+    void ipv4IsPackedToFourBytes() {
+        assertArrayEquals(new byte[]{(byte) 192, (byte) 163, 0, 1}, IpAddresses.pack("192.163.0.1"));
+        assertArrayEquals(new byte[]{(byte) 255, (byte) 255, (byte) 255, (byte) 255},
+                IpAddresses.pack("255.255.255.255"));
+    }
+
+    @Test
+    void ipv6IsPackedToSixteenBytes() {
+        byte[] address = IpAddresses.pack("2001:db8::1");
+
+        assertEquals(16, address.length);
+        assertEquals(0x20, address[0]);
+        assertEquals(0x01, address[1]);
+        assertEquals(1, address[15]);
+    }
+
+    @Test
+    void invalidAddressesAreRejected() {
+        for (String ip : new String[]{null, "", " ", "192.163.0", "192.163.0.1.2", "192.163.0.256", "192.163..1",
+                "192.163.0.a", "1921.163.0.1", "localhost", "2001:db8::zz"}) {
+            assertThrows(ValidationException.class, () -> IpAddresses.pack(ip), String.valueOf(ip));
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package ru.practicum.stats.mapper;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.dto.stats.EndpointHit;
+import ru.practicum.stats.exeption.ValidationException;
+import ru.practicum.stats.model.Stats;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MapperTest {
+
+    @Test
+    void toStatsConvertsHit() {
+        Stats stats = Mapper.toStats(new EndpointHit("ewm-main-service", "/events/1", "192.163.0.1",
+                "2022-09-06 11:00:23"));
+
+        assertEquals("ewm-main-service", stats.getApp());
+        assertEquals("/events/1", stats.getUri());
+        assertArrayEquals(new byte[]{(byte) 192, (byte) 163, 0, 1}, stats.getIp());
+        assertEquals(LocalDateTime.of(2022, 9, 6, 11, 0, 23), stats.getTimestamp());
+    }
+
+    @Test
+    void toStatsRejectsMissingFields() {
+        assertThrows(ValidationException.class, () -> Mapper.toStats(
+                new EndpointHit(null, "/events/1", "192.163.0.1", "2022-09-06 11:00:23")));
+        assertThrows(ValidationException.class, () -> Mapper.toStats(
+                new EndpointHit("ewm-main-service", " ", "192.163.0.1", "2022-09-06 11:00:23")));
+        assertThrows(ValidationException.class, () -> Mapper.toStats(
+                new EndpointHit("ewm-main-service", "/events/1", null, "2022-09-06 11:00:23")));
+        assertThrows(ValidationException.class, () -> Mapper.toStats(
+                new EndpointHit("ewm-main-service", "/events/1", "192.163.0.1", null)));
+    }
+
+    @Test
+    void toDateTimeRejectsWrongFormat() {
+        assertThrows(ValidationException.class, () -> Mapper.toDateTime("2022-09-06T11:00:23"));
+    }
+}
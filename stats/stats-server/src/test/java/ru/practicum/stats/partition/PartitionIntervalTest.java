@@ -0,0 +1,27 @@
+package ru.practicum.stats.partition;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PartitionIntervalTest {
+
+    @Test
+    void dayPartitionStartsAtDate() {
+        LocalDate date = LocalDate.of(2022, 2, 28);
+
+        assertEquals(date, PartitionInterval.DAY.floor(date));
+        assertEquals(LocalDate.of(2022, 3, 1), PartitionInterval.DAY.next(date));
+    }
+
+    @Test
+    void monthPartitionStartsAtFirstDay() {
+        LocalDate start = PartitionInterval.MONTH.floor(LocalDate.of(2022, 1, 31));
+
+        assertEquals(LocalDate.of(2022, 1, 1), start);
+        assertEquals(LocalDate.of(2022, 2, 1), PartitionInterval.MONTH.next(start));
+        assertEquals(LocalDate.of(2023, 1, 1), PartitionInterval.MONTH.next(LocalDate.of(2022, 12, 1)));
+    }
+}
@@ -0,0 +1,168 @@
+package ru.practicum.stats.partition;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import ru.practicum.stats.exeption.ValidationException;
+import ru.practicum.stats.model.Stats;
+import ru.practicum.stats.repository.PartitionRepository;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class StatsPartitionManagerTest {
+    private static final DateTimeFormatter NAME_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    private PartitionRepository partitionRepository;
+    private DataSource dataSource;
+    private final LocalDate today = LocalDate.now();
+
+    @BeforeEach
+    void setUp() {
+        partitionRepository = mock(PartitionRepository.class);
+        dataSource = mock(DataSource.class);
+        when(partitionRepository.isCurrentLayout()).thenReturn(true);
+    }
+
+    @Test
+    void initCreatesIndexesOnCurrentLayout() {
+        manager(PartitionInterval.DAY, 0, 0, RetentionMode.DROP).init();
+
+        InOrder order = inOrder(partitionRepository);
+        order.verify(partitionRepository).isCurrentLayout();
+        order.verify(partitionRepository).createIndexes();
+        order.verify(partitionRepository).findPartitions();
+        verify(partitionRepository, never()).dropLegacyTables();
+    }
+
+    @Test
+    void initCreatesIndexesAfterLegacyTablesAreRecreated() throws SQLException {
+        when(partitionRepository.isCurrentLayout()).thenReturn(false);
+        Connection connection = mock(Connection.class);
+        Statement statement = mock(Statement.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.createStatement()).thenReturn(statement);
+
+        manager(PartitionInterval.DAY, 0, 0, RetentionMode.DROP).init();
+
+        InOrder order = inOrder(partitionRepository, statement);
+        order.verify(partitionRepository).dropLegacyTables();
+        order.verify(statement, atLeastOnce()).execute(contains("stats"));
+        order.verify(partitionRepository).createIndexes();
+        order.verify(partitionRepository).findPartitions();
+    }
+
+    @Test
+    void maintainCreatesPartitionsAhead() {
+        when(partitionRepository.findPartitions()).thenReturn(List.of("stats_default", name(today)));
+
+        manager(PartitionInterval.DAY, 2, 0, RetentionMode.DROP).maintain();
+
+        verify(partitionRepository, never()).createPartition(eq(name(today)), any(), any());
+        verify(partitionRepository).createPartition(name(today.plusDays(1)), today.plusDays(1), today.plusDays(2));
+        verify(partitionRepository).createPartition(name(today.plusDays(2)), today.plusDays(2), today.plusDays(3));
+        verify(partitionRepository, times(2)).createPartition(anyString(), any(), any());
+    }
+
+    @Test
+    void monthPartitionsCoverWholeMonth() {
+        LocalDate month = today.withDayOfMonth(1);
+
+        manager(PartitionInterval.MONTH, 0, 0, RetentionMode.DROP).maintain();
+
+        verify(partitionRepository).createPartition(name(month), month, month.plusMonths(1));
+    }
+
+    @Test
+    void ensurePartitionsCreatesMissingPartitionOnce() {
+        StatsPartitionManager manager = manager(PartitionInterval.DAY, 0, 0, RetentionMode.DROP);
+        manager.maintain();
+        LocalDate old = today.minusDays(10);
+
+        manager.ensurePartitions(List.of(hit(old), hit(old), hit(today)));
+        manager.ensurePartitions(List.of(hit(old)));
+
+        verify(partitionRepository, times(1)).createPartition(name(old), old, old.plusDays(1));
+        verify(partitionRepository, times(1)).createPartition(eq(name(today)), any(), any());
+    }
+
+    @Test
+    void hitsOutsideAcceptedWindowCreateNoPartitions() {
+        StatsPartitionManager manager = manager(PartitionInterval.DAY, 0, 0, RetentionMode.DROP);
+
+        assertThrows(ValidationException.class, () -> manager.ensurePartitions(
+                List.of(hit(today), hit(LocalDate.of(1970, 1, 1)))));
+        assertThrows(ValidationException.class, () -> manager.ensurePartitions(List.of(hit(today.plusDays(2)))));
+        assertThrows(ValidationException.class, () -> manager.ensurePartitions(List.of(hit(today.minusDays(31)))));
+
+        verify(partitionRepository, never()).createPartition(anyString(), any(), any());
+    }
+
+    @Test
+    void hitsOlderThanRetentionCreateNoPartitions() {
+        StatsPartitionManager manager = manager(PartitionInterval.DAY, 0, 10, RetentionMode.DROP);
+
+        //секция, созданная для такой записи, была бы удалена при следующем обслуживании
+        assertThrows(ValidationException.class, () -> manager.ensurePartitions(List.of(hit(today.minusDays(11)))));
+        manager.ensurePartitions(List.of(hit(today.minusDays(9))));
+
+        verify(partitionRepository, times(1)).createPartition(anyString(), any(), any());
+        verify(partitionRepository).createPartition(name(today.minusDays(9)), today.minusDays(9), today.minusDays(8));
+    }
+
+    @Test
+    void expiredPartitionsAreDropped() {
+        LocalDate expired = today.minusDays(40);
+        LocalDate kept = today.minusDays(5);
+        when(partitionRepository.findPartitions()).thenReturn(List.of(name(expired), name(kept), name(today)));
+
+        manager(PartitionInterval.DAY, 0, 30, RetentionMode.DROP).maintain();
+
+        verify(partitionRepository).dropPartition(name(expired));
+        verify(partitionRepository, never()).dropPartition(name(kept));
+        verify(partitionRepository, never()).detachPartition(anyString(), anyString());
+    }
+
+    @Test
+    void expiredPartitionsAreDetachedToArchive() {
+        LocalDate expired = today.minusDays(40);
+        when(partitionRepository.findPartitions()).thenReturn(List.of(name(expired), name(today)));
+
+        manager(PartitionInterval.DAY, 0, 30, RetentionMode.DETACH).maintain();
+
+        verify(partitionRepository).detachPartition(name(expired), "stats_archive_" + expired.format(NAME_FORMAT));
+        verify(partitionRepository, never()).dropPartition(anyString());
+    }
+
+    private StatsPartitionManager manager(PartitionInterval interval, int premake, int retentionDays,
+                                          RetentionMode retentionMode) {
+        return new StatsPartitionManager(partitionRepository, dataSource, interval, premake,
+                retentionDays, retentionMode, 30, 1);
+    }
+
+    private static String name(LocalDate start) {
+        return "stats_p" + start.format(NAME_FORMAT);
+    }
+
+    private static Stats hit(LocalDate date) {
+        return Stats.builder().appId(1).uriId(1).timestamp(date.atTime(11, 0)).build();
+    }
+}
@@ -0,0 +1,74 @@
+package ru.practicum.stats.rollup;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import ru.practicum.stats.model.HitCount;
+import ru.practicum.stats.model.Stats;
+import ru.practicum.stats.repository.RollupRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RollupServiceTest {
+    private final RollupRepository rollupRepository = mock(RollupRepository.class);
+    private final RollupService rollupService = new RollupService(rollupRepository, true);
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void recordAggregatesHitsPerBucket() {
+        LocalDateTime time = LocalDateTime.of(2022, 9, 6, 11, 0, 23);
+        rollupService.record(List.of(hit(1, time), hit(1, time.plusSeconds(5)), hit(2, time.plusMinutes(1))));
+
+        ArgumentCaptor<Map<RollupKey, Long>> captor = ArgumentCaptor.forClass(Map.class);
+        verify(rollupRepository).increment(captor.capture());
+        Map<RollupKey, Long> increments = captor.getValue();
+        assertEquals(2L, increments.get(key(Granularity.MINUTE, 1, "2022-09-06T11:00")));
+        assertEquals(1L, increments.get(key(Granularity.MINUTE, 2, "2022-09-06T11:01")));
+        assertEquals(2L, increments.get(key(Granularity.HOUR, 1, "2022-09-06T11:00")));
+        assertEquals(1L, increments.get(key(Granularity.DAY, 2, "2022-09-06T00:00")));
+        assertEquals(6, increments.size());
+        //ключи передаются в порядке блокировки строк
+        assertEquals(new ArrayList<>(increments.keySet()), increments.keySet().stream().sorted().collect(Collectors.toList()));
+    }
+
+    @Test
+    void disabledRollupDoesNotTouchRepository() {
+        new RollupService(rollupRepository, false)
+                .record(List.of(hit(1, LocalDateTime.of(2022, 9, 6, 11, 0, 23))));
+
+        verify(rollupRepository, never()).increment(anyMap());
+    }
+
+    @Test
+    void getStatsMergesBucketsAndRawHits() {
+        when(rollupRepository.sumHits(anyList(), isNull()))
+                .thenReturn(List.of(new HitCount(1, 10, 5L), new HitCount(1, 11, 1L)));
+        when(rollupRepository.countRawHits(anyList(), isNull()))
+                .thenReturn(List.of(new HitCount(1, 11, 7L), new HitCount(1, 10, 1L)));
+
+        List<HitCount> stats = rollupService.getStats(LocalDateTime.of(2022, 9, 6, 10, 59, 30),
+                LocalDateTime.of(2022, 9, 8, 1, 0, 10), null);
+
+        assertEquals(List.of(new HitCount(1, 11, 8L), new HitCount(1, 10, 6L)), stats);
+    }
+
+    private static Stats hit(int uriId, LocalDateTime timestamp) {
+        return Stats.builder().appId(1).uriId(uriId).timestamp(timestamp).build();
+    }
+
+    private static RollupKey key(Granularity granularity, int uriId, String bucket) {
+        return new RollupKey(granularity, 1, uriId, LocalDateTime.parse(bucket));
+    }
+}
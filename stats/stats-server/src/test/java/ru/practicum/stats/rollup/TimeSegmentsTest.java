@@ -0,0 +1,77 @@
+package ru.practicum.stats.rollup;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimeSegmentsTest {
+
+    @Test
+    void coverClosedUsesLargestBucketsInTheMiddle() {
+        LocalDateTime start = LocalDateTime.of(2022, 9, 6, 10, 59, 30);
+        LocalDateTime end = LocalDateTime.of(2022, 9, 8, 1, 0, 10);
+
+        List<TimeSegment> segments = TimeSegments.coverClosed(start, end, Granularity.values());
+
+        assertEquals(List.of(
+                new TimeSegment(null, start, LocalDateTime.of(2022, 9, 6, 11, 0)),
+                new TimeSegment(null, LocalDateTime.of(2022, 9, 8, 1, 0), LocalDateTime.of(2022, 9, 8, 1, 0, 11)),
+                new TimeSegment(Granularity.HOUR, LocalDateTime.of(2022, 9, 6, 11, 0), LocalDateTime.of(2022, 9, 7, 0, 0)),
+                new TimeSegment(Granularity.HOUR, LocalDateTime.of(2022, 9, 8, 0, 0), LocalDateTime.of(2022, 9, 8, 1, 0)),
+                new TimeSegment(Granularity.DAY, LocalDateTime.of(2022, 9, 7, 0, 0), LocalDateTime.of(2022, 9, 8, 0, 0))
+        ), segments);
+    }
+
+    @Test
+    void shortRangeIsReadFromRawHits() {
+        LocalDateTime start = LocalDateTime.of(2022, 9, 6, 11, 0, 10);
+        LocalDateTime end = LocalDateTime.of(2022, 9, 6, 11, 0, 50);
+
+        List<TimeSegment> segments = TimeSegments.coverClosed(start, end, Granularity.values());
+
+        assertEquals(List.of(new TimeSegment(null, start, end.plusSeconds(1))), segments);
+    }
+
+    @Test
+    void alignedRangeIsCoveredByBucketsOnly() {
+        LocalDateTime from = LocalDateTime.of(2022, 9, 6, 0, 0);
+        LocalDateTime to = LocalDateTime.of(2022, 9, 9, 0, 0);
+
+        List<TimeSegment> segments = TimeSegments.cover(from, to, Granularity.values());
+
+        assertEquals(List.of(new TimeSegment(Granularity.DAY, from, to)), segments);
+    }
+
+    @Test
+    void segmentsAreAlignedAndCoverRangeWithoutGaps() {
+        LocalDateTime from = LocalDateTime.of(2022, 1, 1, 0, 0, 1);
+        for (int i = 0; i < 200; i++) {
+            LocalDateTime to = from.plusSeconds(37L * i * i + 13);
+
+            List<TimeSegment> segments = TimeSegments.cover(from, to, Granularity.values());
+
+            List<TimeSegment> sorted = segments.stream()
+                    .sorted(Comparator.comparing(TimeSegment::getFrom))
+                    .collect(Collectors.toList());
+            assertEquals(from, sorted.get(0).getFrom());
+            assertEquals(to, sorted.get(sorted.size() - 1).getTo());
+            for (int j = 0; j < sorted.size(); j++) {
+                TimeSegment segment = sorted.get(j);
+                assertTrue(segment.getFrom().isBefore(segment.getTo()));
+                if (j > 0) {
+                    assertEquals(sorted.get(j - 1).getTo(), segment.getFrom());
+                }
+                if (!segment.isRaw()) {
+                    assertEquals(segment.getGranularity().floor(segment.getFrom()), segment.getFrom());
+                    assertEquals(segment.getGranularity().floor(segment.getTo()), segment.getTo());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package ru.practicum.stats.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import ru.practicum.dto.stats.EndpointHit;
+import ru.practicum.dto.stats.HistogramBucket;
+import ru.practicum.stats.buffer.HitWriteBuffer;
+import ru.practicum.stats.dictionary.DictionaryKind;
+import ru.practicum.stats.dictionary.StatsDictionary;
+import ru.practicum.stats.exeption.ValidationException;
+import ru.practicum.stats.hitlog.HitLog;
+import ru.practicum.stats.hot.HotWindowIndex;
+import ru.practicum.stats.model.BucketCount;
+import ru.practicum.stats.partition.StatsPartitionManager;
+import ru.practicum.stats.repository.HistogramRepository;
+import ru.practicum.stats.repository.StateRepository;
+import ru.practicum.stats.rollup.Granularity;
+import ru.practicum.stats.rollup.RollupService;
+import ru.practicum.stats.sketch.SketchService;
+import ru.practicum.stats.top.HeavyHitters;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class StatsServiceImplTest {
+    private static final LocalDateTime START = LocalDateTime.of(2022, 9, 6, 10, 59, 30);
+    private static final LocalDateTime END = LocalDateTime.of(2022, 9, 6, 13, 0, 10);
+
+    private HistogramRepository histogramRepository;
+    private RollupService rollupService;
+    private StatsDictionary dictionary;
+    private HitWriteBuffer buffer;
+    private StatsPartitionManager partitionManager;
+    private StatsServiceImpl statsService;
+
+    @BeforeEach
+    void setUp() {
+        histogramRepository = mock(HistogramRepository.class);
+        rollupService = mock(RollupService.class);
+        dictionary = mock(StatsDictionary.class);
+        buffer = mock(HitWriteBuffer.class);
+        partitionManager = mock(StatsPartitionManager.class);
+        when(rollupService.isEnabled()).thenReturn(true);
+        statsService = new StatsServiceImpl(mock(StateRepository.class), histogramRepository, mock(StatsWriter.class),
+                buffer, mock(HitLog.class), rollupService, mock(SketchService.class), dictionary,
+                mock(HotWindowIndex.class), mock(HeavyHitters.class), partitionManager);
+    }
+
+    @Test
+    void hitsOutsideAcceptedWindowAreRejectedBeforeBuffering() {
+        when(buffer.isEnabled()).thenReturn(true);
+        doThrow(new ValidationException("Время запроса вне допустимого диапазона"))
+                .when(partitionManager).validate(anyList());
+        EndpointHit hit = new EndpointHit("ewm-main-service", "/events/1", "192.163.0.1", "1970-01-01 00:00:00");
+
+        assertThrows(ValidationException.class, () -> statsService.addAll(List.of(hit)));
+        verify(buffer, never()).offer(anyList());
+    }
+
+    @Test
+    void histogramReadsFullBucketsFromRollupAndEdgesFromRawHits() {
+        statsService.getHistogram(START, END, null, Granularity.HOUR, false).forEach(bucket -> {
+        });
+
+        InOrder order = inOrder(histogramRepository);
+        order.verify(histogramRepository).forEachRawBucket(eq(Granularity.HOUR), eq(START),
+                eq(LocalDateTime.of(2022, 9, 6, 11, 0)), isNull(), eq(false), any());
+        order.verify(histogramRepository).forEachRollupBucket(eq(Granularity.HOUR),
+                eq(LocalDateTime.of(2022, 9, 6, 11, 0)), eq(LocalDateTime.of(2022, 9, 6, 13, 0)), isNull(), any());
+        order.verify(histogramRepository).forEachRawBucket(eq(Granularity.HOUR),
+                eq(LocalDateTime.of(2022, 9, 6, 13, 0)), eq(END.plusSeconds(1)), isNull(), eq(false), any());
+    }
+
+    @Test
+    void uniqueHistogramIsOneRawScan() {
+        statsService.getHistogram(START, END, null, Granularity.HOUR, true).forEach(bucket -> {
+        });
+
+        verify(histogramRepository).forEachRawBucket(eq(Granularity.HOUR), eq(START), eq(END.plusSeconds(1)),
+                isNull(), eq(true), any());
+        verify(histogramRepository, never()).forEachRollupBucket(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void histogramBucketsAreMappedToNames() {
+        when(dictionary.findUriIds(List.of("/events/1"))).thenReturn(List.of(7));
+        when(dictionary.name(DictionaryKind.APP, 1)).thenReturn("ewm-main-service");
+        when(dictionary.name(DictionaryKind.URI, 7)).thenReturn("/events/1");
+        doAnswer(invocation -> {
+            Consumer<BucketCount> consumer = invocation.getArgument(5);
+            consumer.accept(new BucketCount(LocalDateTime.of(2022, 9, 6, 11, 0), 1, 7, 5L, 3L));
+            return null;
+        }).when(histogramRepository).forEachRawBucket(any(), any(), any(), eq(List.of(7)), anyBoolean(), any());
+        List<HistogramBucket> buckets = new ArrayList<>();
+
+        statsService.getHistogram(START, END, List.of("/events/1"), Granularity.DAY, true).forEach(buckets::add);
+
+        assertEquals(List.of(new HistogramBucket("ewm-main-service", "/events/1", "2022-09-06 11:00:00", 5L, 3L)),
+                buckets);
+    }
+
+    @Test
+    void histogramOfUnknownUrisIsEmpty() {
+        when(dictionary.findUriIds(List.of("/events/404"))).thenReturn(List.of());
+        List<HistogramBucket> buckets = new ArrayList<>();
+
+        statsService.getHistogram(START, END, List.of("/events/404"), Granularity.HOUR, false).forEach(buckets::add);
+
+        assertTrue(buckets.isEmpty());
+        verifyNoInteractions(histogramRepository);
+    }
+
+    @Test
+    void histogramRangeIsValidatedBeforeStreaming() {
+        assertThrows(ValidationException.class,
+                () -> statsService.getHistogram(END, START, null, Granularity.HOUR, false));
+        verifyNoInteractions(histogramRepository);
+    }
+}
@@ -0,0 +1,165 @@
+package ru.practicum.stats.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.stats.dictionary.StatsDictionary;
+import ru.practicum.stats.hot.HotWindowIndex;
+import ru.practicum.stats.model.Stats;
+import ru.practicum.stats.partition.StatsPartitionManager;
+import ru.practicum.stats.repository.HitBatchRepository;
+import ru.practicum.stats.rollup.RollupService;
+import ru.practicum.stats.sketch.SketchService;
+import ru.practicum.stats.top.HeavyHitters;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class StatsWriterTest {
+    private HitBatchRepository batchRepository;
+    private RollupService rollupService;
+    private SketchService sketchService;
+    private HotWindowIndex hotWindow;
+    private HeavyHitters heavyHitters;
+    private StatsWriter writer;
+    //размеры пакетов, переданных в saveAll, в порядке вызовов
+    private List<Integer> saved;
+
+    @BeforeEach
+    void setUp() {
+        batchRepository = mock(HitBatchRepository.class);
+        rollupService = mock(RollupService.class);
+        sketchService = mock(SketchService.class);
+        hotWindow = mock(HotWindowIndex.class);
+        heavyHitters = mock(HeavyHitters.class);
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        saved = Collections.synchronizedList(new ArrayList<>());
+        when(batchRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Stats> stats = invocation.getArgument(0);
+            saved.add(stats.size());
+            return stats.size();
+        });
+        writer = new StatsWriter(batchRepository, rollupService, sketchService, mock(StatsPartitionManager.class),
+                mock(StatsDictionary.class), hotWindow, heavyHitters, transactionTemplate);
+    }
+
+    @Test
+    void writeUpdatesAggregatesInTransactionAndHotWindowAfterIt() {
+        List<Stats> stats = hits(3);
+        Runnable inTransaction = mock(Runnable.class);
+
+        assertEquals(3, writer.write(stats, inTransaction));
+
+        InOrder order = inOrder(batchRepository, rollupService, sketchService, inTransaction, hotWindow, heavyHitters);
+        order.verify(batchRepository).saveAll(stats);
+        order.verify(rollupService).record(stats);
+        order.verify(sketchService).record(stats);
+        order.verify(inTransaction).run();
+        order.verify(hotWindow).record(stats);
+        order.verify(heavyHitters).record(stats);
+    }
+
+    @Test
+    void failedTransactionIsReportedAndSkipsHotWindow() {
+        IllegalStateException error = new IllegalStateException("нет соединения");
+        doAnswer(invocation -> {
+            throw error;
+        }).when(rollupService).record(anyList());
+
+        assertSame(error, assertThrows(IllegalStateException.class, () -> writer.write(hits(2))));
+        verify(hotWindow, never()).record(anyList());
+        verify(heavyHitters, never()).record(anyList());
+
+        //после ошибки следующий пакет записывается как обычно
+        doAnswer(invocation -> null).when(rollupService).record(anyList());
+        assertEquals(1, writer.write(hits(1)));
+    }
+
+    @Test
+    void concurrentWritesAreCommittedAsOneGroup() throws Exception {
+        CountDownLatch firstStarted = new CountDownLatch(1);
+        CountDownLatch releaseFirst = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            if (firstStarted.getCount() > 0) {
+                firstStarted.countDown();
+                releaseFirst.await(5, TimeUnit.SECONDS);
+            }
+            return null;
+        }).when(sketchService).record(anyList());
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            Future<Integer> first = executor.submit(() -> writer.write(hits(1)));
+            assertTrue(firstStarted.await(5, TimeUnit.SECONDS));
+            List<Thread> waiting = Collections.synchronizedList(new ArrayList<>());
+            Future<Integer> second = executor.submit(() -> {
+                waiting.add(Thread.currentThread());
+                return writer.write(hits(2));
+            });
+            Future<Integer> third = executor.submit(() -> {
+                waiting.add(Thread.currentThread());
+                return writer.write(hits(3));
+            });
+            awaitWaiting(waiting, 2);
+
+            releaseFirst.countDown();
+
+            assertEquals(1, first.get(5, TimeUnit.SECONDS));
+            assertEquals(2, second.get(5, TimeUnit.SECONDS));
+            assertEquals(3, third.get(5, TimeUnit.SECONDS));
+            //пакеты, поступившие во время записи первого, записаны одной транзакцией
+            assertEquals(List.of(1, 5), saved);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    //потоки считаются вставшими в очередь, когда ждут на мониторе очереди
+    private static void awaitWaiting(List<Thread> threads, int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (threads.size() < count
+                || threads.stream().anyMatch(t -> t.getState() != Thread.State.WAITING)) {
+            assertTrue(System.currentTimeMillis() < deadline, "Потоки не встали в очередь записи");
+            Thread.sleep(10);
+        }
+    }
+
+    private static List<Stats> hits(int count) {
+        List<Stats> hits = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            hits.add(Stats.builder()
+                    .appId(1)
+                    .uriId(i)
+                    .ip(new byte[]{(byte) 192, (byte) 168, 0, 1})
+                    .timestamp(LocalDateTime.of(2022, 9, 6, 11, 0, 23))
+                    .build());
+        }
+        return hits;
+    }
+}
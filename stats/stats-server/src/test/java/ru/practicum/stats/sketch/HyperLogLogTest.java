@@ -0,0 +1,123 @@
+package ru.practicum.stats.sketch;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HyperLogLogTest {
+    //три стандартные ошибки оценки при 4096 регистрах
+    private static final double MAX_ERROR = 0.05;
+
+    @Test
+    void smallSetsAreCountedExactly() {
+        HyperLogLog sketch = new HyperLogLog();
+        for (int i = 0; i < 512; i++) {
+            sketch.add(ip(i));
+            sketch.add(ip(i));
+        }
+
+        assertEquals(512, sketch.estimate());
+    }
+
+    @Test
+    void largeSetsAreEstimatedWithinErrorBound() {
+        for (int n : new int[]{1_000, 10_000, 100_000, 1_000_000}) {
+            HyperLogLog sketch = new HyperLogLog();
+            for (int i = 0; i < n; i++) {
+                sketch.add(ip(i));
+            }
+
+            double error = Math.abs(sketch.estimate() - n) / (double) n;
+            assertTrue(error < MAX_ERROR, "n = " + n + ", ошибка " + error);
+        }
+    }
+
+    @Test
+    void mergeEstimatesUnionOfSets() {
+        HyperLogLog first = new HyperLogLog();
+        HyperLogLog second = new HyperLogLog();
+        HyperLogLog all = new HyperLogLog();
+        //множества пересекаются на [20000, 40000)
+        for (int i = 0; i < 60_000; i++) {
+            (i < 40_000 ? first : second).add(ip(i));
+            if (i >= 20_000 && i < 40_000) {
+                second.add(ip(i));
+            }
+            all.add(ip(i));
+        }
+
+        first.merge(second);
+
+        assertEquals(all.estimate(), first.estimate());
+        assertTrue(Math.abs(first.estimate() - 60_000) / 60_000.0 < MAX_ERROR);
+    }
+
+    @Test
+    void mergeOfExactSketchesStaysExact() {
+        HyperLogLog first = new HyperLogLog();
+        HyperLogLog second = new HyperLogLog();
+        for (int i = 0; i < 100; i++) {
+            first.add(ip(i));
+            second.add(ip(i + 50));
+        }
+
+        first.merge(second);
+
+        assertEquals(150, first.estimate());
+    }
+
+    @Test
+    void mergeOfExactIntoDenseSketch() {
+        HyperLogLog dense = new HyperLogLog();
+        for (int i = 0; i < 10_000; i++) {
+            dense.add(ip(i));
+        }
+        HyperLogLog exact = new HyperLogLog();
+        exact.add(ip(0));
+        exact.add(ip(20_000));
+        long before = dense.estimate();
+
+        exact.merge(dense);
+        dense.merge(exact);
+
+        assertEquals(dense.estimate(), exact.estimate());
+        assertTrue(dense.estimate() >= before);
+    }
+
+    @Test
+    void bytesRoundTripPreservesEstimate() {
+        for (int n : new int[]{0, 10, 512, 513, 50_000}) {
+            HyperLogLog sketch = new HyperLogLog();
+            for (int i = 0; i < n; i++) {
+                sketch.add(ip(i));
+            }
+
+            byte[] bytes = sketch.toBytes();
+            HyperLogLog restored = HyperLogLog.fromBytes(bytes);
+
+            assertEquals(sketch.estimate(), restored.estimate());
+            assertEquals(bytes.length, restored.toBytes().length);
+            if (n > 512) {
+                assertArrayEquals(bytes, restored.toBytes());
+            }
+        }
+    }
+
+    @Test
+    void denseSketchHasFixedSize() {
+        HyperLogLog sketch = new HyperLogLog();
+        for (int i = 0; i < 1_000_000; i++) {
+            sketch.add(ip(i));
+        }
+
+        assertEquals(1 + 4096, sketch.toBytes().length);
+    }
+
+    private static byte[] ip(int value) {
+        return ByteBuffer.allocate(Integer.BYTES).putInt(value).array();
+    }
+}
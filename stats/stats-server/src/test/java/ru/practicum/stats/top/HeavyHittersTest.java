@@ -0,0 +1,93 @@
+package ru.practicum.stats.top;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.practicum.stats.model.HitCount;
+import ru.practicum.stats.model.Stats;
+import ru.practicum.stats.repository.RollupRepository;
+import ru.practicum.stats.rollup.RollupService;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class HeavyHittersTest {
+    private final LocalDateTime hour = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS).minusDays(1);
+    private RollupRepository rollupRepository;
+    private RollupService rollupService;
+
+    @BeforeEach
+    void setUp() {
+        rollupRepository = mock(RollupRepository.class);
+        rollupService = mock(RollupService.class);
+        when(rollupService.isEnabled()).thenReturn(true);
+    }
+
+    @Test
+    void candidatesCombineRebuiltAndRecordedHits() {
+        doAnswer(invocation -> {
+            BiConsumer<LocalDateTime, HitCount> consumer = invocation.getArgument(1);
+            consumer.accept(hour, new HitCount(1, 1, 10L));
+            consumer.accept(hour, new HitCount(1, 2, 4L));
+            return null;
+        }).when(rollupRepository).forEachHourBucket(any(), any());
+        HeavyHitters heavyHitters = heavyHitters();
+        heavyHitters.rebuild();
+
+        heavyHitters.record(hits(2, 8, hour.plusHours(1)));
+        heavyHitters.record(hits(3, 5, hour.plusHours(1)));
+
+        assertEquals(List.of(HeavyHitters.key(1, 2), HeavyHitters.key(1, 1)),
+                heavyHitters.candidates(hour, hour.plusHours(2), 2));
+        //часы вне диапазона не учитываются
+        assertEquals(List.of(HeavyHitters.key(1, 1), HeavyHitters.key(1, 2)),
+                heavyHitters.candidates(hour, hour.plusMinutes(30), 10));
+    }
+
+    @Test
+    void coversOnlyLongRangesInsideRetention() {
+        HeavyHitters heavyHitters = heavyHitters();
+        heavyHitters.rebuild();
+
+        assertTrue(heavyHitters.covers(hour, hour.plusHours(6)));
+        assertFalse(heavyHitters.covers(hour, hour.plusHours(5)));
+        assertFalse(heavyHitters.covers(hour.minusDays(8), hour));
+    }
+
+    @Test
+    void disabledRollupDisablesSummaries() {
+        when(rollupService.isEnabled()).thenReturn(false);
+        HeavyHitters heavyHitters = heavyHitters();
+        heavyHitters.rebuild();
+
+        assertFalse(heavyHitters.covers(hour, hour.plusDays(1)));
+    }
+
+    @Test
+    void keyKeepsUriId() {
+        assertEquals(7, HeavyHitters.uriId(HeavyHitters.key(3, 7)));
+        assertEquals(-1, HeavyHitters.uriId(HeavyHitters.key(3, -1)));
+    }
+
+    private HeavyHitters heavyHitters() {
+        return new HeavyHitters(rollupRepository, rollupService, true, 200, 7, 6);
+    }
+
+    private static List<Stats> hits(int uriId, int count, LocalDateTime timestamp) {
+        List<Stats> hits = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            hits.add(Stats.builder().appId(1).uriId(uriId).timestamp(timestamp.plusSeconds(i)).build());
+        }
+        return hits;
+    }
+}
@@ -0,0 +1,88 @@
+package ru.practicum.stats.top;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SpaceSavingTest {
+    private static final int CAPACITY = 50;
+
+    @Test
+    void summaryKeepsSpaceSavingGuarantees() {
+        SpaceSaving summary = new SpaceSaving(CAPACITY);
+        Map<Long, Long> exact = new HashMap<>();
+        Random random = new Random(42);
+        long total = 0;
+        //распределение с тяжелым хвостом: ключ k встречается с вероятностью ~1/k
+        for (int i = 0; i < 100_000; i++) {
+            long key = (long) Math.floor(Math.exp(random.nextDouble() * Math.log(10_000)));
+            long weight = 1 + random.nextInt(3);
+            summary.add(key, weight);
+            exact.merge(key, weight, Long::sum);
+            total += weight;
+        }
+        Map<Long, Long> counts = new HashMap<>();
+        summary.addTo(counts);
+
+        assertTrue(counts.size() <= CAPACITY);
+        assertEquals(total, counts.values().stream().mapToLong(Long::longValue).sum());
+        long maxError = total / CAPACITY;
+        counts.forEach((key, count) -> {
+            long trueCount = exact.get(key);
+            assertTrue(count >= trueCount, "счетчик " + key + " занижен");
+            assertTrue(count - trueCount <= maxError, "счетчик " + key + " завышен больше N / capacity");
+        });
+        exact.forEach((key, trueCount) -> {
+            if (trueCount > maxError) {
+                assertTrue(counts.containsKey(key), "частый ключ " + key + " вытеснен");
+            }
+        });
+    }
+
+    @Test
+    void countsAreExactUntilCapacityIsReached() {
+        SpaceSaving summary = new SpaceSaving(3);
+        summary.add(1, 5);
+        summary.add(2, 1);
+        summary.add(1, 2);
+        summary.add(3, 4);
+
+        Map<Long, Long> counts = new HashMap<>();
+        summary.addTo(counts);
+
+        assertEquals(Map.of(1L, 7L, 2L, 1L, 3L, 4L), counts);
+    }
+
+    @Test
+    void newKeyReplacesMinimumAndInheritsItsCount() {
+        SpaceSaving summary = new SpaceSaving(2);
+        summary.add(1, 5);
+        summary.add(2, 1);
+        summary.add(3, 1);
+
+        Map<Long, Long> counts = new HashMap<>();
+        summary.addTo(counts);
+
+        assertEquals(Map.of(1L, 5L, 3L, 2L), counts);
+    }
+
+    @Test
+    void addToSumsSummaries() {
+        SpaceSaving first = new SpaceSaving(10);
+        SpaceSaving second = new SpaceSaving(10);
+        first.add(1, 2);
+        second.add(1, 3);
+        second.add(2, 1);
+
+        Map<Long, Long> totals = new HashMap<>();
+        first.addTo(totals);
+        second.addTo(totals);
+
+        assertEquals(Map.of(1L, 5L, 2L, 1L), totals);
+    }
+}